@@ -0,0 +1,30 @@
+package com.graphhopper;
+
+import com.graphhopper.storage.DAType;
+import java.lang.reflect.Field;
+import lombok.SneakyThrows;
+
+/**
+ * GraphHopper only exposes the data access type of its storage through its configuration, which also resets the
+ * profiles and encoded values. This class sets only the data access type, through reflection from the same package
+ * structure.
+ */
+public final class GraphHopperDataAccess {
+
+    private GraphHopperDataAccess() {
+        //static class
+    }
+
+    /**
+     * Sets the data access type used for all graph storage. Must be called before the graph is imported or loaded.
+     */
+    @SneakyThrows
+    public static void setDefaultType(GraphHopper graphHopper, DAType daType) {
+        if (graphHopper.getFullyLoaded()) {
+            throw new IllegalStateException("Data access type cannot be changed after the graph is loaded");
+        }
+        Field field = GraphHopper.class.getDeclaredField("dataAccessDefaultType");
+        field.setAccessible(true);
+        field.set(graphHopper, daType);
+    }
+}
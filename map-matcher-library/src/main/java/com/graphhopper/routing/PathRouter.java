@@ -50,6 +50,17 @@ public class PathRouter extends Router {
      * routing api </a>
      */
     public List<Path> calcPaths(GHRequest request) {
+        return calcRoutedPaths(request).paths();
+    }
+
+    /**
+     * Same as {@link #calcPaths(GHRequest)}, but also returns the snaps of the request points, so callers can build a
+     * complete route response from a single solve.
+     *
+     * @param request the gh routing request
+     * @return the snaps of the request points and the paths between them
+     */
+    public RoutedPaths calcRoutedPaths(GHRequest request) {
         Solver solver = createSolver(request);
         solver.checkRequest();
         solver.profile = solver.getProfile();
@@ -72,6 +83,14 @@ public class PathRouter extends Router {
                             + ", paths:" + result.paths.size());
         }
 
-        return result.paths;
+        return new RoutedPaths(snaps, result.paths);
+    }
+
+    /**
+     * @param snaps the snapped request points, in request order
+     * @param paths the paths between consecutive snaps
+     */
+    public record RoutedPaths(List<Snap> snaps, List<Path> paths) {
+
     }
 }
@@ -0,0 +1,54 @@
+package com.graphhopper.storage;
+
+import java.lang.reflect.Field;
+import lombok.SneakyThrows;
+
+/**
+ * GraphHopper grows the node, edge and geometry storage of a {@link BaseGraph} one segment at a time while the graph is
+ * filled. When the size of the network is known up front, this class allocates the storage once at the right size. The
+ * storage objects are private, so they are accessed through reflection from the same package structure.
+ */
+public final class BaseGraphCapacity {
+
+    private static final int GEOMETRY_HEADER_BYTES = Integer.BYTES;
+
+    private static final int PILLAR_NODE_BYTES = 2 * Integer.BYTES;
+
+    private BaseGraphCapacity() {
+        //static class
+    }
+
+    /**
+     * Ensures the storage of an empty, created graph can hold the given number of nodes, edges and pillar nodes without
+     * growing. Counts of zero or less leave the corresponding storage unchanged.
+     */
+    @SneakyThrows
+    public static void ensureCapacity(BaseGraph baseGraph, int nodeCount, int edgeCount, long pillarNodeCount) {
+        Object store = getFieldValue(BaseGraph.class, baseGraph, "store");
+        if (nodeCount > 0) {
+            int nodeEntryBytes = (int) getFieldValue(store.getClass(), store, "nodeEntryBytes");
+            getDataAccess(store.getClass(), store, "nodes").ensureCapacity((long) nodeCount * nodeEntryBytes);
+        }
+        if (edgeCount > 0) {
+            int edgeEntryBytes = (int) getFieldValue(store.getClass(), store, "edgeEntryBytes");
+            getDataAccess(store.getClass(), store, "edges").ensureCapacity((long) edgeCount * edgeEntryBytes);
+        }
+        if (pillarNodeCount > 0) {
+            long geometryBytes = Math.max(edgeCount, 0) * (long) GEOMETRY_HEADER_BYTES
+                    + pillarNodeCount * PILLAR_NODE_BYTES;
+            getDataAccess(BaseGraph.class, baseGraph, "wayGeometry").ensureCapacity(geometryBytes);
+        }
+    }
+
+    private static DataAccess getDataAccess(Class<?> type, Object instance, String fieldName)
+            throws NoSuchFieldException, IllegalAccessException {
+        return (DataAccess) getFieldValue(type, instance, fieldName);
+    }
+
+    private static Object getFieldValue(Class<?> type, Object instance, String fieldName)
+            throws NoSuchFieldException, IllegalAccessException {
+        Field field = type.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        return field.get(instance);
+    }
+}
@@ -0,0 +1,152 @@
+package nu.ndw.nls.routingmapmatcher;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import nu.ndw.nls.routingmapmatcher.exception.RoutingMapMatcherException;
+
+/**
+ * Matches locations on a fixed pool of worker threads. Map matchers are not thread safe, so every worker thread creates
+ * its own match function on first use and keeps it for its lifetime. The locations are read on the consuming thread
+ * and at most a few locations per worker are in flight, so memory use does not depend on the number of locations.
+ * <br />
+ * Results are returned in input order, or in completion order when the order does not need to be preserved. The worker
+ * threads are started on the first call to {@link #hasNext()} or {@link #next()}, and stopped when all results are
+ * returned, when matching fails or when the iterator is closed. Idle worker threads also stop after a timeout, so an
+ * iterator that is abandoned before it is exhausted, for example by a short-circuiting stream operation on a stream
+ * that is not closed, does not keep its threads.
+ */
+class ParallelMatchingIterator<T, R> implements Iterator<R>, AutoCloseable {
+
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+
+    private static final String THREAD_NAME_PREFIX = "map-matcher-";
+
+    private static final long IDLE_THREAD_TIMEOUT_SECONDS = 10;
+
+    private final Iterator<T> locations;
+
+    private final ThreadLocal<Function<T, R>> matchFunction;
+
+    private final int parallelism;
+
+    private final boolean preserveOrder;
+
+    private final Deque<Future<R>> pendingResultsInOrder = new ArrayDeque<>();
+
+    private final int maxInFlight;
+
+    private ExecutorService executorService;
+
+    private CompletionService<R> completionService;
+
+    private boolean closed;
+
+    private int inFlight;
+
+    ParallelMatchingIterator(Iterator<T> locations, Supplier<Function<T, R>> matchFunctionSupplier, int parallelism,
+            boolean preserveOrder) {
+        this.locations = locations;
+        this.matchFunction = ThreadLocal.withInitial(matchFunctionSupplier);
+        this.parallelism = parallelism;
+        this.preserveOrder = preserveOrder;
+        this.maxInFlight = parallelism * IN_FLIGHT_PER_THREAD;
+    }
+
+    @Override
+    public boolean hasNext() {
+        start();
+        return inFlight > 0;
+    }
+
+    @Override
+    public R next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        R result = getResult(preserveOrder ? pendingResultsInOrder.poll() : takeCompleted());
+        inFlight--;
+        submitLocations();
+        if (!hasNext()) {
+            close();
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void start() {
+        if (executorService != null || closed) {
+            return;
+        }
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(parallelism, parallelism,
+                IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                Thread.ofPlatform().name(THREAD_NAME_PREFIX, 0).daemon(true).factory());
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        executorService = threadPoolExecutor;
+        completionService = new ExecutorCompletionService<>(executorService);
+        submitLocations();
+    }
+
+    private void submitLocations() {
+        while (inFlight < maxInFlight && locations.hasNext()) {
+            T location = locations.next();
+            Callable<R> task = () -> matchFunction.get().apply(location);
+            if (preserveOrder) {
+                pendingResultsInOrder.add(executorService.submit(task));
+            } else {
+                completionService.submit(task);
+            }
+            inFlight++;
+        }
+    }
+
+    private Future<R> takeCompleted() {
+        try {
+            return completionService.take();
+        } catch (InterruptedException e) {
+            throw handleInterrupt();
+        }
+    }
+
+    private R getResult(Future<R> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            throw handleInterrupt();
+        } catch (ExecutionException e) {
+            close();
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new RoutingMapMatcherException("Matching location failed: " + e.getCause());
+        }
+    }
+
+    private RoutingMapMatcherException handleInterrupt() {
+        Thread.currentThread().interrupt();
+        close();
+        return new RoutingMapMatcherException("Interrupted while matching locations");
+    }
+}
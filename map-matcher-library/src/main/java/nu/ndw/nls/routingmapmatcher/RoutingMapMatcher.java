@@ -1,15 +1,27 @@
 package nu.ndw.nls.routingmapmatcher;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nu.ndw.nls.routingmapmatcher.auto.AutoLineStringMapMatcher;
+import nu.ndw.nls.routingmapmatcher.chunked.ChunkedLineStringMapMatcher;
 import nu.ndw.nls.routingmapmatcher.domain.MapMatcher;
 import nu.ndw.nls.routingmapmatcher.domain.MapMatcherFactory;
-import nu.ndw.nls.routingmapmatcher.model.LineMatchingMode;
 import nu.ndw.nls.routingmapmatcher.model.MapMatchingLineRequest;
 import nu.ndw.nls.routingmapmatcher.model.MapMatchingRequest;
 import nu.ndw.nls.routingmapmatcher.model.MapMatchingSinglePointRequest;
@@ -18,11 +30,16 @@ import nu.ndw.nls.routingmapmatcher.model.base.BaseLocation;
 import nu.ndw.nls.routingmapmatcher.model.base.MapMatch;
 import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringLocation;
 import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringMatch;
+import nu.ndw.nls.routingmapmatcher.model.singlepoint.SinglePointLocation;
 import nu.ndw.nls.routingmapmatcher.model.singlepoint.SinglePointMatch;
 import nu.ndw.nls.routingmapmatcher.network.NetworkGraphHopper;
 import nu.ndw.nls.routingmapmatcher.singlepoint.SinglePointMapMatcher;
 import nu.ndw.nls.routingmapmatcher.starttoend.StartToEndMapMatcher;
+import nu.ndw.nls.routingmapmatcher.util.HilbertCurveOrder;
+import nu.ndw.nls.routingmapmatcher.viterbi.HmmLineStringMapMatcher;
 import nu.ndw.nls.routingmapmatcher.viterbi.ViterbiLineStringMapMatcher;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
 import org.springframework.stereotype.Component;
 
 @Slf4j
@@ -32,77 +49,219 @@ public class RoutingMapMatcher {
 
     private static final int REPORT_PROGRESS_INTERVAL = 100;
     private static final double HUNDRED_PERCENT = 100.0;
+    private static final int UNKNOWN_COUNT = -1;
+    private static final String NO_LOCATIONS_MSG = "Location supplier or location stream supplier must be provided";
 
     private final MapMatcherFactory<ViterbiLineStringMapMatcher> lineStringMapMatcherFactory;
     private final MapMatcherFactory<SinglePointMapMatcher> singlePointMapMatcherMapMatcherFactory;
     private final MapMatcherFactory<StartToEndMapMatcher> startToEndMapMatcherMapMatcherFactory;
+    private final MapMatcherFactory<HmmLineStringMapMatcher> hmmLineStringMapMatcherFactory;
 
     @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
     private static final class MatchingContext<T extends BaseLocation, R extends MapMatch> {
 
-        private int matched;
-        private int processed;
+        private final AtomicInteger matched = new AtomicInteger();
+        private final AtomicInteger processed = new AtomicInteger();
 
-        private final MapMatcher<T, R> mapMatcher;
+        private final Supplier<MapMatcher<T, R>> mapMatcherSupplier;
+        private final Function<T, Geometry> geometryFunction;
+        private final Set<AutoCloseable> closeableMapMatchers = ConcurrentHashMap.newKeySet();
 
         public Stream<R> matchLocations(MapMatchingRequest<T> mapMatchingRequest) {
-            List<T> locations = mapMatchingRequest.getLocationSupplier().get();
+            if (mapMatchingRequest.getLocationStreamSupplier() != null) {
+                // A single matcher is not thread safe, parallel matching is configured on the request instead
+                Stream<T> locations = mapMatchingRequest.getLocationStreamSupplier().get().sequential();
+                int numLocations = Objects.requireNonNullElse(mapMatchingRequest.getLocationCountHint(),
+                        UNKNOWN_COUNT);
+                return matchLocations(locations, numLocations, mapMatchingRequest,
+                        mapMatchingRequest.isPreserveOrder());
+            }
+            List<T> locationList = Objects.requireNonNull(mapMatchingRequest.getLocationSupplier(),
+                    NO_LOCATIONS_MSG).get();
+            if (mapMatchingRequest.isSpatiallyOrdered()) {
+                return matchLocationsInSpatialOrder(locationList, mapMatchingRequest);
+            }
+            return matchLocations(locationList.stream(), locationList.size(), mapMatchingRequest,
+                    mapMatchingRequest.isPreserveOrder());
+        }
+
+        /**
+         * Matches the locations in the order of a Hilbert curve over the centres of their geometries, so successive
+         * matches use nearby parts of the network. The matches are returned in the original order once all locations
+         * are matched.
+         */
+        private Stream<R> matchLocationsInSpatialOrder(List<T> locationList,
+                MapMatchingRequest<T> mapMatchingRequest) {
+            double[] xs = new double[locationList.size()];
+            double[] ys = new double[locationList.size()];
+            for (int index = 0; index < locationList.size(); index++) {
+                Coordinate centre = geometryFunction.apply(locationList.get(index)).getEnvelopeInternal().centre();
+                xs[index] = centre.getX();
+                ys[index] = centre.getY();
+            }
+            int[] spatialOrder = HilbertCurveOrder.sort(xs, ys);
+
+            Stream<R> matches = matchLocations(Arrays.stream(spatialOrder).mapToObj(locationList::get),
+                    locationList.size(), mapMatchingRequest, true);
+            return lazyStream(() -> restoreOrder(matches.toList(), spatialOrder))
+                    .onClose(matches::close);
+        }
 
-            int numLocations = locations.size();
-            log.info("Start map matching for {}, count = {}", mapMatchingRequest.getLocationTypeName(), numLocations);
+        private List<R> restoreOrder(List<R> spatiallyOrderedMatches, int[] spatialOrder) {
+            List<R> matches = new ArrayList<>(Collections.nCopies(spatialOrder.length, null));
+            for (int index = 0; index < spatialOrder.length; index++) {
+                matches.set(spatialOrder[index], spatiallyOrderedMatches.get(index));
+            }
+            return matches;
+        }
+
+        /**
+         * Restoring the order requires all matches, so the list is only created when the stream is consumed. Like the
+         * other streams of matches, no location is matched before that.
+         */
+        private static <U> Stream<U> lazyStream(Supplier<List<U>> listSupplier) {
+            return StreamSupport.stream(() -> listSupplier.get().spliterator(), Spliterator.ORDERED, false);
+        }
+
+        private Stream<R> matchLocations(Stream<T> locations, int numLocations,
+                MapMatchingRequest<T> mapMatchingRequest, boolean preserveOrder) {
+            log.info("Start map matching for {}, count = {}", mapMatchingRequest.getLocationTypeName(),
+                    numLocations == UNKNOWN_COUNT ? "unknown" : numLocations);
+
+            if (mapMatchingRequest.getParallelism() <= 1) {
+                MapMatcher<T, R> mapMatcher = createMapMatcher();
+                return locations.map(location -> this.performMatching(mapMatcher, numLocations, location))
+                        .onClose(this::closeMapMatchers)
+                        .onClose(() -> this.logDoneIfCountUnknown(numLocations));
+            }
 
-            return locations.stream().map(location -> this.performMatching(numLocations, location));
+            // Every worker thread creates its own matcher, because matchers are not thread safe
+            ParallelMatchingIterator<T, R> parallelMatchingIterator = new ParallelMatchingIterator<>(
+                    locations.iterator(),
+                    () -> {
+                        MapMatcher<T, R> mapMatcher = createMapMatcher();
+                        return location -> this.performMatching(mapMatcher, numLocations, location);
+                    },
+                    mapMatchingRequest.getParallelism(),
+                    preserveOrder);
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(parallelMatchingIterator,
+                            Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .onClose(parallelMatchingIterator::close)
+                    .onClose(locations::close)
+                    .onClose(this::closeMapMatchers)
+                    .onClose(() -> this.logDoneIfCountUnknown(numLocations));
         }
 
-        private R performMatching(int numLocations, T location) {
-            R match = this.mapMatcher.match(location);
-            this.processed++;
+        private R performMatching(MapMatcher<T, R> mapMatcher, int numLocations, T location) {
+            R match = mapMatcher.match(location);
+            // Count the match before the location, so all matches are counted once all locations are processed
             if (match.getStatus() == MatchStatus.MATCH) {
-                this.matched++;
+                this.matched.incrementAndGet();
             }
-            if (this.processed % REPORT_PROGRESS_INTERVAL == 0) {
-                log.info("Processed {} of {} total", this.processed, numLocations);
+            int processedCount = this.processed.incrementAndGet();
+            if (processedCount % REPORT_PROGRESS_INTERVAL == 0) {
+                if (numLocations == UNKNOWN_COUNT) {
+                    log.info("Processed {}", processedCount);
+                } else {
+                    log.info("Processed {} of {} total", processedCount, numLocations);
+                }
             }
-            if (this.processed == numLocations) {
-                double percentage = HUNDRED_PERCENT * this.matched / numLocations;
-                log.info("Done. Processed {} locations, {} successfully matched ({}%)", numLocations, this.matched,
-                        String.format(Locale.getDefault(), "%.2f", percentage));
+            if (processedCount == numLocations) {
+                logDone(numLocations);
             }
 
             return match;
         }
+
+        /**
+         * Map matchers that hold resources, such as the worker threads of a chunked map matcher, are closed when the
+         * stream of matches is closed. A map matcher that is shared by several workers is closed once.
+         */
+        private MapMatcher<T, R> createMapMatcher() {
+            MapMatcher<T, R> mapMatcher = mapMatcherSupplier.get();
+            if (mapMatcher instanceof AutoCloseable closeableMapMatcher) {
+                closeableMapMatchers.add(closeableMapMatcher);
+            }
+            return mapMatcher;
+        }
+
+        private void closeMapMatchers() {
+            for (AutoCloseable closeableMapMatcher : closeableMapMatchers) {
+                if (!closeableMapMatchers.remove(closeableMapMatcher)) {
+                    continue;
+                }
+                try {
+                    closeableMapMatcher.close();
+                } catch (Exception e) {
+                    log.warn("Failed to close map matcher", e);
+                }
+            }
+        }
+
+        /**
+         * Without a known count, the end of the locations is only known when the stream of matches is closed.
+         */
+        private void logDoneIfCountUnknown(int numLocations) {
+            if (numLocations == UNKNOWN_COUNT) {
+                logDone(this.processed.get());
+            }
+        }
+
+        private void logDone(int numLocations) {
+            double percentage = numLocations == 0 ? 0 : HUNDRED_PERCENT * this.matched.get() / numLocations;
+            log.info("Done. Processed {} locations, {} successfully matched ({}%)", numLocations,
+                    this.matched.get(), String.format(Locale.getDefault(), "%.2f", percentage));
+        }
     }
 
     public Stream<SinglePointMatch> matchLocations(NetworkGraphHopper preInitializedNetwork,
             MapMatchingSinglePointRequest mapMatchingSinglePointRequest, String profileName) {
-        SinglePointMapMatcher singlePointMapMatcher =
-                this.singlePointMapMatcherMapMatcherFactory.createMapMatcher(preInitializedNetwork, profileName);
 
-        return matchLocations(singlePointMapMatcher, mapMatchingSinglePointRequest);
+        return matchLocations(
+                () -> this.singlePointMapMatcherMapMatcherFactory.createMapMatcher(preInitializedNetwork, profileName),
+                mapMatchingSinglePointRequest, SinglePointLocation::getPoint);
     }
 
     public Stream<LineStringMatch> matchLocations(NetworkGraphHopper preInitializedNetwork,
             MapMatchingLineRequest mapMatchingLineRequest, String profileName) {
 
-        MapMatcher<LineStringLocation, LineStringMatch> lineStringMapMatcher =
-                getFactory(mapMatchingLineRequest.getLineMatchingMode())
-                        .createMapMatcher(preInitializedNetwork, profileName);
-
-        return matchLocations(lineStringMapMatcher, mapMatchingLineRequest);
+        Supplier<MapMatcher<LineStringLocation, LineStringMatch>> lineStringMapMatcherSupplier =
+                getLineStringMapMatcherSupplier(preInitializedNetwork, mapMatchingLineRequest, profileName);
+        if (mapMatchingLineRequest.getChunkLengthInMeters() == null) {
+            return matchLocations(lineStringMapMatcherSupplier, mapMatchingLineRequest,
+                    LineStringLocation::getGeometry);
+        }
+        // One chunked map matcher is shared by all workers, so the windows of a request are matched on a single pool
+        // of worker threads
+        ChunkedLineStringMapMatcher chunkedLineStringMapMatcher = new ChunkedLineStringMapMatcher(
+                lineStringMapMatcherSupplier, mapMatchingLineRequest.getChunkLengthInMeters(),
+                mapMatchingLineRequest.getChunkOverlapInMeters(), mapMatchingLineRequest.getChunkParallelism());
+        return matchLocations(() -> chunkedLineStringMapMatcher, mapMatchingLineRequest,
+                LineStringLocation::getGeometry);
     }
 
-    private <T extends BaseLocation, R extends MapMatch> Stream<R> matchLocations(MapMatcher<T, R> mapMatcher,
-            MapMatchingRequest<T> mapMatchingRequest) {
-        MatchingContext<T, R> matchingContext = new MatchingContext<>(mapMatcher);
+    private <T extends BaseLocation, R extends MapMatch> Stream<R> matchLocations(
+            Supplier<MapMatcher<T, R>> mapMatcherSupplier, MapMatchingRequest<T> mapMatchingRequest,
+            Function<T, Geometry> geometryFunction) {
+        MatchingContext<T, R> matchingContext = new MatchingContext<>(mapMatcherSupplier, geometryFunction);
 
         return matchingContext.matchLocations(mapMatchingRequest);
     }
 
-    private MapMatcherFactory<? extends MapMatcher<LineStringLocation, LineStringMatch>> getFactory(
-            LineMatchingMode lineMatchingMode) {
-        return switch (Objects.requireNonNull(lineMatchingMode)) {
-            case LINE_STRING -> this.lineStringMapMatcherFactory;
-            case START_TO_END -> this.startToEndMapMatcherMapMatcherFactory;
+    private Supplier<MapMatcher<LineStringLocation, LineStringMatch>> getLineStringMapMatcherSupplier(
+            NetworkGraphHopper preInitializedNetwork, MapMatchingLineRequest mapMatchingLineRequest,
+            String profileName) {
+        return switch (Objects.requireNonNull(mapMatchingLineRequest.getLineMatchingMode())) {
+            case LINE_STRING -> () -> this.lineStringMapMatcherFactory.createMapMatcher(preInitializedNetwork,
+                    profileName);
+            case START_TO_END -> () -> this.startToEndMapMatcherMapMatcherFactory.createMapMatcher(
+                    preInitializedNetwork, profileName);
+            case LINE_STRING_HMM -> () -> this.hmmLineStringMapMatcherFactory.createMapMatcher(preInitializedNetwork,
+                    profileName);
+            case AUTO -> () -> new AutoLineStringMapMatcher(
+                    this.startToEndMapMatcherMapMatcherFactory.createMapMatcher(preInitializedNetwork, profileName),
+                    this.lineStringMapMatcherFactory.createMapMatcher(preInitializedNetwork, profileName),
+                    mapMatchingLineRequest.getAutoReliabilityThreshold());
         };
     }
 
@@ -0,0 +1,44 @@
+package nu.ndw.nls.routingmapmatcher.auto;
+
+import java.util.Objects;
+import lombok.RequiredArgsConstructor;
+import nu.ndw.nls.routingmapmatcher.domain.MapMatcher;
+import nu.ndw.nls.routingmapmatcher.model.MatchStatus;
+import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringLocation;
+import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringMatch;
+
+/**
+ * Matches with the cheap start to end map matcher first, and only falls back to the more expensive line string map
+ * matcher when the start to end match is not reliable enough. When both are tried, the most reliable match is
+ * returned.
+ */
+@RequiredArgsConstructor
+public class AutoLineStringMapMatcher implements MapMatcher<LineStringLocation, LineStringMatch> {
+
+    private final MapMatcher<LineStringLocation, LineStringMatch> startToEndMapMatcher;
+    private final MapMatcher<LineStringLocation, LineStringMatch> lineStringMapMatcher;
+    private final double reliabilityThreshold;
+
+    @Override
+    public LineStringMatch match(LineStringLocation lineStringLocation) {
+        Objects.requireNonNull(lineStringLocation);
+        LineStringMatch startToEndMatch = startToEndMapMatcher.match(lineStringLocation);
+        if (isMatch(startToEndMatch) && startToEndMatch.getReliability() >= reliabilityThreshold) {
+            return startToEndMatch;
+        }
+
+        LineStringMatch lineStringMatch = lineStringMapMatcher.match(lineStringLocation);
+        if (!isMatch(lineStringMatch)) {
+            return isMatch(startToEndMatch) ? startToEndMatch : lineStringMatch;
+        }
+        if (!isMatch(startToEndMatch)) {
+            return lineStringMatch;
+        }
+        return startToEndMatch.getReliability() > lineStringMatch.getReliability() ? startToEndMatch
+                : lineStringMatch;
+    }
+
+    private static boolean isMatch(LineStringMatch lineStringMatch) {
+        return lineStringMatch.getStatus() == MatchStatus.MATCH;
+    }
+}
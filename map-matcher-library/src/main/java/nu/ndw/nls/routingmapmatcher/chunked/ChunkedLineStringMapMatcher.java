@@ -0,0 +1,342 @@
+package nu.ndw.nls.routingmapmatcher.chunked;
+
+import com.graphhopper.util.DistanceCalcEarth;
+import com.graphhopper.util.Helper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import nu.ndw.nls.routingmapmatcher.domain.MapMatcher;
+import nu.ndw.nls.routingmapmatcher.exception.RoutingMapMatcherException;
+import nu.ndw.nls.routingmapmatcher.model.MatchStatus;
+import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringLocation;
+import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringMatch;
+import nu.ndw.nls.routingmapmatcher.model.linestring.MatchedLink;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateList;
+import org.locationtech.jts.geom.LineString;
+
+/**
+ * Matches long line strings by splitting them into overlapping windows that are matched concurrently, each by its own
+ * map matcher. The matches of successive windows are stitched together at the first link of the next window that is
+ * also part of the previous window. The reliability of the stitched match is the lowest reliability of the windows.
+ * <br />
+ * When a window cannot be matched or two windows do not share a link, the complete line string is matched instead.
+ * Line strings that are not longer than the window length are always matched completely.
+ * <br />
+ * The windows of all line strings are matched on one pool of worker threads, which is stopped when this map matcher is
+ * closed. Idle worker threads also stop after a timeout.
+ * <br />
+ * Unlike the other map matchers, an instance is thread safe: concurrent matches share the pool of worker threads and
+ * take idle map matchers from a concurrent queue, so one instance can serve all workers of a parallel request.
+ */
+@Slf4j
+public class ChunkedLineStringMapMatcher implements MapMatcher<LineStringLocation, LineStringMatch>, AutoCloseable {
+
+    private static final String INVALID_OVERLAP_MSG =
+            "Chunk overlap %s must be at least 0 and less than chunk length %s";
+    private static final String THREAD_NAME_PREFIX = "map-matcher-chunk-";
+    private static final int DECIMAL_PLACES = 3;
+    private static final long IDLE_THREAD_TIMEOUT_SECONDS = 10;
+
+    private final Supplier<? extends MapMatcher<LineStringLocation, LineStringMatch>> mapMatcherSupplier;
+    private final ConcurrentLinkedQueue<MapMatcher<LineStringLocation, LineStringMatch>> idleMapMatchers =
+            new ConcurrentLinkedQueue<>();
+    private final double chunkLengthInMeters;
+    private final double chunkOverlapInMeters;
+    private final ThreadPoolExecutor executorService;
+
+    public ChunkedLineStringMapMatcher(
+            Supplier<? extends MapMatcher<LineStringLocation, LineStringMatch>> mapMatcherSupplier,
+            double chunkLengthInMeters, double chunkOverlapInMeters, int parallelism) {
+        if (chunkOverlapInMeters < 0 || chunkOverlapInMeters >= chunkLengthInMeters) {
+            throw new IllegalArgumentException(INVALID_OVERLAP_MSG.formatted(chunkOverlapInMeters,
+                    chunkLengthInMeters));
+        }
+        this.mapMatcherSupplier = mapMatcherSupplier;
+        this.chunkLengthInMeters = chunkLengthInMeters;
+        this.chunkOverlapInMeters = chunkOverlapInMeters;
+        int threads = Math.max(1, parallelism);
+        // Worker threads are only started when windows are matched
+        this.executorService = new ThreadPoolExecutor(threads, threads, IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), Thread.ofPlatform().name(THREAD_NAME_PREFIX, 0).daemon(true).factory());
+        this.executorService.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public LineStringMatch match(LineStringLocation lineStringLocation) {
+        Objects.requireNonNull(lineStringLocation);
+        double[] cumulativeDistances = calculateCumulativeDistances(lineStringLocation.getGeometry());
+        double length = cumulativeDistances[cumulativeDistances.length - 1];
+        if (length <= chunkLengthInMeters) {
+            return matchWithIdleMapMatcher(lineStringLocation);
+        }
+
+        List<LineStringMatch> windowMatches = matchWindows(createWindows(lineStringLocation, cumulativeDistances,
+                length));
+        if (windowMatches.stream().anyMatch(windowMatch -> windowMatch.getStatus() != MatchStatus.MATCH)) {
+            return matchWithIdleMapMatcher(lineStringLocation);
+        }
+        LineStringMatch stitchedMatch = stitch(lineStringLocation, windowMatches);
+        if (stitchedMatch == null) {
+            log.debug("Windows do not share a link, matching complete line string for {}", lineStringLocation);
+            return matchWithIdleMapMatcher(lineStringLocation);
+        }
+        return stitchedMatch;
+    }
+
+    @Override
+    public void close() {
+        executorService.shutdownNow();
+    }
+
+    private List<LineStringLocation> createWindows(LineStringLocation lineStringLocation,
+            double[] cumulativeDistances, double length) {
+        List<LineStringLocation> windows = new ArrayList<>();
+        double step = chunkLengthInMeters - chunkOverlapInMeters;
+        for (double start = 0; ; start += step) {
+            double end = Math.min(start + chunkLengthInMeters, length);
+            boolean first = windows.isEmpty();
+            boolean last = end >= length;
+            LineStringLocation.LineStringLocationBuilder<?, ?> windowBuilder = lineStringLocation.toBuilder()
+                    .geometry(extractSubLineString(lineStringLocation.getGeometry(), cumulativeDistances, start,
+                            end));
+            // Isochrones are only needed at the ends of the complete line string
+            if (!first) {
+                windowBuilder.upstreamIsochroneUnit(null);
+            }
+            if (!last) {
+                windowBuilder.downstreamIsochroneUnit(null);
+            }
+            windows.add(windowBuilder.build());
+            if (last) {
+                return windows;
+            }
+        }
+    }
+
+    private List<LineStringMatch> matchWindows(List<LineStringLocation> windows) {
+        List<Future<LineStringMatch>> futures = windows.stream()
+                .map(window -> executorService.submit(() -> matchWithIdleMapMatcher(window)))
+                .toList();
+        List<LineStringMatch> windowMatches = new ArrayList<>(futures.size());
+        for (Future<LineStringMatch> future : futures) {
+            windowMatches.add(getResult(future, futures));
+        }
+        return windowMatches;
+    }
+
+    /**
+     * The executor service is shared between line strings, so on failure only the windows of this line string are
+     * cancelled.
+     */
+    private static LineStringMatch getResult(Future<LineStringMatch> future, List<Future<LineStringMatch>> futures) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(other -> other.cancel(true));
+            throw new RoutingMapMatcherException("Interrupted while matching line string windows");
+        } catch (ExecutionException e) {
+            futures.forEach(other -> other.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RoutingMapMatcherException("Matching line string window failed: " + e.getCause());
+        }
+    }
+
+    /**
+     * Map matchers are not thread safe, so every concurrent match borrows its own map matcher.
+     */
+    private LineStringMatch matchWithIdleMapMatcher(LineStringLocation lineStringLocation) {
+        MapMatcher<LineStringLocation, LineStringMatch> mapMatcher = idleMapMatchers.poll();
+        if (mapMatcher == null) {
+            mapMatcher = mapMatcherSupplier.get();
+        }
+        try {
+            return mapMatcher.match(lineStringLocation);
+        } finally {
+            idleMapMatchers.add(mapMatcher);
+        }
+    }
+
+    /**
+     * @return the stitched match, or null if two successive windows do not share a link
+     */
+    private LineStringMatch stitch(LineStringLocation lineStringLocation, List<LineStringMatch> windowMatches) {
+        LineStringMatch firstMatch = windowMatches.getFirst();
+        LineStringMatch lastMatch = windowMatches.getLast();
+        StitchedMatch stitchedMatch = new StitchedMatch(new ArrayList<>(firstMatch.getMatchedLinks()),
+                firstMatch.getLineString(), firstMatch.getDistance(), firstMatch.getDuration());
+        double reliability = firstMatch.getReliability();
+        for (LineStringMatch windowMatch : windowMatches.subList(1, windowMatches.size())) {
+            stitchedMatch = stitch(stitchedMatch, windowMatch);
+            if (stitchedMatch == null) {
+                return null;
+            }
+            reliability = Math.min(reliability, windowMatch.getReliability());
+        }
+
+        double distance = Helper.round(stitchedMatch.distance(), DECIMAL_PLACES);
+        return LineStringMatch.builder()
+                .id(lineStringLocation.getId())
+                .locationIndex(lineStringLocation.getLocationIndex())
+                .reversed(lineStringLocation.isReversed())
+                .matchedLinks(stitchedMatch.matchedLinks())
+                .upstream(firstMatch.getUpstream())
+                .downstream(lastMatch.getDownstream())
+                .startLinkFraction(firstMatch.getStartLinkFraction())
+                .endLinkFraction(lastMatch.getEndLinkFraction())
+                .reliability(reliability)
+                .status(MatchStatus.MATCH)
+                .lineString(stitchedMatch.lineString())
+                .weight(distance)
+                .duration(stitchedMatch.duration())
+                .distance(distance)
+                .build();
+    }
+
+    /**
+     * Stitches the next window at the first of its links that is also one of the last links of the previous windows,
+     * which is cut at the start of that link in the next window.
+     */
+    private StitchedMatch stitch(StitchedMatch previous, LineStringMatch next) {
+        List<MatchedLink> previousLinks = previous.matchedLinks();
+        List<MatchedLink> nextLinks = next.getMatchedLinks();
+        double[] previousLinkStarts = calculateLinkStarts(previousLinks);
+        double[] nextLinkStarts = calculateLinkStarts(nextLinks);
+        // Only links that end within the overlap can be shared with the next window
+        double overlapStart = previous.distance() - chunkOverlapInMeters;
+
+        for (int nextIndex = 0; nextIndex < nextLinks.size(); nextIndex++) {
+            MatchedLink nextLink = nextLinks.get(nextIndex);
+            for (int previousIndex = previousLinks.size() - 1; previousIndex >= 0; previousIndex--) {
+                MatchedLink previousLink = previousLinks.get(previousIndex);
+                if (previousLinkStarts[previousIndex] + previousLink.getDistance() < overlapStart) {
+                    break;
+                }
+                if (previousLink.getLinkId() != nextLink.getLinkId()
+                        || previousLink.isReversed() != nextLink.isReversed()
+                        || nextLink.getEndFraction() < previousLink.getStartFraction()) {
+                    continue;
+                }
+                double linkLength = calculateLinkLength(previousLink, nextLink);
+                double cutFraction = Math.clamp(nextLink.getStartFraction(), previousLink.getStartFraction(),
+                        previousLink.getEndFraction());
+                double previousCut = previousLinkStarts[previousIndex]
+                        + (cutFraction - previousLink.getStartFraction()) * linkLength;
+                double nextCut = nextLinkStarts[nextIndex] + (cutFraction - nextLink.getStartFraction()) * linkLength;
+                return createStitchedMatch(previous, next, previousIndex, nextIndex, linkLength, previousCut,
+                        nextCut);
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("java:S107")
+    private static StitchedMatch createStitchedMatch(StitchedMatch previous, LineStringMatch next, int previousIndex,
+            int nextIndex, double linkLength, double previousCut, double nextCut) {
+        MatchedLink previousLink = previous.matchedLinks().get(previousIndex);
+        MatchedLink nextLink = next.getMatchedLinks().get(nextIndex);
+        List<MatchedLink> matchedLinks = new ArrayList<>(previous.matchedLinks().subList(0, previousIndex));
+        matchedLinks.add(previousLink
+                .withEndFraction(nextLink.getEndFraction())
+                .withDistance((nextLink.getEndFraction() - previousLink.getStartFraction()) * linkLength));
+        matchedLinks.addAll(next.getMatchedLinks().subList(nextIndex + 1, next.getMatchedLinks().size()));
+
+        LineString previousLineString = previous.lineString();
+        LineString nextLineString = next.getLineString();
+        double[] previousCumulativeDistances = calculateCumulativeDistances(previousLineString);
+        double[] nextCumulativeDistances = calculateCumulativeDistances(nextLineString);
+        CoordinateList coordinates = new CoordinateList(extractSubLineString(previousLineString,
+                previousCumulativeDistances, 0, previousCut).getCoordinates(), false);
+        coordinates.add(extractSubLineString(nextLineString, nextCumulativeDistances, nextCut,
+                nextCumulativeDistances[nextCumulativeDistances.length - 1]).getCoordinates(), false);
+        LineString lineString = previousLineString.getFactory().createLineString(coordinates.toCoordinateArray());
+
+        double nextRemainingDistance = Math.max(0, next.getDistance() - nextCut);
+        double duration = scale(previous.duration(), previousCut, previous.distance())
+                + scale(next.getDuration(), nextRemainingDistance, next.getDistance());
+        return new StitchedMatch(matchedLinks, lineString, previousCut + nextRemainingDistance, duration);
+    }
+
+    private static double calculateLinkLength(MatchedLink previousLink, MatchedLink nextLink) {
+        double previousFraction = previousLink.getEndFraction() - previousLink.getStartFraction();
+        if (previousFraction > 0) {
+            return previousLink.getDistance() / previousFraction;
+        }
+        double nextFraction = nextLink.getEndFraction() - nextLink.getStartFraction();
+        return nextFraction > 0 ? nextLink.getDistance() / nextFraction : 0;
+    }
+
+    private static double[] calculateLinkStarts(List<MatchedLink> matchedLinks) {
+        double[] linkStarts = new double[matchedLinks.size()];
+        for (int index = 1; index < matchedLinks.size(); index++) {
+            linkStarts[index] = linkStarts[index - 1] + matchedLinks.get(index - 1).getDistance();
+        }
+        return linkStarts;
+    }
+
+    private static double scale(double value, double part, double total) {
+        return total > 0 ? value * Math.min(1, part / total) : 0;
+    }
+
+    private static double[] calculateCumulativeDistances(LineString lineString) {
+        Coordinate[] coordinates = lineString.getCoordinates();
+        double[] cumulativeDistances = new double[coordinates.length];
+        for (int index = 1; index < coordinates.length; index++) {
+            cumulativeDistances[index] = cumulativeDistances[index - 1] + DistanceCalcEarth.DIST_EARTH.calcDist(
+                    coordinates[index - 1].getY(), coordinates[index - 1].getX(),
+                    coordinates[index].getY(), coordinates[index].getX());
+        }
+        return cumulativeDistances;
+    }
+
+    /**
+     * @return the part of the line string between the distances in meters from its start
+     */
+    private static LineString extractSubLineString(LineString lineString, double[] cumulativeDistances,
+            double startDistance, double endDistance) {
+        Coordinate[] coordinates = lineString.getCoordinates();
+        CoordinateList subCoordinates = new CoordinateList();
+        subCoordinates.add(interpolate(coordinates, cumulativeDistances, startDistance), false);
+        for (int index = 0; index < coordinates.length; index++) {
+            if (cumulativeDistances[index] > startDistance && cumulativeDistances[index] < endDistance) {
+                subCoordinates.add(coordinates[index], false);
+            }
+        }
+        subCoordinates.add(interpolate(coordinates, cumulativeDistances, endDistance), false);
+        if (subCoordinates.size() == 1) {
+            subCoordinates.add(subCoordinates.getCoordinate(0), true);
+        }
+        return lineString.getFactory().createLineString(subCoordinates.toCoordinateArray());
+    }
+
+    private static Coordinate interpolate(Coordinate[] coordinates, double[] cumulativeDistances, double distance) {
+        for (int index = 1; index < coordinates.length; index++) {
+            if (cumulativeDistances[index] >= distance) {
+                double segmentLength = cumulativeDistances[index] - cumulativeDistances[index - 1];
+                double fraction = segmentLength > 0
+                        ? Math.clamp((distance - cumulativeDistances[index - 1]) / segmentLength, 0, 1) : 0;
+                Coordinate from = coordinates[index - 1];
+                Coordinate to = coordinates[index];
+                return new Coordinate(from.getX() + fraction * (to.getX() - from.getX()),
+                        from.getY() + fraction * (to.getY() - from.getY()));
+            }
+        }
+        return coordinates[coordinates.length - 1].copy();
+    }
+
+    private record StitchedMatch(List<MatchedLink> matchedLinks, LineString lineString, double distance,
+            double duration) {
+
+    }
+}
@@ -8,13 +8,12 @@ import com.graphhopper.routing.querygraph.QueryGraph;
 import com.graphhopper.routing.util.EncodingManager;
 import com.graphhopper.storage.EdgeIteratorStateReverseExtractor;
 import com.graphhopper.util.EdgeIteratorState;
-import com.graphhopper.util.FetchMode;
 import lombok.RequiredArgsConstructor;
 import nu.ndw.nls.geometry.distance.FractionAndDistanceCalculator;
 import nu.ndw.nls.routingmapmatcher.isochrone.algorithm.IsoLabel;
 import nu.ndw.nls.routingmapmatcher.model.IsochroneMatch;
 import nu.ndw.nls.routingmapmatcher.model.IsochroneParentLink;
-import nu.ndw.nls.routingmapmatcher.util.PointListUtil;
+import nu.ndw.nls.routingmapmatcher.network.storage.EdgeGeometryCache;
 import org.locationtech.jts.geom.LineString;
 
 @RequiredArgsConstructor
@@ -22,7 +21,7 @@ public class IsochroneMatchMapper {
 
     private final EncodingManager encodingManager;
     private final EdgeIteratorStateReverseExtractor edgeIteratorStateReverseExtractor;
-    private final PointListUtil pointListUtil;
+    private final EdgeGeometryCache edgeGeometryCache;
     private final FractionAndDistanceCalculator fractionAndDistanceCalculator;
 
     /**
@@ -42,7 +41,7 @@ public class IsochroneMatchMapper {
         int matchedLinkId = getLinkIdInDirection(currentEdge, reversed, reverseFlow);
         double totalDistanceTravelled = isoLabel.getDistance();
         // This is the entire way geometry, except for the start segment, which is split up at the start point.
-        LineString isoLabelWayGeometry = pointListUtil.toLineString(currentEdge.fetchWayGeometry(FetchMode.ALL));
+        LineString isoLabelWayGeometry = edgeGeometryCache.getLineString(currentEdge);
 
         // The start segment in the iso label is split into 2 sections, in case of bidirectional roads in opposite
         // directions as indicated by the edgeDirection.
@@ -55,7 +54,7 @@ public class IsochroneMatchMapper {
         // If the total distance travelled exceeds the maximum distance, cut the linestring accordingly.
         boolean isEndSegment = totalDistanceTravelled > maxDistance;
         LineString partialGeometry = isEndSegment
-                ? calculatePartialGeometry(isoLabelWayGeometry, totalDistanceTravelled, maxDistance)
+                ? calculatePartialGeometry(currentEdge, isoLabelWayGeometry, totalDistanceTravelled, maxDistance)
                 : isoLabelWayGeometry;
 
         double startFraction = isStartSegment
@@ -70,6 +69,10 @@ public class IsochroneMatchMapper {
         double correctedEndFraction = reverseFlow ? (1 - startFraction) : endFraction;
         boolean correctedReversed = (reversed != reverseFlow) && !hasReversedLinkId(currentEdge);
         LineString correctedGeometry = reverseFlow ? partialGeometry.reverse() : partialGeometry;
+        // A cached way geometry is shared between matches, so the isochrone match gets its own copy
+        if (correctedGeometry == isoLabelWayGeometry && edgeGeometryCache.isEnabled()) {
+            correctedGeometry = isoLabelWayGeometry.copy();
+        }
         double fullDistance = fractionAndDistanceCalculator.calculateLengthInMeters(fullGeometry);
         double linkDistance = Math.abs(fullDistance * (correctedEndFraction - correctedStartFraction));
         return IsochroneMatch
@@ -126,13 +129,20 @@ public class IsochroneMatchMapper {
     }
 
     private LineString getStartSegmentWayGeometryInTravelDirection(boolean reversed, EdgeIteratorState startEdge) {
-        LineString startSegmentWayGeometry = pointListUtil.toLineString(startEdge.fetchWayGeometry(FetchMode.ALL));
+        LineString startSegmentWayGeometry = edgeGeometryCache.getLineString(startEdge);
         return edgeIteratorStateReverseExtractor.hasReversed(startEdge) != reversed ? startSegmentWayGeometry.reverse()
                 : startSegmentWayGeometry;
     }
 
-    private LineString calculatePartialGeometry(LineString edgeGeometry, double totalDistanceTravelled,
-            double maxDistance) {
+    private LineString calculatePartialGeometry(EdgeIteratorState edge, LineString edgeGeometry,
+            double totalDistanceTravelled, double maxDistance) {
+        if (edgeGeometryCache.isFractionLookupEnabled()) {
+            // The cumulative distances of the cached geometry give the length and the cut point without walking the
+            // full geometry
+            double edgeGeometryDistance = edgeGeometryCache.get(edge).getLength();
+            return edgeGeometryCache.getSubLineString(edge,
+                    (maxDistance - totalDistanceTravelled + edgeGeometryDistance) / edgeGeometryDistance);
+        }
         double isoLabelEdgeGeometryDistance = fractionAndDistanceCalculator.calculateLengthInMeters(edgeGeometry);
         double partialFraction = (maxDistance - totalDistanceTravelled + isoLabelEdgeGeometryDistance)
                                  / isoLabelEdgeGeometryDistance;
@@ -3,5 +3,10 @@ package nu.ndw.nls.routingmapmatcher.model;
 public enum LineMatchingMode {
 
     LINE_STRING,
-    START_TO_END
+    START_TO_END,
+    LINE_STRING_HMM,
+    /**
+     * Start to end matching, with line string matching as fallback when the start to end match is not reliable enough.
+     */
+    AUTO
 }
@@ -15,4 +15,25 @@ public class MapMatchingLineRequest extends MapMatchingRequest<LineStringLocatio
 
     @Builder.Default
     LineMatchingMode lineMatchingMode = LineMatchingMode.LINE_STRING;
+    /**
+     * With {@link LineMatchingMode#AUTO}, start to end matches with at least this reliability are accepted without
+     * line string matching.
+     */
+    @Builder.Default
+    private final double autoReliabilityThreshold = 90.0;
+    /**
+     * When set, line strings longer than this length in meters are split into overlapping windows that are matched
+     * concurrently and stitched together into a single match.
+     */
+    private final Double chunkLengthInMeters;
+    /**
+     * The length in meters by which successive windows overlap.
+     */
+    @Builder.Default
+    private final double chunkOverlapInMeters = 200.0;
+    /**
+     * Number of threads that match the windows of a single line string.
+     */
+    @Builder.Default
+    private final int chunkParallelism = 4;
 }
@@ -2,6 +2,8 @@ package nu.ndw.nls.routingmapmatcher.model;
 
 import java.util.List;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
+import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
@@ -16,4 +18,34 @@ public class MapMatchingRequest<T extends BaseLocation> {
 
     private final String locationTypeName;
     private final Supplier<List<T>> locationSupplier;
+    /**
+     * Streaming alternative to the location supplier, which takes precedence when set. Locations are read from the
+     * stream while matching, so they do not all have to be in memory at the same time. The stream is closed when the
+     * stream of matches is closed.
+     */
+    private final Supplier<Stream<T>> locationStreamSupplier;
+    /**
+     * Optional number of locations in the location stream, only used for progress logging.
+     */
+    private final Integer locationCountHint;
+    /**
+     * Number of threads that match locations. With more than one thread every thread uses its own map matcher. The
+     * threads are started when the first match is requested and stopped once all matches are returned. Close the
+     * stream of matches, for example with try-with-resources, when it may not be fully consumed, such as with
+     * {@link Stream#findFirst()} or {@link Stream#limit(long)}, to stop the threads right away.
+     */
+    @Builder.Default
+    private final int parallelism = 1;
+    /**
+     * When matching in parallel, whether matches are returned in the order of the locations. Otherwise, matches are
+     * returned as soon as they are done.
+     */
+    @Builder.Default
+    private final boolean preserveOrder = true;
+    /**
+     * Whether the locations of the location supplier are matched in spatial order, so successive matches use nearby
+     * parts of the network. The matches are still returned in the order of the locations, but only once all locations
+     * are matched. Locations of the location stream are always matched in the order of the stream.
+     */
+    private final boolean spatiallyOrdered;
 }
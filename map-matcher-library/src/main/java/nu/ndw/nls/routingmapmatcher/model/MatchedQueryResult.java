@@ -9,6 +9,7 @@ import lombok.Getter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import nu.ndw.nls.routingmapmatcher.model.singlepoint.BearingFilter;
+import nu.ndw.nls.routingmapmatcher.network.storage.EdgeGeometry;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.LineString;
 import org.locationtech.jts.geom.MultiLineString;
@@ -26,6 +27,11 @@ public class MatchedQueryResult {
     private final int matchedReversedLinkId;
     private final BearingFilter bearingFilter;
     private final LineString originalGeometry;
+    /**
+     * Cached original geometry with cumulative distances, only set when fraction lookup is enabled on the edge
+     * geometry cache of the network.
+     */
+    private final EdgeGeometry originalEdgeGeometry;
     private final EdgeIteratorTravelDirection travelDirection;
     private final double cutoffDistance;
     @Getter(AccessLevel.NONE)
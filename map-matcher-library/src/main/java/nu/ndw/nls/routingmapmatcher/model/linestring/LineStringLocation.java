@@ -1,5 +1,6 @@
 package nu.ndw.nls.routingmapmatcher.model.linestring;
 
+import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
@@ -20,4 +21,16 @@ public class LineStringLocation extends BaseLocation {
     private final ReliabilityCalculationType reliabilityCalculationType;
     private final Double radius;
     private final boolean simplifyResponseGeometry;
+    @Builder.Default
+    private final StartToEndSearchMode startToEndSearchMode = StartToEndSearchMode.PER_CANDIDATE_PAIR;
+    /**
+     * When set, the start to end matcher does not search or score paths longer than this multiple of the geometry
+     * length, plus the candidate distance at both ends.
+     */
+    private final Double maxPathLengthFactor;
+    /**
+     * When set, the line string matchers only create observations at roughly the measurement error spacing, and where
+     * the bearing of the geometry changes.
+     */
+    private final boolean resampleObservations;
 }
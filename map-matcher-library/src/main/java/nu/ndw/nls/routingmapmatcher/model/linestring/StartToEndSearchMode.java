@@ -0,0 +1,17 @@
+package nu.ndw.nls.routingmapmatcher.model.linestring;
+
+/**
+ * How the start to end matcher searches the paths between the start and end candidates.
+ */
+public enum StartToEndSearchMode {
+
+    /**
+     * One bidirectional search per pair of start and end candidate.
+     */
+    PER_CANDIDATE_PAIR,
+    /**
+     * One search per start candidate that settles all end candidates. The search is always limited to a multiple of
+     * the length of the input geometry, by default five times.
+     */
+    ONE_TO_MANY
+}
@@ -0,0 +1,26 @@
+package nu.ndw.nls.routingmapmatcher.model.routing;
+
+import java.util.List;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.locationtech.jts.geom.Point;
+
+/**
+ * Request for the routes from every origin to every destination.
+ */
+@Builder
+@Getter
+@EqualsAndHashCode
+@ToString
+public class MatrixRoutingRequest {
+
+    private final List<Point> origins;
+    private final List<Point> destinations;
+    /**
+     * When true, the matched links of the route between every reachable origin and destination pair are included.
+     */
+    @Builder.Default
+    private final boolean includeLegs = false;
+}
@@ -0,0 +1,68 @@
+package nu.ndw.nls.routingmapmatcher.model.routing;
+
+import java.util.List;
+import java.util.Optional;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import nu.ndw.nls.routingmapmatcher.model.RouteStatus;
+
+/**
+ * Routes from every origin to every destination. The values are stored in row-major arrays, with one row per origin
+ * and one column per destination. Pairs without a route, for example because a point could not be snapped to the
+ * network, have an infinite distance, duration and weight.
+ */
+@Builder
+@Getter
+@EqualsAndHashCode
+@ToString
+public class MatrixRoutingResponse {
+
+    @Builder.Default
+    private final RouteStatus status = RouteStatus.ROUTE_FOUND;
+    private final int originCount;
+    private final int destinationCount;
+    /**
+     * Distances in meters.
+     */
+    @Builder.Default
+    private final double[] distances = new double[0];
+    /**
+     * Durations in seconds.
+     */
+    @Builder.Default
+    private final double[] durations = new double[0];
+    @Builder.Default
+    private final double[] weights = new double[0];
+    /**
+     * The legs per pair, only filled when requested. Entries of pairs without a route, or with origin and destination
+     * on the same spot, are null.
+     */
+    @Builder.Default
+    private final List<RoutingLegResponse> legs = List.of();
+
+    public double getDistance(int originIndex, int destinationIndex) {
+        return distances[getIndex(originIndex, destinationIndex)];
+    }
+
+    public double getDuration(int originIndex, int destinationIndex) {
+        return durations[getIndex(originIndex, destinationIndex)];
+    }
+
+    public double getWeight(int originIndex, int destinationIndex) {
+        return weights[getIndex(originIndex, destinationIndex)];
+    }
+
+    public boolean isReachable(int originIndex, int destinationIndex) {
+        return Double.isFinite(getWeight(originIndex, destinationIndex));
+    }
+
+    public Optional<RoutingLegResponse> getLeg(int originIndex, int destinationIndex) {
+        return legs.isEmpty() ? Optional.empty() : Optional.ofNullable(legs.get(getIndex(originIndex, destinationIndex)));
+    }
+
+    private int getIndex(int originIndex, int destinationIndex) {
+        return originIndex * destinationCount + destinationIndex;
+    }
+}
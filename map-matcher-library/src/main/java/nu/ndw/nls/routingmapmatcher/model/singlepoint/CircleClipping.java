@@ -0,0 +1,12 @@
+package nu.ndw.nls.routingmapmatcher.model.singlepoint;
+
+public enum CircleClipping {
+    /**
+     * Intersects the edge geometries with a polygon approximation of the cutoff circle.
+     */
+    POLYGON,
+    /**
+     * Clips the edge geometry segments against the cutoff circle directly, without creating intermediate geometries.
+     */
+    ANALYTIC
+}
@@ -23,5 +23,7 @@ public class SinglePointLocation extends BaseLocation {
     @Builder.Default
     private final double cutoffDistance = DEFAULT_CANDIDATE_DISTANCE_IN_METERS;
     private final BearingFilter bearingFilter;
+    @Builder.Default
+    private final CircleClipping circleClipping = CircleClipping.POLYGON;
 
 }
@@ -3,13 +3,34 @@ package nu.ndw.nls.routingmapmatcher.network;
 import static java.util.Objects.requireNonNull;
 import static nu.ndw.nls.routingmapmatcher.util.GraphHopperNetworkPathUtils.formatNormalizedPath;
 
+import com.graphhopper.GraphHopperDataAccess;
 import com.graphhopper.config.Profile;
+import com.graphhopper.routing.ev.ArrayEdgeIntAccess;
 import com.graphhopper.routing.ev.DefaultImportRegistry;
+import com.graphhopper.routing.ev.EdgeIntAccess;
+import com.graphhopper.routing.ev.EncodedValue;
 import com.graphhopper.routing.ev.ImportRegistry;
+import com.graphhopper.routing.ev.ImportUnit;
+import com.graphhopper.routing.ev.IntEncodedValue;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.parsers.TagParser;
+import com.graphhopper.storage.DAType;
+import com.graphhopper.storage.IntsRef;
+import com.graphhopper.util.GHUtility;
+import com.graphhopper.util.PMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
@@ -45,6 +66,17 @@ public class GraphHopperNetworkService {
 
     private static final String NO_NETWORK_MSG = "GraphHopper network %s is not imported on disk";
 
+    private static final String NOT_INDEXED_MSG = "Network must be indexed to apply link updates";
+
+    private static final String NO_DATA_ACCESS_TYPE_MSG = "Data access type must be provided when loading network";
+
+    private static final String NOT_STORING_DATA_ACCESS_TYPE_MSG =
+            "Data access type %s cannot load a network from disk";
+
+    private static final int PRELOAD_BUFFER_BYTES = 1 << 20;
+
+    private static final String MISSING_LINKS_MSG = "Links %s are not part of the network";
+
     private final LinkVehicleMapperProvider linkVehicleMapperProvider;
 
     private final EncodedValueFactoryRegistry encodedValueFactoryRegistry;
@@ -83,6 +115,8 @@ public class GraphHopperNetworkService {
     /***
      * In order to separate reads and writes to/form disk cache this method only loads existing networks from disk.
      * Use this method to load a previously stored network.
+     * The graph is held with the data access type of the settings. A memory-mapped network stays off heap and its
+     * pages can be shared between processes; with preloading enabled all files are read once after loading.
      * @param networkSettings routing network without link supplier
      * @return a network loaded from disk
      * @throws GraphHopperNotImportedException if there is no network on disk it will throw this exception
@@ -92,7 +126,13 @@ public class GraphHopperNetworkService {
         NetworkGraphHopper graphHopper = new NetworkGraphHopper(networkSettings);
         Path path = requireNonNull(networkSettings.getGraphhopperRootPath(), NO_PATH_MSG_READ);
         String nameAndVersion = requireNonNull(networkSettings.getNetworkNameAndVersion(), NO_NAME_MSG_READ);
-        graphHopper.setGraphHopperLocation(formatNormalizedPath(path, nameAndVersion).toString());
+        DAType dataAccessType = requireNonNull(networkSettings.getDataAccessType(), NO_DATA_ACCESS_TYPE_MSG);
+        if (!dataAccessType.isStoring()) {
+            throw new IllegalArgumentException(NOT_STORING_DATA_ACCESS_TYPE_MSG.formatted(dataAccessType));
+        }
+        Path location = formatNormalizedPath(path, nameAndVersion);
+        graphHopper.setGraphHopperLocation(location.toString());
+        GraphHopperDataAccess.setDefaultType(graphHopper, dataAccessType);
 
         configureGraphHopper(networkSettings.getLinkType(), networkSettings.getProfiles(), graphHopper);
 
@@ -101,9 +141,31 @@ public class GraphHopperNetworkService {
             throw new GraphHopperNotImportedException(
                     NO_NETWORK_MSG.formatted(networkSettings.getNetworkNameAndVersion()));
         }
+        if (networkSettings.isPreloadDataAccess() && dataAccessType.isMMap()) {
+            preloadFiles(location);
+        }
         return graphHopper;
     }
 
+    /**
+     * Reads all files of a memory-mapped network once, so the pages are in the page cache before the first request
+     * instead of being faulted in by it.
+     */
+    private static void preloadFiles(Path location) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(PRELOAD_BUFFER_BYTES);
+        try (Stream<Path> files = Files.list(location)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    while (fileChannel.read(buffer) >= 0) {
+                        buffer.clear();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to preload network files in " + location, e);
+        }
+    }
+
     /***
      * In order to separate reads and writes to/form disk cache this method only stores a new network on disk.
      * This method is idempotent it will remove an existing network from disk and reimport it.
@@ -128,6 +190,122 @@ public class GraphHopperNetworkService {
         graphHopper.importAndClose();
     }
 
+    /**
+     * Applies changed attributes of existing links to the current network of the holder in place, without rebuilding
+     * it. The edges of the links are looked up through the wayId index, after which the access, speed and encoded value
+     * parsers are re-run for them. Only attributes that are stored as encoded values can change this way; changes to
+     * the geometry, distance or nodes of a link require a rebuild.
+     * <br />
+     * The update runs with exclusive access to the network through {@link NetworkHolder#update(Function)}, so it waits
+     * for open leases and blocks new ones until it is done. All links are parsed into separate storage before any edge
+     * of the network is written, so a link that cannot be parsed, for example because a string encoded value has no
+     * room left for a new value, leaves all edges unchanged. New string values of the links that were parsed before
+     * the failure do stay in the dictionary of their encoded value. The update is only applied in memory; networks
+     * loaded with a read-only memory-mapped storage cannot be updated.
+     *
+     * @param networkHolder the holder of an indexed network
+     * @param linkClass     the annotated link class the network was created with
+     * @param changedLinks  links with the new attribute values, identified by their id
+     * @param <T>           Link class
+     * @return the number of updated edges
+     * @throws IllegalArgumentException if any of the links is not part of the network, in which case nothing is updated
+     */
+    public <T extends Link> int applyLinkUpdates(
+            NetworkHolder networkHolder,
+            Class<T> linkClass,
+            Collection<T> changedLinks) {
+
+        return networkHolder.update(network -> applyLinkUpdates(network, linkClass, changedLinks));
+    }
+
+    private <T extends Link> int applyLinkUpdates(
+            NetworkGraphHopper network,
+            Class<T> linkClass,
+            Collection<T> changedLinks) {
+
+        if (!network.isIndexed()) {
+            throw new IllegalStateException(NOT_INDEXED_MSG);
+        }
+        Map<Long, Integer> wayIdToEdgeKey = network.getWayIdToEdgeKey();
+        List<Long> missingLinkIds = changedLinks.stream()
+                .map(Link::getId)
+                .filter(linkId -> !wayIdToEdgeKey.containsKey(linkId))
+                .toList();
+        if (!missingLinkIds.isEmpty()) {
+            throw new IllegalArgumentException(MISSING_LINKS_MSG.formatted(missingLinkIds));
+        }
+
+        EncodedValuesByTypeDto<T> encodedValuesByTypeDto = encodedValuesMapper.map(linkClass);
+        ProfileAccessAndSpeedAttributes profileAccessAndSpeedAttributes =
+                profileAccessAndSpeedAttributesMapper.map(network.getProfiles());
+        ImportRegistry importRegistry = createImportRegistry(linkClass, encodedValuesByTypeDto,
+                profileAccessAndSpeedAttributes);
+        List<String> encodedValueNames = getEncodedValueNames(profileAccessAndSpeedAttributes.getAll(),
+                encodedValuesByTypeDto);
+
+        EncodingManager encodingManager = network.getEncodingManager();
+        List<IntEncodedValue> encodedValues = encodedValueNames.stream()
+                .map(name -> encodingManager.getEncodedValue(name, EncodedValue.class))
+                .filter(IntEncodedValue.class::isInstance)
+                .map(IntEncodedValue.class::cast)
+                .toList();
+        List<TagParser> tagParsers = encodedValueNames.stream()
+                .map(importRegistry::createImportUnit)
+                .filter(Objects::nonNull)
+                .map(ImportUnit::getCreateTagParser)
+                .filter(Objects::nonNull)
+                .map(createTagParser -> createTagParser.apply(encodingManager, new PMap()))
+                .toList();
+
+        // Links are staged at their position in the update, and only copied to their edges once all are parsed
+        EdgeIntAccess stagedEdgeIntAccess = ArrayEdgeIntAccess.createFromBytes(encodingManager.getBytesForFlags());
+        int[] edgeIds = new int[changedLinks.size()];
+        int stagedEdgeId = 0;
+        for (T changedLink : changedLinks) {
+            edgeIds[stagedEdgeId] = GHUtility.getEdgeFromEdgeKey(wayIdToEdgeKey.get(changedLink.getId()));
+            for (IntEncodedValue encodedValue : encodedValues) {
+                resetEncodedValue(encodedValue, stagedEdgeId, stagedEdgeIntAccess);
+            }
+            for (TagParser tagParser : tagParsers) {
+                tagParser.handleWayTags(stagedEdgeId, stagedEdgeIntAccess, changedLink, IntsRef.EMPTY);
+            }
+            stagedEdgeId++;
+        }
+
+        EdgeIntAccess edgeIntAccess = network.getBaseGraph().getEdgeAccess();
+        for (stagedEdgeId = 0; stagedEdgeId < edgeIds.length; stagedEdgeId++) {
+            for (IntEncodedValue encodedValue : encodedValues) {
+                copyEncodedValue(encodedValue, stagedEdgeId, stagedEdgeIntAccess, edgeIds[stagedEdgeId],
+                        edgeIntAccess);
+            }
+        }
+        return changedLinks.size();
+    }
+
+    /**
+     * Restores the value of a newly imported edge, so values that a parser does not write for the updated link do not
+     * keep their previous value.
+     */
+    private static void resetEncodedValue(IntEncodedValue encodedValue, int edgeId, EdgeIntAccess edgeIntAccess) {
+        encodedValue.setInt(false, edgeId, edgeIntAccess, encodedValue.getMinStorableInt());
+        if (encodedValue.isStoreTwoDirections()) {
+            encodedValue.setInt(true, edgeId, edgeIntAccess, encodedValue.getMinStorableInt());
+        }
+    }
+
+    /**
+     * Copies a single encoded value, so the other values that share its ints keep their value.
+     */
+    private static void copyEncodedValue(IntEncodedValue encodedValue, int fromEdgeId, EdgeIntAccess fromEdgeIntAccess,
+            int toEdgeId, EdgeIntAccess toEdgeIntAccess) {
+        encodedValue.setInt(false, toEdgeId, toEdgeIntAccess,
+                encodedValue.getInt(false, fromEdgeId, fromEdgeIntAccess));
+        if (encodedValue.isStoreTwoDirections()) {
+            encodedValue.setInt(true, toEdgeId, toEdgeIntAccess,
+                    encodedValue.getInt(true, fromEdgeId, fromEdgeIntAccess));
+        }
+    }
+
     /**
      * Configures graphhopper by scanning the annotations from the linkClass and configuration encoders and parsers accordingly.
      *
@@ -143,15 +321,11 @@ public class GraphHopperNetworkService {
         networkGraphHopper.setElevation(false);
 
         EncodedValuesByTypeDto<T> encodedValuesByTypeDto = encodedValuesMapper.map(linkClass);
-        Map<String, LinkVehicleMapper<T>> providers = linkVehicleMapperProvider.getLinksForType(linkClass);
         ProfileAccessAndSpeedAttributes profileAccessAndSpeedAttributes = profileAccessAndSpeedAttributesMapper.map(profiles);
-        String encodedValuesString = getEncodedValuesString(profileAccessAndSpeedAttributes.getAll(), encodedValuesByTypeDto);
+        String encodedValuesString = String.join(DELIMITER,
+                getEncodedValueNames(profileAccessAndSpeedAttributes.getAll(), encodedValuesByTypeDto));
 
-        ImportRegistry importRegistry = new LinkImportRegistry<>(
-                encodedValuesByTypeDto,
-                encodedValueFactoryRegistry, encodedMapperFactoryRegistry,
-                providers,
-                new DefaultImportRegistry(),
+        ImportRegistry importRegistry = createImportRegistry(linkClass, encodedValuesByTypeDto,
                 profileAccessAndSpeedAttributes);
 
         addSpeedAndAccessRestrictionsToProfiles(profiles);
@@ -161,7 +335,21 @@ public class GraphHopperNetworkService {
         networkGraphHopper.setMinNetworkSize(0);
     }
 
-    private <T extends Link> String getEncodedValuesString(
+    private <T extends Link> ImportRegistry createImportRegistry(
+            Class<T> linkClass,
+            EncodedValuesByTypeDto<T> encodedValuesByTypeDto,
+            ProfileAccessAndSpeedAttributes profileAccessAndSpeedAttributes) {
+
+        Map<String, LinkVehicleMapper<T>> providers = linkVehicleMapperProvider.getLinksForType(linkClass);
+        return new LinkImportRegistry<>(
+                encodedValuesByTypeDto,
+                encodedValueFactoryRegistry, encodedMapperFactoryRegistry,
+                providers,
+                new DefaultImportRegistry(),
+                profileAccessAndSpeedAttributes);
+    }
+
+    private <T extends Link> List<String> getEncodedValueNames(
             List<String> accessAndSpeedAttributes,
             EncodedValuesByTypeDto<T> encodedValuesByTypeDto) {
 
@@ -169,7 +357,7 @@ public class GraphHopperNetworkService {
                         encodedValuesByTypeDto.getNetworkEncodedValueNameKeySet().stream(),
                         accessAndSpeedAttributes.stream()
                 )
-                .collect(Collectors.joining(DELIMITER));
+                .toList();
     }
 
     private <T extends Link> void validateVehicles(
@@ -1,44 +1,44 @@
 package nu.ndw.nls.routingmapmatcher.network;
 
+import com.carrotsearch.hppc.LongIntHashMap;
 import com.graphhopper.GHRequest;
 import com.graphhopper.GraphHopper;
-import com.graphhopper.coll.GHLongLongBTree;
-import com.graphhopper.coll.LongLongMap;
 import com.graphhopper.config.Profile;
 import com.graphhopper.routing.Path;
 import com.graphhopper.routing.PathRouter;
-import com.graphhopper.routing.ev.IntEncodedValue;
-import com.graphhopper.routing.util.AllEdgesIterator;
+import com.graphhopper.routing.PathRouter.RoutedPaths;
 import com.graphhopper.routing.util.parsers.TagParser;
+import com.graphhopper.storage.BaseGraphCapacity;
+import com.graphhopper.storage.Directory;
 import com.graphhopper.storage.index.LocationIndexTree;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import nu.ndw.nls.geometry.factories.GeometryFactoryWgs84;
+import nu.ndw.nls.routingmapmatcher.network.init.NetworkCapacity;
 import nu.ndw.nls.routingmapmatcher.network.init.NetworkReader;
 import nu.ndw.nls.routingmapmatcher.network.model.Link;
 import nu.ndw.nls.routingmapmatcher.network.model.RoutingNetworkSettings;
+import nu.ndw.nls.routingmapmatcher.network.storage.EdgeGeometryCache;
+import nu.ndw.nls.routingmapmatcher.network.storage.WayIdToEdgeKeyIndex;
+import nu.ndw.nls.routingmapmatcher.util.PointListUtil;
 import org.springframework.util.StopWatch;
 
 @Slf4j
 public class NetworkGraphHopper extends GraphHopper {
 
-    private static final int MAX_LEAF_ENTRIES = 200;
-
-    private static final int BYTES_PER_INTEGER = 4;
-
-    private static final int EMPTY_VALUE = -1;
-
     private static final String DATAREADER_IMPORT_DATE = "datareader.import.date";
 
     private static final String DATAREADER_DATA_DATE = "datareader.data.date";
@@ -47,36 +47,66 @@ public class NetworkGraphHopper extends GraphHopper {
 
     private final Instant dataDate;
 
-    private final LongLongMap nodeIdToInternalNodeIdMap;
+    private final NetworkCapacity expectedCapacity;
 
-    private final boolean indexed;
+    private final boolean countLinksBeforeImport;
 
     @Getter
-    private final Map<Long, Integer> wayIdToEdgeKey = new HashMap<>();
+    private final boolean indexed;
+
+    private final int importThreads;
+
+    private WayIdToEdgeKeyIndex wayIdToEdgeKeyIndex;
+
+    private boolean wayIdToEdgeKeyIndexBuilt;
 
     @Getter
     private final boolean expandBounds;
 
+    private volatile PathRouter pathRouter;
+
+    /**
+     * Edge geometries shared by all matchers and routers of this network. Disabled unless a memory budget is
+     * configured in the {@link RoutingNetworkSettings}.
+     */
+    @Getter
+    private final EdgeGeometryCache edgeGeometryCache;
+
     public NetworkGraphHopper(RoutingNetworkSettings routingNetworkSettings) {
         this.linkSupplier = routingNetworkSettings.getLinkSupplier();
         this.dataDate = routingNetworkSettings.getDataDate();
-        this.nodeIdToInternalNodeIdMap = new GHLongLongBTree(MAX_LEAF_ENTRIES, BYTES_PER_INTEGER, EMPTY_VALUE);
+        this.expectedCapacity = new NetworkCapacity(routingNetworkSettings.getExpectedNodeCount(),
+                routingNetworkSettings.getExpectedEdgeCount(), routingNetworkSettings.getExpectedPillarNodeCount());
+        this.countLinksBeforeImport = routingNetworkSettings.isCountLinksBeforeImport();
         this.expandBounds = routingNetworkSettings.isExpandBounds();
         this.indexed = routingNetworkSettings.isIndexed();
+        this.importThreads = routingNetworkSettings.getImportThreads();
+        this.edgeGeometryCache = new EdgeGeometryCache(routingNetworkSettings.getEdgeGeometryCacheSizeInBytes(),
+                routingNetworkSettings.isEdgeFractionLookup(), new PointListUtil(new GeometryFactoryWgs84()));
     }
 
     /**
      * GraphHopper uses this method importOSM for loading a network from file on r 862, this is a hardcoded method name we need to override
      * in order to load a network from a linkSupplier. Via a linkSupplier we can load any map type into graphhopper.
+     * The graph storage and the node id mapping are sized up front with the expected or counted network capacity. The
+     * node id mapping is only needed while reading links, so it is released when the import is done.
      */
     @Override
     protected void importOSM() {
         log.info("Start creating graph from db ");
+        NetworkCapacity capacity = countLinksBeforeImport
+                ? NetworkCapacity.count(this.linkSupplier.get())
+                : expectedCapacity;
         this.createBaseGraphAndProperties();
+        BaseGraphCapacity.ensureCapacity(getBaseGraph(), capacity.nodeCount(), capacity.edgeCount(),
+                capacity.pillarNodeCount());
         List<TagParser> wayTagParsers = getOSMParsers().getWayTagParsers();
+        LongIntHashMap nodeIdToInternalNodeIdMap = capacity.nodeCount() > 0
+                ? new LongIntHashMap(capacity.nodeCount())
+                : new LongIntHashMap();
         NetworkReader networkReader = new NetworkReader(
                 getBaseGraph(), this.linkSupplier, wayTagParsers,
-                nodeIdToInternalNodeIdMap, expandBounds);
+                nodeIdToInternalNodeIdMap, expandBounds, importThreads);
         networkReader.readGraph();
         putDateProperty(DATAREADER_IMPORT_DATE, Instant.now());
         if (this.dataDate != null) {
@@ -93,6 +123,17 @@ public class NetworkGraphHopper extends GraphHopper {
     @Override
     public void flush() {
         super.flush();
+        if (wayIdToEdgeKeyIndexBuilt) {
+            wayIdToEdgeKeyIndex.flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        if (wayIdToEdgeKeyIndex != null) {
+            wayIdToEdgeKeyIndex.close();
+        }
     }
 
     @Override
@@ -100,23 +141,40 @@ public class NetworkGraphHopper extends GraphHopper {
         super.postProcessing(closeEarly);
 
         if (indexed) {
-            buildWayIdToEdgeKeyMaps();
+            loadOrBuildWayIdToEdgeKeyIndex();
         }
     }
 
-    private void buildWayIdToEdgeKeyMaps() {
+    /**
+     * Returns the way id to edge key lookup. The map is read-only and empty when the network is not indexed.
+     */
+    public Map<Long, Integer> getWayIdToEdgeKey() {
+        return wayIdToEdgeKeyIndex != null ? wayIdToEdgeKeyIndex : Collections.emptyMap();
+    }
+
+    /**
+     * A network that was stored on disk contains the index in its graph directory, which is memory-mapped instead of
+     * rebuilt. Networks in memory, and networks stored before the index was persisted, build the index from all edges.
+     */
+    private void loadOrBuildWayIdToEdgeKeyIndex() {
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
 
-        AllEdgesIterator edgeIterator = this.getBaseGraph().getAllEdges();
-        IntEncodedValue wayIdEncodedValue = this.getEncodingManager().getIntEncodedValue(Link.WAY_ID_KEY);
-        while (edgeIterator.next()) {
-            long wayId = edgeIterator.get(wayIdEncodedValue);
-            wayIdToEdgeKey.put(wayId, edgeIterator.getEdgeKey());
+        Directory directory = getBaseGraph().getDirectory();
+        Optional<WayIdToEdgeKeyIndex> storedIndex = directory.getDefaultType().isStoring()
+                ? WayIdToEdgeKeyIndex.loadExisting(directory, getBaseGraph())
+                : Optional.empty();
+        if (storedIndex.isPresent()) {
+            wayIdToEdgeKeyIndex = storedIndex.get();
+            stopWatch.stop();
+            log.debug("Loaded wayId to edgeKey index in " + stopWatch.getTotalTime(TimeUnit.MILLISECONDS) + "ms");
+            return;
         }
 
+        wayIdToEdgeKeyIndex = WayIdToEdgeKeyIndex.build(directory, getBaseGraph(),
+                getEncodingManager().getIntEncodedValue(Link.WAY_ID_KEY));
+        wayIdToEdgeKeyIndexBuilt = true;
         stopWatch.stop();
-        stopWatch.getTotalTime(TimeUnit.MILLISECONDS);
         log.debug("Build wayId to edgeKey maps in " + stopWatch.getTotalTime(TimeUnit.MILLISECONDS) + "ms");
     }
 
@@ -135,6 +193,39 @@ public class NetworkGraphHopper extends GraphHopper {
      * routing api</a>
      */
     public List<Path> calcPaths(GHRequest request) {
+        return getPathRouter().calcPaths(request);
+    }
+
+    /**
+     * Routes the request once and returns both the snaps and the paths, which is all that is needed to build a route
+     * response including its legs.
+     *
+     * @param request the gh routing request
+     * @return the snaps of the request points and the paths between them
+     */
+    public RoutedPaths calcRoutedPaths(GHRequest request) {
+        return getPathRouter().calcRoutedPaths(request);
+    }
+
+    /**
+     * The path router only holds references to the loaded graph, profiles and routing preparations, all request state
+     * lives in its solvers. It is therefore created once, on first use after loading, and shared between threads.
+     */
+    private PathRouter getPathRouter() {
+        PathRouter router = pathRouter;
+        if (router == null) {
+            synchronized (this) {
+                router = pathRouter;
+                if (router == null) {
+                    router = createPathRouter();
+                    pathRouter = router;
+                }
+            }
+        }
+        return router;
+    }
+
+    private PathRouter createPathRouter() {
         Map<String, Profile> profilesByName = getProfiles()
                 .stream().collect(Collectors
                         .toMap(
@@ -152,8 +243,7 @@ public class NetworkGraphHopper extends GraphHopper {
                 getTranslationMap(),
                 getRouterConfig(),
                 createWeightingFactory(),
-                getCHGraphs(), getLandmarks())
-                .calcPaths(request);
+                getCHGraphs(), getLandmarks());
     }
 
     public Instant getImportDate() {
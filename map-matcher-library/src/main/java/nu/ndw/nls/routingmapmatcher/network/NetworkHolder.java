@@ -0,0 +1,253 @@
+package nu.ndw.nls.routingmapmatcher.network;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the current version of a network and allows a new version to be published while the network is in use.
+ * <br />
+ * Readers {@link #acquire()} a lease on the current version, create their matchers or routers from
+ * {@link Lease#getNetwork()} and close the lease when done. Publishing a new version does not wait for readers: leases
+ * acquired before the publish keep using the old version, and the old version is closed once its last lease is
+ * closed. Acquiring a lease does not take a lock, unless it has to wait for an update.
+ * <br />
+ * Changes to the current version are made with {@link #update(Function)}, which has exclusive access to the network:
+ * it waits for the open leases to close and new leases wait until it is done.
+ * <br />
+ * Example:
+ * <pre>{@code
+ * try (NetworkHolder.Lease lease = networkHolder.acquire()) {
+ *     SinglePointMapMatcher matcher = factory.createMapMatcher(lease.getNetwork(), profileName);
+ *     return matcher.match(location);
+ * }
+ * }</pre>
+ */
+@Slf4j
+public class NetworkHolder implements AutoCloseable {
+
+    private static final String CLOSED_MSG = "Network holder is closed";
+
+    private static final String INTERRUPTED_MSG = "Interrupted while waiting for the update of network version %d";
+
+    private final AtomicLong versionCounter = new AtomicLong();
+
+    private final AtomicReference<NetworkVersion> currentVersion;
+
+    private final Object writeLock = new Object();
+
+    public NetworkHolder(NetworkGraphHopper network) {
+        this.currentVersion = new AtomicReference<>(createVersion(network));
+    }
+
+    /**
+     * Leases the current network version. The version stays open at least until the returned lease is closed.
+     *
+     * @throws IllegalStateException if the holder is closed
+     */
+    public Lease acquire() {
+        while (true) {
+            NetworkVersion version = currentVersion.get();
+            if (version == null) {
+                throw new IllegalStateException(CLOSED_MSG);
+            }
+            // Retaining fails when the version is being updated, or when it was retired and released concurrently,
+            // in which case a newer version has already been published
+            if (version.retain()) {
+                return new Lease(version);
+            }
+            version.awaitUpdate();
+        }
+    }
+
+    /**
+     * Runs the update with exclusive access to the current network version. The update starts once all leases on the
+     * version are closed, and leases acquired in the meantime wait until it is done, so no matcher or router reads the
+     * network while it changes. Updates and publishes are applied one at a time. The update must not be run by a
+     * thread that holds a lease of this holder, because it would wait for that lease forever.
+     *
+     * @return the result of the update
+     * @throws IllegalStateException if the holder is closed or the thread is interrupted while waiting for the leases
+     */
+    public <R> R update(Function<NetworkGraphHopper, R> update) {
+        synchronized (writeLock) {
+            NetworkVersion version = currentVersion.get();
+            if (version == null) {
+                throw new IllegalStateException(CLOSED_MSG);
+            }
+            version.beginUpdate();
+            try {
+                return update.apply(version.getNetwork());
+            } finally {
+                version.endUpdate();
+            }
+        }
+    }
+
+    /**
+     * Makes the network the current version. The previous version is closed as soon as no leases on it remain.
+     *
+     * @return the version number of the published network
+     * @throws IllegalStateException if the holder is closed
+     */
+    public long publish(NetworkGraphHopper network) {
+        NetworkVersion newVersion = createVersion(network);
+        NetworkVersion oldVersion;
+        synchronized (writeLock) {
+            oldVersion = currentVersion.get();
+            if (oldVersion == null) {
+                throw new IllegalStateException(CLOSED_MSG);
+            }
+            currentVersion.set(newVersion);
+        }
+
+        log.info("Published network version {}, retiring version {}", newVersion.getVersion(),
+                oldVersion.getVersion());
+        oldVersion.release();
+        return newVersion.getVersion();
+    }
+
+    /**
+     * @return the version number of the current network, or -1 if the holder is closed
+     */
+    public long getCurrentVersion() {
+        NetworkVersion version = currentVersion.get();
+        return version == null ? -1 : version.getVersion();
+    }
+
+    /**
+     * Retires the current version. It is closed as soon as no leases on it remain; new leases can no longer be
+     * acquired.
+     */
+    @Override
+    public void close() {
+        NetworkVersion version;
+        synchronized (writeLock) {
+            version = currentVersion.getAndSet(null);
+        }
+        if (version != null) {
+            version.release();
+        }
+    }
+
+    private NetworkVersion createVersion(NetworkGraphHopper network) {
+        return new NetworkVersion(Objects.requireNonNull(network), versionCounter.incrementAndGet());
+    }
+
+    /**
+     * A network version with a reference count. The holder owns one reference while the version is current, every
+     * lease owns one more. The network is closed when the count drops to zero. While the version is updated the count
+     * is negative, so no lease can be acquired; the version monitor is used to wait for the leases and the update.
+     */
+    @RequiredArgsConstructor
+    private static final class NetworkVersion {
+
+        private static final int UPDATING = -1;
+
+        @Getter
+        private final NetworkGraphHopper network;
+        @Getter
+        private final long version;
+        private final AtomicInteger referenceCount = new AtomicInteger(1);
+        private volatile boolean updatePending;
+
+        private boolean retain() {
+            int count;
+            do {
+                count = referenceCount.get();
+                // A pending update refuses new leases, so it is not starved by leases that keep overlapping
+                if (count <= 0 || updatePending) {
+                    return false;
+                }
+            } while (!referenceCount.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        private void release() {
+            int count = referenceCount.decrementAndGet();
+            if (count == 0) {
+                log.info("Closing network version {}", version);
+                network.close();
+            } else if (count == 1 && updatePending) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Waits until the leases are closed. Only called for the current version while holding the write lock of the
+         * holder, so the reference of the holder keeps the count above zero.
+         */
+        private synchronized void beginUpdate() {
+            updatePending = true;
+            while (!referenceCount.compareAndSet(1, UPDATING)) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    updatePending = false;
+                    notifyAll();
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(INTERRUPTED_MSG.formatted(version), e);
+                }
+            }
+            log.info("Updating network version {}", version);
+        }
+
+        private synchronized void endUpdate() {
+            referenceCount.set(1);
+            updatePending = false;
+            notifyAll();
+        }
+
+        private synchronized void awaitUpdate() {
+            while (updatePending) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(INTERRUPTED_MSG.formatted(version), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * A lease on a network version. Closing the lease more than once has no effect. A lease is meant to be used by a
+     * single thread.
+     */
+    public static final class Lease implements AutoCloseable {
+
+        private final NetworkVersion networkVersion;
+        private boolean released;
+
+        private Lease(NetworkVersion networkVersion) {
+            this.networkVersion = networkVersion;
+        }
+
+        public NetworkGraphHopper getNetwork() {
+            if (released) {
+                throw new IllegalStateException("Lease on network version %d is closed"
+                        .formatted(networkVersion.getVersion()));
+            }
+            return networkVersion.getNetwork();
+        }
+
+        public long getVersion() {
+            return networkVersion.getVersion();
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                networkVersion.release();
+            }
+        }
+    }
+}
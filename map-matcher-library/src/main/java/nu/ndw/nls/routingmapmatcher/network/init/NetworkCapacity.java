@@ -0,0 +1,39 @@
+package nu.ndw.nls.routingmapmatcher.network.init;
+
+import com.carrotsearch.hppc.LongHashSet;
+import java.util.Iterator;
+import lombok.extern.slf4j.Slf4j;
+import nu.ndw.nls.routingmapmatcher.network.model.Link;
+
+/**
+ * Expected size of a network, used to allocate the node id mapping and the graph storage once before links are read.
+ * Counts of zero mean unknown.
+ */
+@Slf4j
+public record NetworkCapacity(int nodeCount, int edgeCount, long pillarNodeCount) {
+
+    private static final int COORDINATES_LENGTH_START_END = 2;
+
+    /**
+     * Counts the nodes, edges and pillar nodes that {@link NetworkReader} will add for the links. This requires a full
+     * pass over the links before the import.
+     */
+    public static NetworkCapacity count(Iterator<? extends Link> links) {
+        LongHashSet nodeIds = new LongHashSet();
+        int edgeCount = 0;
+        long pillarNodeCount = 0;
+        while (links.hasNext()) {
+            Link link = links.next();
+            if (link.getFromNodeId() == link.getToNodeId()) {
+                continue;
+            }
+            nodeIds.add(link.getFromNodeId());
+            nodeIds.add(link.getToNodeId());
+            edgeCount++;
+            pillarNodeCount += Math.max(0, link.getGeometry().getNumPoints() - COORDINATES_LENGTH_START_END);
+        }
+        NetworkCapacity networkCapacity = new NetworkCapacity(nodeIds.size(), edgeCount, pillarNodeCount);
+        log.info("Counted {}", networkCapacity);
+        return networkCapacity;
+    }
+}
@@ -1,31 +1,50 @@
 package nu.ndw.nls.routingmapmatcher.network.init;
 
-import com.graphhopper.coll.LongLongMap;
+import com.carrotsearch.hppc.LongIntHashMap;
 import com.graphhopper.routing.ev.EdgeIntAccess;
 import com.graphhopper.routing.util.parsers.TagParser;
 import com.graphhopper.storage.BaseGraph;
 import com.graphhopper.storage.IntsRef;
 import com.graphhopper.util.EdgeIteratorState;
 import com.graphhopper.util.PointList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 import nu.ndw.nls.routingmapmatcher.network.model.Link;
 import org.locationtech.jts.geom.Coordinate;
 
+/**
+ * Reads links into the {@link BaseGraph}. By default, every link is converted and written on the calling thread. When
+ * more than one import thread is configured, the import is pipelined: worker threads validate and convert the
+ * geometries of batches of links, while the calling thread remains the single writer that assigns internal node ids,
+ * inserts edges in supplier order and runs the tag parsers. The resulting graph is identical to a sequential import.
+ */
 @Slf4j
 public class NetworkReader {
 
+    public static final int SEQUENTIAL_IMPORT_THREADS = 1;
+
     private static final int COORDINATES_LENGTH_START_END = 2;
 
+    private static final int LINKS_PER_BATCH = 1_000;
+
+    private static final int PENDING_BATCHES_PER_THREAD = 2;
+
     private static final double BOUND_EXPAND = .000001;
 
     private final Supplier<Iterator<? extends Link>> linkSupplier;
 
-    private final LongLongMap nodeIdToInternalNodeIdMap;
+    private final LongIntHashMap nodeIdToInternalNodeIdMap;
 
     private final EdgeIntAccess edgeIntAccess;
 
@@ -35,24 +54,45 @@ public class NetworkReader {
 
     private final boolean expandBounds;
 
+    private final int importThreads;
+
     public NetworkReader(
             BaseGraph baseGraph,
             Supplier<Iterator<? extends Link>> linkSupplier,
             List<TagParser> wayTagParsers,
-            LongLongMap nodeIdToInternalNodeIdMap,
+            LongIntHashMap nodeIdToInternalNodeIdMap,
             boolean expandBounds) {
+        this(baseGraph, linkSupplier, wayTagParsers, nodeIdToInternalNodeIdMap, expandBounds,
+                SEQUENTIAL_IMPORT_THREADS);
+    }
+
+    public NetworkReader(
+            BaseGraph baseGraph,
+            Supplier<Iterator<? extends Link>> linkSupplier,
+            List<TagParser> wayTagParsers,
+            LongIntHashMap nodeIdToInternalNodeIdMap,
+            boolean expandBounds,
+            int importThreads) {
+        if (importThreads < SEQUENTIAL_IMPORT_THREADS) {
+            throw new IllegalArgumentException("Number of import threads must be at least 1, but was " + importThreads);
+        }
         this.linkSupplier = linkSupplier;
         this.nodeIdToInternalNodeIdMap = Objects.requireNonNull(nodeIdToInternalNodeIdMap);
         this.wayTagParsers = Objects.requireNonNull(wayTagParsers);
         this.baseGraph = Objects.requireNonNull(baseGraph);
         this.edgeIntAccess = baseGraph.getEdgeAccess();
         this.expandBounds = expandBounds;
+        this.importThreads = importThreads;
     }
 
     public void readGraph() {
         log.info("Start reading links");
         Iterator<? extends Link> links = linkSupplier.get();
-        readLinks(links);
+        if (importThreads > SEQUENTIAL_IMPORT_THREADS) {
+            readLinksPipelined(links);
+        } else {
+            readLinks(links);
+        }
         log.info("Finished reading links");
     }
 
@@ -71,15 +111,122 @@ public class NetworkReader {
         }
     }
 
+    private void readLinksPipelined(Iterator<? extends Link> links) {
+        log.info("Reading links pipelined with {} import threads", importThreads);
+        int maxPendingBatches = importThreads * PENDING_BATCHES_PER_THREAD;
+        Deque<Future<List<ParsedLink>>> pendingBatches = new ArrayDeque<>(maxPendingBatches);
+        int count = 0;
+        try (ExecutorService executorService = Executors.newFixedThreadPool(importThreads)) {
+            try {
+                while (links.hasNext() || !pendingBatches.isEmpty()) {
+                    while (links.hasNext() && pendingBatches.size() < maxPendingBatches) {
+                        List<Link> batch = nextBatch(links);
+                        pendingBatches.add(executorService.submit(() -> parseBatch(batch)));
+                    }
+                    for (ParsedLink parsedLink : awaitBatch(pendingBatches.poll())) {
+                        writeParsedLink(parsedLink);
+                        count++;
+                        logCount(count);
+                    }
+                }
+            } catch (RuntimeException exception) {
+                executorService.shutdownNow();
+                throw exception;
+            }
+        }
+    }
+
+    private static List<Link> nextBatch(Iterator<? extends Link> links) {
+        List<Link> batch = new ArrayList<>(LINKS_PER_BATCH);
+        while (links.hasNext() && batch.size() < LINKS_PER_BATCH) {
+            batch.add(links.next());
+        }
+        return batch;
+    }
+
+    private static List<ParsedLink> parseBatch(List<Link> batch) {
+        List<ParsedLink> parsedLinks = new ArrayList<>(batch.size());
+        for (Link link : batch) {
+            try {
+                parsedLinks.add(parseLink(link));
+            } catch (Exception exception) {
+                log.error("Error adding link {}", link);
+                throw new IllegalStateException(exception);
+            }
+        }
+        return parsedLinks;
+    }
+
+    private static List<ParsedLink> awaitBatch(Future<List<ParsedLink>> pendingBatch) {
+        try {
+            return pendingBatch.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading links", exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(exception.getCause());
+        }
+    }
+
+    /**
+     * Performs the work for a link that does not touch the graph or the encoded values, so it can run on a worker
+     * thread. Tag parsers are not run here, because some of them are not thread-safe: a string encoded value adds new
+     * values to a dictionary that is shared by all edges.
+     */
+    private static ParsedLink parseLink(Link link) {
+        Coordinate[] coordinates = getValidatedCoordinates(link);
+        boolean loop = isLoop(link);
+        PointList geometry = !loop && coordinates.length > COORDINATES_LENGTH_START_END
+                ? createPointListWithoutStartAndEndPoint(coordinates)
+                : null;
+        return new ParsedLink(link, coordinates, geometry, loop);
+    }
+
+    private void writeParsedLink(ParsedLink parsedLink) {
+        try {
+            addParsedLink(parsedLink);
+        } catch (Exception exception) {
+            log.error("Error adding link {}", parsedLink.link());
+            throw new IllegalStateException(exception);
+        }
+    }
+
     private void addLink(Link link) {
+        addParsedLink(parseLink(link));
+    }
+
+    private void addParsedLink(ParsedLink parsedLink) {
+        if (parsedLink.loop()) {
+            return;
+        }
+        Link link = parsedLink.link();
+        EdgeIteratorState edge = addEdge(link, parsedLink.coordinates());
+        wayTagParsers.forEach(tagParser -> tagParser.handleWayTags(edge.getEdge(), edgeIntAccess, link, IntsRef.EMPTY));
+        if (parsedLink.geometry() != null) {
+            edge.setWayGeometry(parsedLink.geometry());
+        }
+    }
+
+    private static Coordinate[] getValidatedCoordinates(Link link) {
         Coordinate[] coordinates = link.getGeometry().getCoordinates();
         if (coordinates.length < COORDINATES_LENGTH_START_END) {
             throw new IllegalStateException("Invalid geometry");
         }
+        return coordinates;
+    }
+
+    private static boolean isLoop(Link link) {
         if (link.getFromNodeId() == link.getToNodeId()) {
             log.debug("GraphHopper >= 8.0 does not support loop edges, skipping link ID " + link.getId());
-            return;
+            return true;
         }
+        return false;
+    }
+
+    private EdgeIteratorState addEdge(Link link, Coordinate[] coordinates) {
         if (expandBounds) {
             Arrays.stream(coordinates).forEach(coord -> {
                 baseGraph.getBounds().update(coord.y + BOUND_EXPAND, coord.x + BOUND_EXPAND);
@@ -92,26 +239,22 @@ public class NetworkReader {
                 coordinates[coordinates.length - 1].y,
                 coordinates[coordinates.length - 1].x);
 
-        EdgeIteratorState edge = baseGraph.edge(internalFromNodeId, internalToNodeId)
+        return baseGraph.edge(internalFromNodeId, internalToNodeId)
                 .setDistance(link.getDistanceInMeters());
-        wayTagParsers.forEach(tagParser -> tagParser.handleWayTags(edge.getEdge(), edgeIntAccess, link, IntsRef.EMPTY));
-        if (coordinates.length > COORDINATES_LENGTH_START_END) {
-            PointList geometry = createPointListWithoutStartAndEndPoint(coordinates);
-            edge.setWayGeometry(geometry);
-        }
     }
 
     private int addNodeIfNeeded(long id, double latitude, double longitude) {
-        int internalNodeId = Math.toIntExact(nodeIdToInternalNodeIdMap.get(id));
-        if (internalNodeId < 0) {
-            internalNodeId = Math.toIntExact(nodeIdToInternalNodeIdMap.getSize());
-            nodeIdToInternalNodeIdMap.put(id, internalNodeId);
-            baseGraph.getNodeAccess().setNode(internalNodeId, latitude, longitude);
+        int index = nodeIdToInternalNodeIdMap.indexOf(id);
+        if (nodeIdToInternalNodeIdMap.indexExists(index)) {
+            return nodeIdToInternalNodeIdMap.indexGet(index);
         }
+        int internalNodeId = nodeIdToInternalNodeIdMap.size();
+        nodeIdToInternalNodeIdMap.indexInsert(index, id, internalNodeId);
+        baseGraph.getNodeAccess().setNode(internalNodeId, latitude, longitude);
         return internalNodeId;
     }
 
-    private PointList createPointListWithoutStartAndEndPoint(Coordinate[] coordinates) {
+    private static PointList createPointListWithoutStartAndEndPoint(Coordinate[] coordinates) {
         boolean is3d = false;
         PointList pointList = new PointList(coordinates.length - COORDINATES_LENGTH_START_END, is3d);
         for (int index = 1; index < coordinates.length - 1; index++) {
@@ -132,4 +275,8 @@ public class NetworkReader {
             log.debug("Read {} links", count);
         }
     }
+
+    private record ParsedLink(Link link, Coordinate[] coordinates, PointList geometry, boolean loop) {
+
+    }
 }
@@ -1,6 +1,7 @@
 package nu.ndw.nls.routingmapmatcher.network.model;
 
 import com.graphhopper.config.Profile;
+import com.graphhopper.storage.DAType;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.util.Iterator;
@@ -10,6 +11,8 @@ import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
+import nu.ndw.nls.routingmapmatcher.network.init.NetworkReader;
+import nu.ndw.nls.routingmapmatcher.network.storage.EdgeGeometryCache;
 
 @Builder(builderMethodName = "genericBuilder")
 @Getter
@@ -27,6 +30,29 @@ public class RoutingNetworkSettings<T extends Link> {
     private final boolean indexed = false;
     @Builder.Default
     private final boolean expandBounds = false;
+    private final int expectedNodeCount;
+    private final int expectedEdgeCount;
+    private final long expectedPillarNodeCount;
+    @Builder.Default
+    private final boolean countLinksBeforeImport = false;
+    @Builder.Default
+    private final int importThreads = NetworkReader.SEQUENTIAL_IMPORT_THREADS;
+    @Builder.Default
+    private final DAType dataAccessType = DAType.RAM_STORE;
+    @Builder.Default
+    private final boolean preloadDataAccess = false;
+    /**
+     * Memory budget of the edge geometry cache of the network. The cache is disabled by default.
+     */
+    @Builder.Default
+    private final long edgeGeometryCacheSizeInBytes = EdgeGeometryCache.DISABLED;
+    /**
+     * Looks up fractions along edges in the cumulative distances of the cached edge geometries, instead of calculating
+     * them geodetically. This is faster, but fractions can differ marginally. Only applies when the edge geometry
+     * cache is enabled.
+     */
+    @Builder.Default
+    private final boolean edgeFractionLookup = false;
 
     public static <U extends Link> RoutingNetworkSettingsBuilder<U> builder(Class<U> linkType) {
         return RoutingNetworkSettings.<U>genericBuilder().linkType(linkType);
@@ -0,0 +1,249 @@
+package nu.ndw.nls.routingmapmatcher.network.storage;
+
+import com.graphhopper.util.DistanceCalcEarth;
+import com.graphhopper.util.PointList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.LineString;
+
+/**
+ * Immutable geometry of an edge in the direction in which it is stored in the graph, together with the cumulative
+ * distances along its segments. Instances are shared between threads by {@link EdgeGeometryCache} and must not be
+ * modified.
+ * <br />
+ * The cumulative distances turn fraction lookups into a search for the right segment followed by an interpolation
+ * on that segment only. Positions at a fraction are found by binary search. The fraction of a coordinate is found
+ * directly on its segment when that is known, for example from the way index of a snap, and with a planar scan for
+ * the closest segment otherwise, without any geodesic calculations.
+ */
+@Getter
+public final class EdgeGeometry {
+
+    private static final int OBJECT_OVERHEAD_IN_BYTES = 256;
+
+    /**
+     * Squared planar distance in degrees below which a coordinate lies on a segment, about a centimeter.
+     */
+    private static final double ON_SEGMENT_DISTANCE_SQUARED = 1e-14;
+
+    private static final int POINT_LIST_BYTES_PER_POINT = 2 * Double.BYTES;
+
+    private static final int PACKED_COORDINATE_BYTES_PER_POINT = 2 * Double.BYTES;
+
+    private static final int OBJECT_HEADER_BYTES = 16;
+
+    private static final int REFERENCE_BYTES = 8;
+
+    /**
+     * Object header, x, y and z of a {@link Coordinate}, plus the reference to it in a coordinate array.
+     */
+    private static final int COORDINATE_OBJECT_BYTES_PER_POINT = OBJECT_HEADER_BYTES + 3 * Double.BYTES
+            + REFERENCE_BYTES;
+
+    private static final int CUMULATIVE_DISTANCE_BYTES_PER_POINT = Double.BYTES;
+
+    private static final int BYTES_PER_POINT = POINT_LIST_BYTES_PER_POINT + PACKED_COORDINATE_BYTES_PER_POINT
+            + COORDINATE_OBJECT_BYTES_PER_POINT + CUMULATIVE_DISTANCE_BYTES_PER_POINT;
+
+    private final PointList pointList;
+
+    private final LineString lineString;
+
+    /**
+     * Distance in meters from the first point to every point of the geometry, calculated with
+     * {@link DistanceCalcEarth#DIST_EARTH}.
+     */
+    @Getter(AccessLevel.NONE)
+    private final double[] cumulativeDistances;
+
+    EdgeGeometry(PointList pointList, LineString lineString) {
+        this.pointList = pointList.makeImmutable();
+        this.lineString = lineString;
+        this.cumulativeDistances = new double[pointList.size()];
+        for (int i = 1; i < pointList.size(); i++) {
+            cumulativeDistances[i] = cumulativeDistances[i - 1] + DistanceCalcEarth.DIST_EARTH.calcDist(
+                    pointList.getLat(i - 1), pointList.getLon(i - 1), pointList.getLat(i), pointList.getLon(i));
+        }
+    }
+
+    /**
+     * @return the distance in meters from the first point to the point at the index
+     */
+    public double getCumulativeDistance(int index) {
+        return cumulativeDistances[index];
+    }
+
+    public double getLength() {
+        return cumulativeDistances.length == 0 ? 0 : cumulativeDistances[cumulativeDistances.length - 1];
+    }
+
+    /**
+     * Projects the coordinate on the closest segment of the geometry. Distances are compared on a plane that is scaled
+     * for the latitude of the coordinate, which is accurate for coordinates near the geometry. All segments are
+     * scanned, so use {@link #getFraction(Coordinate, int)} when the segment is known.
+     *
+     * @return the fraction of the projected coordinate along the geometry, based on the cumulative distances
+     */
+    public double getFraction(Coordinate coordinate) {
+        double length = getLength();
+        if (length == 0) {
+            return 0;
+        }
+        double longitudeScale = getLongitudeScale(coordinate);
+        double closestDistanceSquared = Double.POSITIVE_INFINITY;
+        double closestDistance = 0;
+        for (int segment = 0; segment < pointList.size() - 1; segment++) {
+            double segmentFraction = getSegmentFraction(segment, coordinate, longitudeScale);
+            double distanceSquared = getDistanceSquared(segment, coordinate, longitudeScale, segmentFraction);
+            if (distanceSquared < closestDistanceSquared) {
+                closestDistanceSquared = distanceSquared;
+                closestDistance = getDistance(segment, segmentFraction);
+            }
+        }
+        return closestDistance / length;
+    }
+
+    /**
+     * Same as {@link #getFraction(Coordinate)} for a coordinate that lies on the given segment, such as the snapped
+     * point of a snap at its way index. Only that segment is used, so the lookup takes constant time. When the
+     * coordinate does not lie on the segment, all segments are scanned instead.
+     */
+    public double getFraction(Coordinate coordinate, int segment) {
+        double length = getLength();
+        if (length == 0) {
+            return 0;
+        }
+        if (segment >= 0 && segment < pointList.size() - 1) {
+            double longitudeScale = getLongitudeScale(coordinate);
+            double segmentFraction = getSegmentFraction(segment, coordinate, longitudeScale);
+            if (getDistanceSquared(segment, coordinate, longitudeScale, segmentFraction)
+                    <= ON_SEGMENT_DISTANCE_SQUARED) {
+                return getDistance(segment, segmentFraction) / length;
+            }
+        }
+        return getFraction(coordinate);
+    }
+
+    /**
+     * A virtual edge of a query graph runs from a virtual node on this geometry to one of its ends, through the
+     * remaining points of this geometry. Their number therefore tells on which segment the virtual node lies.
+     *
+     * @param virtualEdgeGeometry the geometry of the virtual edge, starting at the virtual node
+     * @return the segment of the virtual node, or -1 when the virtual edge does not run to one of the ends, for example
+     * because it ends at another virtual node
+     */
+    public int getVirtualNodeSegment(PointList virtualEdgeGeometry) {
+        int virtualEdgeSize = virtualEdgeGeometry.size();
+        if (virtualEdgeSize < 2 || virtualEdgeSize > pointList.size() + 1) {
+            return -1;
+        }
+        double nextLat = virtualEdgeGeometry.getLat(1);
+        double nextLon = virtualEdgeGeometry.getLon(1);
+        int nextTowardsEnd = pointList.size() - virtualEdgeSize + 1;
+        if (isPoint(nextTowardsEnd, nextLat, nextLon)) {
+            return nextTowardsEnd - 1;
+        }
+        int nextTowardsStart = virtualEdgeSize - 2;
+        if (isPoint(nextTowardsStart, nextLat, nextLon)) {
+            return nextTowardsStart;
+        }
+        return -1;
+    }
+
+    private boolean isPoint(int index, double lat, double lon) {
+        return pointList.getLat(index) == lat && pointList.getLon(index) == lon;
+    }
+
+    private static double getLongitudeScale(Coordinate coordinate) {
+        return Math.cos(Math.toRadians(coordinate.y));
+    }
+
+    /**
+     * @return the fraction along the segment of the projection of the coordinate on the segment
+     */
+    private double getSegmentFraction(int segment, Coordinate coordinate, double longitudeScale) {
+        double startX = (pointList.getLon(segment) - coordinate.x) * longitudeScale;
+        double startY = pointList.getLat(segment) - coordinate.y;
+        double deltaX = (pointList.getLon(segment + 1) - pointList.getLon(segment)) * longitudeScale;
+        double deltaY = pointList.getLat(segment + 1) - pointList.getLat(segment);
+        double segmentLengthSquared = deltaX * deltaX + deltaY * deltaY;
+        return segmentLengthSquared == 0 ? 0
+                : Math.clamp(-(startX * deltaX + startY * deltaY) / segmentLengthSquared, 0.0, 1.0);
+    }
+
+    private double getDistanceSquared(int segment, Coordinate coordinate, double longitudeScale,
+            double segmentFraction) {
+        double projectedX = (pointList.getLon(segment) - coordinate.x
+                + segmentFraction * (pointList.getLon(segment + 1) - pointList.getLon(segment))) * longitudeScale;
+        double projectedY = pointList.getLat(segment) - coordinate.y
+                + segmentFraction * (pointList.getLat(segment + 1) - pointList.getLat(segment));
+        return projectedX * projectedX + projectedY * projectedY;
+    }
+
+    private double getDistance(int segment, double segmentFraction) {
+        return cumulativeDistances[segment]
+                + segmentFraction * (cumulativeDistances[segment + 1] - cumulativeDistances[segment]);
+    }
+
+    /**
+     * @return the part of the geometry between the fractions, with the start and end interpolated on their segments
+     */
+    public LineString getSubLineString(double startFraction, double endFraction) {
+        double startDistance = startFraction * getLength();
+        double endDistance = endFraction * getLength();
+        int startSegment = findSegment(startDistance);
+        int endSegment = findSegment(endDistance);
+        List<Coordinate> coordinates = new ArrayList<>(endSegment - startSegment + 2);
+        addCoordinate(coordinates, interpolate(startSegment, startDistance));
+        for (int i = startSegment + 1; i <= endSegment; i++) {
+            addCoordinate(coordinates, new Coordinate(pointList.getLon(i), pointList.getLat(i)));
+        }
+        addCoordinate(coordinates, interpolate(endSegment, endDistance));
+        if (coordinates.size() == 1) {
+            coordinates.add(coordinates.getFirst());
+        }
+        return lineString.getFactory().createLineString(coordinates.toArray(Coordinate[]::new));
+    }
+
+    /**
+     * @return the index of the segment that contains the distance along the geometry
+     */
+    private int findSegment(double distance) {
+        int index = Arrays.binarySearch(cumulativeDistances, distance);
+        int segment = index >= 0 ? index : -index - 2;
+        return Math.clamp(segment, 0, Math.max(0, cumulativeDistances.length - 2));
+    }
+
+    private Coordinate interpolate(int segment, double distance) {
+        if (segment + 1 >= pointList.size()) {
+            return new Coordinate(pointList.getLon(segment), pointList.getLat(segment));
+        }
+        double segmentLength = cumulativeDistances[segment + 1] - cumulativeDistances[segment];
+        double segmentFraction = segmentLength == 0 ? 0
+                : Math.clamp((distance - cumulativeDistances[segment]) / segmentLength, 0.0, 1.0);
+        double startLon = pointList.getLon(segment);
+        double startLat = pointList.getLat(segment);
+        return new Coordinate(startLon + segmentFraction * (pointList.getLon(segment + 1) - startLon),
+                startLat + segmentFraction * (pointList.getLat(segment + 1) - startLat));
+    }
+
+    private static void addCoordinate(List<Coordinate> coordinates, Coordinate coordinate) {
+        if (coordinates.isEmpty() || !coordinates.getLast().equals2D(coordinate)) {
+            coordinates.add(coordinate);
+        }
+    }
+
+    /**
+     * Estimates the heap size of this geometry: the latitude and longitude arrays of the point list, the packed
+     * coordinate sequence of the line string, the cumulative distances and a fixed overhead for the objects themselves.
+     * The packed sequence also keeps the {@link Coordinate} objects it creates when JTS operations request its
+     * coordinates, which is common for cached edges, so these are counted as well.
+     */
+    long estimateSizeInBytes() {
+        return OBJECT_OVERHEAD_IN_BYTES + (long) BYTES_PER_POINT * pointList.size();
+    }
+}
@@ -0,0 +1,240 @@
+package nu.ndw.nls.routingmapmatcher.network.storage;
+
+import com.graphhopper.routing.querygraph.VirtualEdgeIteratorState;
+import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.FetchMode;
+import com.graphhopper.util.PointList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import nu.ndw.nls.routingmapmatcher.util.PointListUtil;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.LineString;
+
+/**
+ * Size-bounded cache of edge geometries, shared by all matchers and routers of a network. Fetching the way geometry
+ * of an edge reads all its pillar nodes from the graph storage, and converting it to a JTS line string creates a
+ * coordinate per point. Popular edges are fetched by almost every match in their area, so the cache keeps their
+ * {@link EdgeGeometry} once it has been created.
+ * <br />
+ * The memory budget covers the estimated size of the cached geometries. When it is exceeded, geometries are evicted in
+ * clock order: a geometry that was used since the previous eviction pass gets a second chance, others are removed.
+ * Only edges of the base graph are cached; virtual edges of query graphs are created on every call. A cache with a
+ * budget of zero is disabled and returns the geometries exactly as GraphHopper fetches them.
+ * <br />
+ * Caching does not change any results. Looking up fractions in the cumulative distances of the cached geometries is a
+ * separate opt-in, because these haversine distances can differ marginally from the geodetic calculations otherwise
+ * used for fractions.
+ */
+public final class EdgeGeometryCache {
+
+    public static final long DISABLED = 0;
+
+    private static final double EVICTION_TARGET = 0.9;
+
+    private static final int EVICTION_PASSES = 2;
+
+    private final long maxSizeInBytes;
+
+    private final boolean fractionLookup;
+
+    private final PointListUtil pointListUtil;
+
+    private final ConcurrentHashMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong sizeInBytes = new AtomicLong();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    public EdgeGeometryCache(long maxSizeInBytes, PointListUtil pointListUtil) {
+        this(maxSizeInBytes, false, pointListUtil);
+    }
+
+    /**
+     * @param fractionLookup whether fractions are looked up in the cumulative distances of the cached geometries
+     */
+    public EdgeGeometryCache(long maxSizeInBytes, boolean fractionLookup, PointListUtil pointListUtil) {
+        if (maxSizeInBytes < 0) {
+            throw new IllegalArgumentException("Maximum size %s must not be negative".formatted(maxSizeInBytes));
+        }
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.fractionLookup = fractionLookup;
+        this.pointListUtil = pointListUtil;
+    }
+
+    public boolean isEnabled() {
+        return maxSizeInBytes > DISABLED;
+    }
+
+    /**
+     * @return true when the cache is enabled and fractions should be looked up in the cumulative distances of the
+     * cached geometries with {@link #getFraction}, {@link #getVirtualNodeFraction} and {@link #getSubLineString}
+     */
+    public boolean isFractionLookupEnabled() {
+        return fractionLookup && isEnabled();
+    }
+
+    /**
+     * @return the geometry of the edge in the direction in which it is stored, regardless of the direction of the
+     * edge iterator state
+     */
+    public EdgeGeometry get(EdgeIteratorState edge) {
+        if (!isCached(edge)) {
+            return createEdgeGeometry(edge);
+        }
+        Entry entry = entries.get(edge.getEdge());
+        if (entry != null) {
+            hitCount.increment();
+            entry.used = true;
+            return entry.geometry;
+        }
+        missCount.increment();
+        EdgeGeometry geometry = createEdgeGeometry(edge);
+        if (entries.putIfAbsent(edge.getEdge(), new Entry(geometry)) == null
+                && sizeInBytes.addAndGet(geometry.estimateSizeInBytes()) > maxSizeInBytes) {
+            evict();
+        }
+        return geometry;
+    }
+
+    /**
+     * Same as {@code edge.fetchWayGeometry(FetchMode.ALL)}, but shared for cached edges.
+     *
+     * @return the immutable point list of the edge in the direction of the edge iterator state
+     */
+    public PointList getPointList(EdgeIteratorState edge) {
+        if (!isCached(edge)) {
+            return edge.fetchWayGeometry(FetchMode.ALL).makeImmutable();
+        }
+        PointList pointList = get(edge).getPointList();
+        return edge.get(EdgeIteratorState.REVERSE_STATE) ? pointList.clone(true).makeImmutable() : pointList;
+    }
+
+    /**
+     * Same as {@link PointListUtil#toLineString(PointList)} of the way geometry, but shared for cached edges.
+     * The line string must not be modified, and must be copied before it is returned to users of the library.
+     *
+     * @return the line string of the edge in the direction of the edge iterator state
+     */
+    public LineString getLineString(EdgeIteratorState edge) {
+        if (!isCached(edge)) {
+            return pointListUtil.toLineString(edge.fetchWayGeometry(FetchMode.ALL));
+        }
+        LineString lineString = get(edge).getLineString();
+        return edge.get(EdgeIteratorState.REVERSE_STATE) ? lineString.reverse() : lineString;
+    }
+
+    /**
+     * @return the fraction of the coordinate along the edge in the direction of the edge iterator state, see
+     * {@link EdgeGeometry#getFraction(Coordinate)}
+     */
+    public double getFraction(EdgeIteratorState edge, Coordinate coordinate) {
+        double fraction = get(edge).getFraction(coordinate);
+        return edge.get(EdgeIteratorState.REVERSE_STATE) ? 1 - fraction : fraction;
+    }
+
+    /**
+     * Same as {@link #getFraction(EdgeIteratorState, Coordinate)} for the virtual node at the start of the geometry of
+     * a virtual edge on the original edge, which is found on its segment without scanning the whole geometry.
+     *
+     * @param virtualEdgeGeometry the geometry of the virtual edge, starting at the virtual node
+     */
+    public double getVirtualNodeFraction(EdgeIteratorState originalEdge, PointList virtualEdgeGeometry) {
+        EdgeGeometry geometry = get(originalEdge);
+        Coordinate virtualNode = new Coordinate(virtualEdgeGeometry.getLon(0), virtualEdgeGeometry.getLat(0));
+        double fraction = geometry.getFraction(virtualNode, geometry.getVirtualNodeSegment(virtualEdgeGeometry));
+        return originalEdge.get(EdgeIteratorState.REVERSE_STATE) ? 1 - fraction : fraction;
+    }
+
+    /**
+     * @return the part of the edge from its start up to the fraction, in the direction of the edge iterator state
+     */
+    public LineString getSubLineString(EdgeIteratorState edge, double fraction) {
+        EdgeGeometry geometry = get(edge);
+        return edge.get(EdgeIteratorState.REVERSE_STATE)
+                ? geometry.getSubLineString(1 - fraction, 1).reverse()
+                : geometry.getSubLineString(0, fraction);
+    }
+
+    public Statistics getStatistics() {
+        return new Statistics(hitCount.sum(), missCount.sum(), evictionCount.sum(), entries.size(),
+                sizeInBytes.get(), maxSizeInBytes);
+    }
+
+    private boolean isCached(EdgeIteratorState edge) {
+        return isEnabled() && !(edge instanceof VirtualEdgeIteratorState);
+    }
+
+    private EdgeGeometry createEdgeGeometry(EdgeIteratorState edge) {
+        PointList pointList = edge.fetchWayGeometry(FetchMode.ALL);
+        if (edge.get(EdgeIteratorState.REVERSE_STATE)) {
+            pointList.reverse();
+        }
+        return new EdgeGeometry(pointList, pointListUtil.toLineString(pointList));
+    }
+
+    /**
+     * Only one thread evicts at a time. Other threads that exceed the budget in the meantime continue without waiting,
+     * because the running eviction also frees the space they added.
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            long targetSizeInBytes = (long) (maxSizeInBytes * EVICTION_TARGET);
+            for (int pass = 1; pass <= EVICTION_PASSES && sizeInBytes.get() > targetSizeInBytes; pass++) {
+                boolean lastPass = pass == EVICTION_PASSES;
+                Iterator<Entry> iterator = entries.values().iterator();
+                while (iterator.hasNext() && sizeInBytes.get() > targetSizeInBytes) {
+                    Entry entry = iterator.next();
+                    if (entry.used && !lastPass) {
+                        entry.used = false;
+                    } else {
+                        iterator.remove();
+                        sizeInBytes.addAndGet(-entry.geometry.estimateSizeInBytes());
+                        evictionCount.increment();
+                    }
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static final class Entry {
+
+        private final EdgeGeometry geometry;
+
+        private volatile boolean used;
+
+        private Entry(EdgeGeometry geometry) {
+            this.geometry = geometry;
+        }
+    }
+
+    /**
+     * @param hitCount number of lookups of cached geometries
+     * @param missCount number of lookups that created and cached a geometry
+     * @param evictionCount number of geometries removed to stay within the memory budget
+     * @param size number of cached geometries
+     * @param sizeInBytes estimated heap size of the cached geometries
+     * @param maxSizeInBytes memory budget of the cache
+     */
+    public record Statistics(long hitCount, long missCount, long evictionCount, int size, long sizeInBytes,
+                             long maxSizeInBytes) {
+
+        public double hitRate() {
+            long lookupCount = hitCount + missCount;
+            return lookupCount == 0 ? 0 : (double) hitCount / lookupCount;
+        }
+    }
+}
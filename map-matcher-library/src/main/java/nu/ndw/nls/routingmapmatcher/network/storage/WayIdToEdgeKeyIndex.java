@@ -0,0 +1,206 @@
+package nu.ndw.nls.routingmapmatcher.network.storage;
+
+import com.graphhopper.routing.ev.IntEncodedValue;
+import com.graphhopper.routing.util.AllEdgesIterator;
+import com.graphhopper.storage.BaseGraph;
+import com.graphhopper.storage.DAType;
+import com.graphhopper.storage.DataAccess;
+import com.graphhopper.storage.Directory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Primitive lookup from way id to edge key. The entries are stored as (wayId, edgeKey) int pairs sorted by way id in a
+ * GraphHopper {@link DataAccess}, next to the other graph files. A stored index can be memory-mapped when the network is
+ * loaded from disk, instead of being rebuilt from all edges.
+ * <br />
+ * The index is exposed as a read-only {@link java.util.Map} for compatibility; {@link #getEdgeKey(long)} avoids boxing.
+ */
+public final class WayIdToEdgeKeyIndex extends AbstractMap<Long, Integer> {
+
+    public static final String NAME = "way_id_to_edge_key";
+
+    public static final int NOT_FOUND = -1;
+
+    private static final int BYTES_PER_ENTRY = 2 * Integer.BYTES;
+
+    private static final int HEADER_SIZE = 0;
+
+    private static final int HEADER_EDGE_COUNT = Integer.BYTES;
+
+    private static final long UNSIGNED_INT_MASK = 0xFFFFFFFFL;
+
+    private final DataAccess dataAccess;
+
+    private final int size;
+
+    private WayIdToEdgeKeyIndex(DataAccess dataAccess) {
+        this.dataAccess = dataAccess;
+        this.size = dataAccess.getHeader(HEADER_SIZE);
+    }
+
+    /**
+     * Builds the index from all edges of the graph. When a way id occurs on more than one edge, the edge with the
+     * highest edge key wins, which matches the behaviour of filling a map while iterating all edges.
+     */
+    public static WayIdToEdgeKeyIndex build(Directory directory, BaseGraph baseGraph,
+            IntEncodedValue wayIdEncodedValue) {
+        long[] entries = new long[baseGraph.getEdges()];
+        int entryCount = 0;
+        AllEdgesIterator edgeIterator = baseGraph.getAllEdges();
+        while (edgeIterator.next()) {
+            entries[entryCount++] = toEntry(edgeIterator.get(wayIdEncodedValue), edgeIterator.getEdgeKey());
+        }
+        Arrays.sort(entries, 0, entryCount);
+
+        DataAccess dataAccess = directory.create(NAME);
+        dataAccess.create((long) entryCount * BYTES_PER_ENTRY);
+        int size = 0;
+        for (int index = 0; index < entryCount; index++) {
+            int wayId = getWayId(entries[index]);
+            boolean lastOfWayId = index == entryCount - 1 || getWayId(entries[index + 1]) != wayId;
+            if (lastOfWayId) {
+                long position = (long) size * BYTES_PER_ENTRY;
+                dataAccess.setInt(position, wayId);
+                dataAccess.setInt(position + Integer.BYTES, getEdgeKey(entries[index]));
+                size++;
+            }
+        }
+        dataAccess.setHeader(HEADER_SIZE, size);
+        dataAccess.setHeader(HEADER_EDGE_COUNT, baseGraph.getEdges());
+        return new WayIdToEdgeKeyIndex(dataAccess);
+    }
+
+    /**
+     * Memory-maps a previously stored index from the directory, if present.
+     *
+     * @throws IllegalStateException if the stored index cannot be read or does not belong to the graph
+     */
+    public static Optional<WayIdToEdgeKeyIndex> loadExisting(Directory directory, BaseGraph baseGraph) {
+        if (!Files.exists(Path.of(directory.getLocation(), NAME))) {
+            return Optional.empty();
+        }
+        DataAccess dataAccess = directory.create(NAME, DAType.MMAP_RO);
+        if (!dataAccess.loadExisting()) {
+            throw new IllegalStateException("Cannot load wayId to edgeKey index from " + directory.getLocation());
+        }
+        if (dataAccess.getHeader(HEADER_EDGE_COUNT) != baseGraph.getEdges()) {
+            dataAccess.close();
+            throw new IllegalStateException("WayId to edgeKey index in %s does not match the graph"
+                    .formatted(directory.getLocation()));
+        }
+        return Optional.of(new WayIdToEdgeKeyIndex(dataAccess));
+    }
+
+    /**
+     * @return the edge key for the way id, or {@link #NOT_FOUND} if the way id is not part of the network
+     */
+    public int getEdgeKey(long wayId) {
+        if (wayId < 0 || wayId > Integer.MAX_VALUE) {
+            return NOT_FOUND;
+        }
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleWayId = getWayIdAt(middle);
+            if (middleWayId < wayId) {
+                low = middle + 1;
+            } else if (middleWayId > wayId) {
+                high = middle - 1;
+            } else {
+                return getEdgeKeyAt(middle);
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    @Override
+    public Integer get(Object key) {
+        if (!(key instanceof Long wayId)) {
+            return null;
+        }
+        int edgeKey = getEdgeKey(wayId);
+        return edgeKey == NOT_FOUND ? null : edgeKey;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<Long, Integer>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Long, Integer>> iterator() {
+                return new Iterator<>() {
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < size;
+                    }
+
+                    @Override
+                    public Entry<Long, Integer> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<Long, Integer> entry = new SimpleImmutableEntry<>((long) getWayIdAt(index),
+                                getEdgeKeyAt(index));
+                        index++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    public void flush() {
+        dataAccess.flush();
+    }
+
+    public void close() {
+        if (!dataAccess.isClosed()) {
+            dataAccess.close();
+        }
+    }
+
+    private int getWayIdAt(int index) {
+        return dataAccess.getInt((long) index * BYTES_PER_ENTRY);
+    }
+
+    private int getEdgeKeyAt(int index) {
+        return dataAccess.getInt((long) index * BYTES_PER_ENTRY + Integer.BYTES);
+    }
+
+    private static long toEntry(int wayId, int edgeKey) {
+        return ((long) wayId << Integer.SIZE) | (edgeKey & UNSIGNED_INT_MASK);
+    }
+
+    private static int getWayId(long entry) {
+        return (int) (entry >>> Integer.SIZE);
+    }
+
+    private static int getEdgeKey(long entry) {
+        return (int) entry;
+    }
+}
@@ -0,0 +1,143 @@
+package nu.ndw.nls.routingmapmatcher.routing;
+
+import com.graphhopper.routing.Path;
+import com.graphhopper.routing.querygraph.QueryGraph;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.util.FiniteWeightFilter;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.CustomModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import lombok.extern.slf4j.Slf4j;
+import nu.ndw.nls.geometry.distance.FractionAndDistanceCalculator;
+import nu.ndw.nls.routingmapmatcher.domain.BaseMapMatcher;
+import nu.ndw.nls.routingmapmatcher.mappers.MatchedLinkMapper;
+import nu.ndw.nls.routingmapmatcher.mappers.PMapMapper;
+import nu.ndw.nls.routingmapmatcher.model.RouteStatus;
+import nu.ndw.nls.routingmapmatcher.model.routing.MatrixRoutingRequest;
+import nu.ndw.nls.routingmapmatcher.model.routing.MatrixRoutingResponse;
+import nu.ndw.nls.routingmapmatcher.model.routing.RoutingLegResponse;
+import nu.ndw.nls.routingmapmatcher.network.NetworkGraphHopper;
+import nu.ndw.nls.routingmapmatcher.routing.algorithm.OneToManyDijkstra;
+import nu.ndw.nls.routingmapmatcher.routing.algorithm.OneToManyDijkstra.Label;
+import org.locationtech.jts.geom.Point;
+
+/**
+ * Calculates the routes from many origins to many destinations. Every point is snapped once onto a single query graph,
+ * after which one {@link OneToManyDijkstra} search per origin settles all destinations.
+ */
+@Slf4j
+public class MatrixRouter extends BaseMapMatcher {
+
+    private static final double MILLISECONDS_PER_SECOND = 1000.0;
+
+    private static final int NOT_SNAPPED = -1;
+
+    private final PMapMapper pMapMapper;
+
+    private final RoutingLegResponseMapper routingLegResponseMapper;
+
+    public MatrixRouter(PMapMapper pMapMapper, NetworkGraphHopper network, MatchedLinkMapper matchedLinkMapper,
+            FractionAndDistanceCalculator fractionAndDistanceCalculator, String profileName, CustomModel customModel) {
+        super(profileName, network, customModel);
+        this.pMapMapper = pMapMapper;
+        this.routingLegResponseMapper = new RoutingLegResponseMapper(network.getEncodingManager(), matchedLinkMapper,
+                fractionAndDistanceCalculator, network.getEdgeGeometryCache());
+    }
+
+    public MatrixRoutingResponse route(MatrixRoutingRequest matrixRoutingRequest) {
+        try {
+            return calculateMatrix(matrixRoutingRequest);
+        } catch (RuntimeException e) {
+            log.debug("Matrix routing request failed: {}", e.getMessage(), e);
+            return MatrixRoutingResponse.builder().status(RouteStatus.EXCEPTION).build();
+        }
+    }
+
+    private MatrixRoutingResponse calculateMatrix(MatrixRoutingRequest matrixRoutingRequest) {
+        Weighting weighting = getNetwork().createWeighting(getProfile(),
+                pMapMapper.createPropertyMapWithOptionalCustomModel(getCustomModel()));
+        EdgeFilter snapFilter = new FiniteWeightFilter(weighting);
+        List<Snap> originSnaps = snap(matrixRoutingRequest.getOrigins(), snapFilter);
+        List<Snap> destinationSnaps = snap(matrixRoutingRequest.getDestinations(), snapFilter);
+
+        List<Snap> validSnaps = new ArrayList<>(originSnaps.size() + destinationSnaps.size());
+        originSnaps.stream().filter(Objects::nonNull).forEach(validSnaps::add);
+        destinationSnaps.stream().filter(Objects::nonNull).forEach(validSnaps::add);
+        // Creating the query graph assigns the virtual node of every snap as its closest node
+        QueryGraph queryGraph = QueryGraph.create(getNetwork().getBaseGraph(), validSnaps);
+        Weighting queryGraphWeighting = queryGraph.wrapWeighting(weighting);
+        TraversalMode traversalMode = weighting.hasTurnCosts() ? TraversalMode.EDGE_BASED : TraversalMode.NODE_BASED;
+
+        int originCount = originSnaps.size();
+        int destinationCount = destinationSnaps.size();
+        int[] destinationNodes = getClosestNodes(destinationSnaps);
+        int[] targets = Arrays.stream(destinationNodes).filter(node -> node != NOT_SNAPPED).toArray();
+        double[] distances = createUnreachableValues(originCount * destinationCount);
+        double[] durations = createUnreachableValues(originCount * destinationCount);
+        double[] weights = createUnreachableValues(originCount * destinationCount);
+        RoutingLegResponse[] legs = new RoutingLegResponse[matrixRoutingRequest.isIncludeLegs()
+                ? originCount * destinationCount : 0];
+
+        for (int originIndex = 0; originIndex < originCount; originIndex++) {
+            Snap originSnap = originSnaps.get(originIndex);
+            if (originSnap == null) {
+                continue;
+            }
+            OneToManyDijkstra dijkstra = new OneToManyDijkstra(queryGraph, queryGraphWeighting, traversalMode);
+            dijkstra.search(originSnap.getClosestNode(), targets);
+            for (int destinationIndex = 0; destinationIndex < destinationCount; destinationIndex++) {
+                int destinationNode = destinationNodes[destinationIndex];
+                Label label = destinationNode == NOT_SNAPPED ? null : dijkstra.getSettledLabel(destinationNode);
+                if (label == null) {
+                    continue;
+                }
+                int index = originIndex * destinationCount + destinationIndex;
+                distances[index] = label.getDistance();
+                durations[index] = label.getTime() / MILLISECONDS_PER_SECOND;
+                weights[index] = label.getWeight();
+                if (matrixRoutingRequest.isIncludeLegs()) {
+                    Path path = dijkstra.extractPath(destinationNode);
+                    legs[index] = path.getEdgeCount() == 0 ? null : routingLegResponseMapper.map(path);
+                }
+            }
+        }
+
+        return MatrixRoutingResponse.builder()
+                .originCount(originCount)
+                .destinationCount(destinationCount)
+                .distances(distances)
+                .durations(durations)
+                .weights(weights)
+                .legs(Arrays.asList(legs))
+                .build();
+    }
+
+    /**
+     * @return the snap per point, or null for points that cannot be snapped onto the network
+     */
+    private List<Snap> snap(List<Point> points, EdgeFilter snapFilter) {
+        List<Snap> snaps = new ArrayList<>(points.size());
+        for (Point point : points) {
+            Snap snap = getNetwork().getLocationIndex().findClosest(point.getY(), point.getX(), snapFilter);
+            snaps.add(snap.isValid() ? snap : null);
+        }
+        return snaps;
+    }
+
+    private static int[] getClosestNodes(List<Snap> snaps) {
+        return snaps.stream()
+                .mapToInt(snap -> snap == null ? NOT_SNAPPED : snap.getClosestNode())
+                .toArray();
+    }
+
+    private static double[] createUnreachableValues(int size) {
+        double[] values = new double[size];
+        Arrays.fill(values, Double.POSITIVE_INFINITY);
+        return values;
+    }
+}
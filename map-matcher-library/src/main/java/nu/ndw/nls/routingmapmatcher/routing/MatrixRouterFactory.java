@@ -0,0 +1,31 @@
+package nu.ndw.nls.routingmapmatcher.routing;
+
+import com.graphhopper.util.CustomModel;
+import lombok.RequiredArgsConstructor;
+import nu.ndw.nls.geometry.distance.FractionAndDistanceCalculator;
+import nu.ndw.nls.routingmapmatcher.domain.MapMatcherFactory;
+import nu.ndw.nls.routingmapmatcher.mappers.MatchedLinkMapper;
+import nu.ndw.nls.routingmapmatcher.mappers.PMapMapper;
+import nu.ndw.nls.routingmapmatcher.network.NetworkGraphHopper;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class MatrixRouterFactory implements MapMatcherFactory<MatrixRouter> {
+
+    private final PMapMapper pMapMapper;
+    private final MatchedLinkMapper matchedLinkMapper;
+    private final FractionAndDistanceCalculator fractionAndDistanceCalculator;
+
+    @Override
+    public MatrixRouter createMapMatcher(NetworkGraphHopper preInitializedNetwork, String profileName) {
+        return new MatrixRouter(pMapMapper, preInitializedNetwork, matchedLinkMapper, fractionAndDistanceCalculator,
+                profileName, null);
+    }
+
+    @Override
+    public MatrixRouter createMapMatcher(NetworkGraphHopper preInitializedNetwork, String profileName, CustomModel customModel) {
+        return new MatrixRouter(pMapMapper, preInitializedNetwork, matchedLinkMapper, fractionAndDistanceCalculator,
+                profileName, customModel);
+    }
+}
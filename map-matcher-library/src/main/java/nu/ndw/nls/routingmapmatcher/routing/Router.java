@@ -1,17 +1,13 @@
 package nu.ndw.nls.routingmapmatcher.routing;
 
 import com.graphhopper.GHRequest;
-import com.graphhopper.GHResponse;
 import com.graphhopper.ResponsePath;
 import com.graphhopper.routing.Path;
-import com.graphhopper.routing.QueryGraphExtractor;
-import com.graphhopper.routing.querygraph.QueryGraph;
-import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.PathRouter.RoutedPaths;
 import com.graphhopper.routing.util.FiniteWeightFilter;
 import com.graphhopper.routing.weighting.Weighting;
 import com.graphhopper.storage.index.Snap;
 import com.graphhopper.util.CustomModel;
-import com.graphhopper.util.EdgeIteratorState;
 import com.graphhopper.util.Helper;
 import com.graphhopper.util.PMap;
 import com.graphhopper.util.Parameters.CH;
@@ -19,13 +15,10 @@ import com.graphhopper.util.Parameters.Routing;
 import com.graphhopper.util.PathSimplification;
 import com.graphhopper.util.PointList;
 import com.graphhopper.util.RamerDouglasPeucker;
-import com.graphhopper.util.exceptions.ConnectionNotFoundException;
-import com.graphhopper.util.exceptions.PointOutOfBoundsException;
 import com.graphhopper.util.shapes.BBox;
 import com.graphhopper.util.shapes.GHPoint;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import nu.ndw.nls.geometry.distance.FractionAndDistanceCalculator;
 import nu.ndw.nls.geometry.factories.GeometryFactoryWgs84;
@@ -35,13 +28,11 @@ import nu.ndw.nls.routingmapmatcher.exception.RoutingRequestException;
 import nu.ndw.nls.routingmapmatcher.mappers.MatchedLinkMapper;
 import nu.ndw.nls.routingmapmatcher.mappers.PMapMapper;
 import nu.ndw.nls.routingmapmatcher.model.RouteStatus;
-import nu.ndw.nls.routingmapmatcher.model.linestring.MatchedEdgeLink;
 import nu.ndw.nls.routingmapmatcher.model.routing.RoutingLegResponse;
 import nu.ndw.nls.routingmapmatcher.model.routing.RoutingRequest;
 import nu.ndw.nls.routingmapmatcher.model.routing.RoutingResponse;
 import nu.ndw.nls.routingmapmatcher.model.routing.RoutingResponse.RoutingResponseBuilder;
 import nu.ndw.nls.routingmapmatcher.network.NetworkGraphHopper;
-import nu.ndw.nls.routingmapmatcher.util.PathUtil;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Point;
 
@@ -54,11 +45,9 @@ public class Router extends BaseMapMatcher {
 
     private static final double MILLISECONDS_PER_SECOND = 1000.0;
 
-    private final MatchedLinkMapper matchedLinkMapper;
-
     private final GeometryFactoryWgs84 geometryFactoryWgs84;
 
-    private final FractionAndDistanceCalculator fractionAndDistanceCalculator;
+    private final RoutingLegResponseMapper routingLegResponseMapper;
 
     private final PMapMapper pMapMapper;
 
@@ -67,9 +56,9 @@ public class Router extends BaseMapMatcher {
             CustomModel customModel) {
         super(profileName, network, customModel);
         this.pMapMapper = pMapMapper;
-        this.matchedLinkMapper = matchedLinkMapper;
         this.geometryFactoryWgs84 = geometryFactoryWgs84;
-        this.fractionAndDistanceCalculator = fractionAndDistanceCalculator;
+        this.routingLegResponseMapper = new RoutingLegResponseMapper(network.getEncodingManager(), matchedLinkMapper,
+                fractionAndDistanceCalculator, network.getEdgeGeometryCache());
         // This configuration is global for the routing network and is probably not thread safe.
         // To be able to configure simplification per request, it's safer to disable GraphHopper-internal simplification
         // and perform it in our own response mapping code below.
@@ -78,6 +67,7 @@ public class Router extends BaseMapMatcher {
 
     public RoutingResponse route(RoutingRequest routingRequest) {
         try {
+            ensurePointsAreInBounds(routingRequest.getWayPoints());
             List<Point> points =
                     routingRequest.isSnapToNodes() ? snapPointsToNodes(routingRequest.getWayPoints()) : routingRequest.getWayPoints();
             GHRequest graphHopperRequest = getGraphHopperRequest(points);
@@ -95,18 +85,12 @@ public class Router extends BaseMapMatcher {
         }
     }
 
-    private static boolean hasAllPointOutOfBoundsOrConnectionErrors(List<Throwable> errors) {
-        return errors.stream()
-                .allMatch(error -> error instanceof PointOutOfBoundsException || error instanceof ConnectionNotFoundException);
-    }
-
     private static List<GHPoint> getGHPointsFromPoints(List<Point> points) {
         return points.stream().map(point -> new GHPoint(point.getY(), point.getX())).toList();
     }
 
     private List<Point> snapPointsToNodes(List<Point> points) {
 
-        ensurePointsAreInBounds(points);
         List<Point> snappedPoints = points.stream().map(this::snapPointToNode).distinct().toList();
         if (snappedPoints.size() != points.size()) {
             throw new RoutingRequestException("Invalid routing request: Points are snapped to the same node");
@@ -140,14 +124,53 @@ public class Router extends BaseMapMatcher {
 
     private RoutingResponse getRoutingResponse(GHRequest ghRequest, boolean simplify) throws RoutingRequestException, RoutingException {
 
-        GHResponse ghResponse = getNetwork().route(ghRequest);
-        ensureResponseHasNoErrors(ghResponse);
-        ResponsePath responsePath = ghResponse.getBest();
+        RoutedPaths routedPaths = getNetwork().calcRoutedPaths(ghRequest);
+        ResponsePath responsePath = createResponsePath(routedPaths);
         ensurePathsAreNotEmpty(responsePath);
-        List<RoutingLegResponse> routingLegResponses = getRoutingLegResponses(ghRequest);
+        List<RoutingLegResponse> routingLegResponses = getRoutingLegResponses(routedPaths.paths());
         return createRoutingResponse(responsePath, simplify).legs(routingLegResponses).build();
     }
 
+    /**
+     * Merges the paths of all legs into a single response path, the same way GraphHopper does when routing, so the
+     * response and its legs are based on a single routing solve.
+     */
+    private static ResponsePath createResponsePath(RoutedPaths routedPaths) throws RoutingRequestException {
+        PointList waypoints = new PointList(routedPaths.snaps().size(), INCLUDE_ELEVATION);
+        for (Snap snap : routedPaths.snaps()) {
+            waypoints.add(snap.getSnappedPoint());
+        }
+
+        List<Path> paths = routedPaths.paths();
+        PointList points = new PointList();
+        double distance = 0;
+        long time = 0;
+        double weight = 0;
+        for (int pathIndex = 0; pathIndex < paths.size(); pathIndex++) {
+            Path path = paths.get(pathIndex);
+            if (!path.isFound()) {
+                throw new RoutingRequestException("Invalid routing request: Connection between locations not found");
+            }
+            PointList pathPoints = path.calcPoints();
+            // The last point of a leg is the first point of the next leg
+            if (pathIndex + 1 < paths.size()) {
+                pathPoints.removeLastPoint();
+            }
+            points.add(pathPoints);
+            distance += path.getDistance();
+            time += path.getTime();
+            weight += path.getWeight();
+        }
+
+        ResponsePath responsePath = new ResponsePath();
+        responsePath.setWaypoints(waypoints);
+        responsePath.setPoints(points);
+        responsePath.setDistance(distance);
+        responsePath.setTime(time);
+        responsePath.setRouteWeight(weight);
+        return responsePath;
+    }
+
     private GHRequest getGraphHopperRequest(List<Point> points) {
         GHRequest ghRequest = new GHRequest(getGHPointsFromPoints(points));
         ghRequest.setProfile(getProfile().getName());
@@ -159,22 +182,11 @@ public class Router extends BaseMapMatcher {
         return ghRequest;
     }
 
-    private List<RoutingLegResponse> getRoutingLegResponses(GHRequest ghRequest) throws RoutingException {
-        EncodingManager encodingManager = getNetwork().getEncodingManager();
+    private List<RoutingLegResponse> getRoutingLegResponses(List<Path> paths) throws RoutingException {
         List<RoutingLegResponse> routingLegResponse = new ArrayList<>();
 
-        for (Path path : getNetwork().calcPaths(ghRequest)) {
-            List<EdgeIteratorState> edges = path.calcEdges();
-            if (edges.isEmpty()) {
-                throw new RoutingException("Unexpected: path has no edges");
-            }
-            QueryGraph queryGraph = QueryGraphExtractor.extractQueryGraph(path);
-            double startFraction = PathUtil.determineStartLinkFraction(edges.getFirst(), queryGraph, fractionAndDistanceCalculator);
-            double endFraction = PathUtil.determineEndLinkFraction(edges.getLast(), queryGraph, fractionAndDistanceCalculator);
-            List<MatchedEdgeLink> matchedEdgeLinks = PathUtil.determineMatchedLinks(encodingManager, fractionAndDistanceCalculator, edges);
-
-            routingLegResponse.add(
-                    RoutingLegResponse.builder().matchedLinks(matchedLinkMapper.map(matchedEdgeLinks, startFraction, endFraction)).build());
+        for (Path path : paths) {
+            routingLegResponse.add(routingLegResponseMapper.map(path));
         }
 
         return routingLegResponse;
@@ -190,18 +202,6 @@ public class Router extends BaseMapMatcher {
         }
     }
 
-    private static void ensureResponseHasNoErrors(GHResponse ghResponse) throws RoutingRequestException, RoutingException {
-
-        if (ghResponse.hasErrors()) {
-            String errors = ghResponse.getErrors().stream().map(Throwable::getMessage).collect(Collectors.joining(", "));
-            if (hasAllPointOutOfBoundsOrConnectionErrors(ghResponse.getErrors())) {
-                throw new RoutingRequestException("Invalid routing request: %s".formatted(errors));
-            } else {
-                throw new RoutingException("Routing request failed: %s".formatted(errors));
-            }
-        }
-    }
-
     private RoutingResponseBuilder createRoutingResponse(ResponsePath path, boolean simplify) {
 
         PointList points = simplify ? PathSimplification.simplify(path, new RamerDouglasPeucker(), false) : path.getPoints();
@@ -0,0 +1,44 @@
+package nu.ndw.nls.routingmapmatcher.routing;
+
+import com.graphhopper.routing.Path;
+import com.graphhopper.routing.QueryGraphExtractor;
+import com.graphhopper.routing.querygraph.QueryGraph;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.util.EdgeIteratorState;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import nu.ndw.nls.geometry.distance.FractionAndDistanceCalculator;
+import nu.ndw.nls.routingmapmatcher.exception.RoutingException;
+import nu.ndw.nls.routingmapmatcher.mappers.MatchedLinkMapper;
+import nu.ndw.nls.routingmapmatcher.model.linestring.MatchedEdgeLink;
+import nu.ndw.nls.routingmapmatcher.model.routing.RoutingLegResponse;
+import nu.ndw.nls.routingmapmatcher.network.storage.EdgeGeometryCache;
+import nu.ndw.nls.routingmapmatcher.util.PathUtil;
+
+/**
+ * Maps a path that was calculated on a query graph to the matched links of a {@link RoutingLegResponse}.
+ */
+@RequiredArgsConstructor
+class RoutingLegResponseMapper {
+
+    private final EncodingManager encodingManager;
+    private final MatchedLinkMapper matchedLinkMapper;
+    private final FractionAndDistanceCalculator fractionAndDistanceCalculator;
+    private final EdgeGeometryCache edgeGeometryCache;
+
+    RoutingLegResponse map(Path path) throws RoutingException {
+        List<EdgeIteratorState> edges = path.calcEdges();
+        if (edges.isEmpty()) {
+            throw new RoutingException("Unexpected: path has no edges");
+        }
+        QueryGraph queryGraph = QueryGraphExtractor.extractQueryGraph(path);
+        double startFraction = PathUtil.determineStartLinkFraction(edges.getFirst(), queryGraph,
+                fractionAndDistanceCalculator, edgeGeometryCache);
+        double endFraction = PathUtil.determineEndLinkFraction(edges.getLast(), queryGraph,
+                fractionAndDistanceCalculator, edgeGeometryCache);
+        List<MatchedEdgeLink> matchedEdgeLinks = PathUtil.determineMatchedLinks(encodingManager,
+                fractionAndDistanceCalculator, edgeGeometryCache, edges);
+
+        return RoutingLegResponse.builder().matchedLinks(matchedLinkMapper.map(matchedEdgeLinks, startFraction, endFraction)).build();
+    }
+}
@@ -0,0 +1,220 @@
+package nu.ndw.nls.routingmapmatcher.routing.algorithm;
+
+import com.carrotsearch.hppc.IntHashSet;
+import com.carrotsearch.hppc.IntObjectHashMap;
+import com.graphhopper.coll.GHIntObjectHashMap;
+import com.graphhopper.routing.AbstractRoutingAlgorithm;
+import com.graphhopper.routing.Path;
+import com.graphhopper.routing.PathExtractor;
+import com.graphhopper.routing.SPTEntry;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.util.EdgeIterator;
+import com.graphhopper.util.GHUtility;
+import java.util.PriorityQueue;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Dijkstra search from one node to many target nodes in a single pass. The search stops as soon as all targets are
+ * settled, when the queue is exhausted or when the optional weight or distance limit is reached. Afterwards the
+ * weight, distance and time to every settled target are available without extracting paths, and the path to a target
+ * can be extracted on demand.
+ * <br />
+ * Like the router of the GraphHopper map matching module, the search can also leave the start node on a given edge and
+ * arrive at targets on given edges, so a route cannot turn around on a candidate in the middle of an edge.
+ * <br />
+ * Like the GraphHopper routing algorithms, an instance can only be used for a single search.
+ */
+public class OneToManyDijkstra extends AbstractRoutingAlgorithm {
+
+    private static final int INITIAL_CAPACITY = 1000;
+
+    private final IntObjectHashMap<Label> labelsByTraversalId;
+
+    private final IntObjectHashMap<Label> settledLabelsByNode;
+
+    private final IntObjectHashMap<Label> settledLabelsByInEdgeKey;
+
+    private final PriorityQueue<Label> queue;
+
+    /**
+     * Labels with a higher weight are not explored.
+     */
+    @Setter
+    private double maxWeight = Double.POSITIVE_INFINITY;
+
+    /**
+     * Labels with a longer distance in meters are not explored. The distance only bounds the search space: like any
+     * label, the path to a node is the one with the lowest weight, not the shortest one. This is exact when the weight
+     * is proportional to the distance. With other weightings a node with a lower weight but longer path can take the
+     * place of a shorter path, so a target can be missed or reached on another path than an unlimited search would
+     * find, even though a path within the distance exists. Callers must therefore treat the limit as a cut-off and not
+     * as a constraint on the shortest path.
+     */
+    @Setter
+    private double maxDistance = Double.POSITIVE_INFINITY;
+
+    @Getter
+    private int visitedNodes;
+
+    public OneToManyDijkstra(Graph graph, Weighting weighting, TraversalMode traversalMode) {
+        super(graph, weighting, traversalMode);
+        this.labelsByTraversalId = new GHIntObjectHashMap<>(INITIAL_CAPACITY);
+        this.settledLabelsByNode = new GHIntObjectHashMap<>(INITIAL_CAPACITY);
+        this.settledLabelsByInEdgeKey = new GHIntObjectHashMap<>();
+        this.queue = new PriorityQueue<>(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public Path calcPath(int from, int to) {
+        search(from, new int[]{to});
+        return extractPath(to);
+    }
+
+    /**
+     * Searches from the node until all target nodes are settled or no more nodes can be reached within the limits.
+     *
+     * @param from    the node to search from
+     * @param targets the nodes to search to, duplicates are allowed
+     */
+    public void search(int from, int[] targets) {
+        search(from, EdgeIterator.ANY_EDGE, targets, null);
+    }
+
+    /**
+     * Searches from the node until all targets are settled on the edges they must be arrived on, or no more nodes can
+     * be reached within the limits. Arriving on a given edge requires edge-based traversal, in which a node is settled
+     * once for every edge it is arrived on.
+     *
+     * @param from          the node to search from
+     * @param fromOutEdge   the edge to leave the from node on, or {@link EdgeIterator#ANY_EDGE}
+     * @param targets       the nodes to search to, duplicates are allowed
+     * @param targetInEdges per target the adjacent edge to arrive on, or {@link EdgeIterator#ANY_EDGE}; null to
+     *                      arrive on any edge at all targets
+     */
+    public void search(int from, int fromOutEdge, int[] targets, int[] targetInEdges) {
+        checkAlreadyRun();
+        IntHashSet remainingTargets = new IntHashSet(targets.length);
+        IntHashSet targetInEdgeIds = new IntHashSet();
+        IntHashSet remainingInEdgeKeys = new IntHashSet();
+        for (int index = 0; index < targets.length; index++) {
+            int targetInEdge = targetInEdges == null ? EdgeIterator.ANY_EDGE : targetInEdges[index];
+            if (targetInEdge == EdgeIterator.ANY_EDGE) {
+                remainingTargets.add(targets[index]);
+            } else if (!traversalMode.isEdgeBased()) {
+                throw new IllegalArgumentException("Arriving on edge " + targetInEdge
+                        + " requires edge-based traversal");
+            } else {
+                targetInEdgeIds.add(targetInEdge);
+                remainingInEdgeKeys.add(getEdgeKey(targetInEdge, targets[index]));
+            }
+        }
+
+        Label fromLabel = new Label(EdgeIterator.NO_EDGE, from, 0, 0, 0, null);
+        queue.add(fromLabel);
+        if (traversalMode == TraversalMode.NODE_BASED) {
+            labelsByTraversalId.put(from, fromLabel);
+        }
+        while (!queue.isEmpty() && !(remainingTargets.isEmpty() && remainingInEdgeKeys.isEmpty())
+                && !isMaxVisitedNodesExceeded()) {
+            Label currentLabel = queue.poll();
+            if (currentLabel.isDeleted()) {
+                continue;
+            }
+            visitedNodes++;
+            // With edge-based traversal a node can be polled more than once, the first time has the lowest weight
+            if (!settledLabelsByNode.containsKey(currentLabel.adjNode)) {
+                settledLabelsByNode.put(currentLabel.adjNode, currentLabel);
+                remainingTargets.remove(currentLabel.adjNode);
+            }
+            if (targetInEdgeIds.contains(currentLabel.edge)) {
+                int inEdgeKey = getEdgeKey(currentLabel.edge, currentLabel.adjNode);
+                if (remainingInEdgeKeys.remove(inEdgeKey)) {
+                    settledLabelsByInEdgeKey.put(inEdgeKey, currentLabel);
+                }
+            }
+
+            EdgeIterator edgeIterator = edgeExplorer.setBaseNode(currentLabel.adjNode);
+            while (edgeIterator.next()) {
+                if (!accept(edgeIterator, currentLabel.edge) || (currentLabel == fromLabel
+                        && fromOutEdge != EdgeIterator.ANY_EDGE && edgeIterator.getEdge() != fromOutEdge)) {
+                    continue;
+                }
+                double nextWeight = GHUtility.calcWeightWithTurnWeight(weighting, edgeIterator, false,
+                        currentLabel.edge) + currentLabel.weight;
+                double nextDistance = edgeIterator.getDistance() + currentLabel.getDistance();
+                if (Double.isInfinite(nextWeight) || nextWeight > maxWeight || nextDistance > maxDistance) {
+                    continue;
+                }
+                int traversalId = traversalMode.createTraversalId(edgeIterator, false);
+                Label label = labelsByTraversalId.get(traversalId);
+                if (label != null && label.weight <= nextWeight) {
+                    continue;
+                }
+                if (label != null) {
+                    label.setDeleted();
+                }
+                long nextTime = GHUtility.calcMillisWithTurnMillis(weighting, edgeIterator, false, currentLabel.edge)
+                        + currentLabel.getTime();
+                label = new Label(edgeIterator.getEdge(), edgeIterator.getAdjNode(), nextWeight, nextDistance,
+                        nextTime, currentLabel);
+                labelsByTraversalId.put(traversalId, label);
+                queue.add(label);
+            }
+        }
+    }
+
+    private int getEdgeKey(int edge, int adjNode) {
+        return graph.getEdgeIteratorState(edge, adjNode).getEdgeKey();
+    }
+
+    /**
+     * @return the label with the lowest weight at the node, or null if the node was not reached
+     */
+    public Label getSettledLabel(int node) {
+        return settledLabelsByNode.get(node);
+    }
+
+    /**
+     * @return the label with the lowest weight that arrives at the node on the edge, or null if the node was not
+     * reached on the edge or the edge was not a target in edge of the search
+     */
+    public Label getSettledLabel(int node, int inEdge) {
+        return inEdge == EdgeIterator.ANY_EDGE ? getSettledLabel(node)
+                : settledLabelsByInEdgeKey.get(getEdgeKey(inEdge, node));
+    }
+
+    /**
+     * @return the path to the node, which is not found if the node was not reached
+     */
+    public Path extractPath(int node) {
+        return PathExtractor.extractPath(graph, weighting, getSettledLabel(node));
+    }
+
+    @Override
+    public String getName() {
+        return "one_to_many_dijkstra";
+    }
+
+    /**
+     * Shortest path tree entry that also tracks the distance and time of the path.
+     */
+    @Getter
+    public static class Label extends SPTEntry {
+
+        private final double distance;
+        private final long time;
+
+        public Label(int edge, int adjNode, double weight, double distance, long time, Label parent) {
+            super(edge, adjNode, weight, parent);
+            this.distance = distance;
+            this.time = time;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+    }
+}
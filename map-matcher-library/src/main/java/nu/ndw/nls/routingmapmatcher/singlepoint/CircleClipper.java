@@ -0,0 +1,99 @@
+package nu.ndw.nls.routingmapmatcher.singlepoint;
+
+import com.graphhopper.util.DistanceCalcEarth;
+import com.graphhopper.util.PointList;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+
+/**
+ * Clips edge geometries against a circle around the input point. The segments are projected on a local plane in
+ * meters around the centre, so every segment can be clipped by solving a quadratic equation instead of running a
+ * polygon overlay. Vertices inside the circle are kept as they are, and the entry and exit points are interpolated on
+ * the segments.
+ */
+@RequiredArgsConstructor
+class CircleClipper {
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(DistanceCalcEarth.R);
+    private static final int MINIMUM_LINESTRING_SIZE = 2;
+
+    private final GeometryFactory geometryFactory;
+
+    /**
+     * @return the parts of the geometry within the circle as a {@link LineString} or a
+     * {@link org.locationtech.jts.geom.MultiLineString}, or an empty geometry when the geometry does not cross the
+     * circle
+     */
+    Geometry clip(PointList pointList, Coordinate centre, double radius) {
+        double metersPerDegreeLon = METERS_PER_DEGREE * Math.cos(Math.toRadians(centre.y));
+        double radiusSquared = radius * radius;
+        List<LineString> parts = new ArrayList<>();
+        List<Coordinate> part = new ArrayList<>();
+        for (int i = 1; i < pointList.size(); i++) {
+            double startX = (pointList.getLon(i - 1) - centre.x) * metersPerDegreeLon;
+            double startY = (pointList.getLat(i - 1) - centre.y) * METERS_PER_DEGREE;
+            double deltaX = (pointList.getLon(i) - pointList.getLon(i - 1)) * metersPerDegreeLon;
+            double deltaY = (pointList.getLat(i) - pointList.getLat(i - 1)) * METERS_PER_DEGREE;
+            double a = deltaX * deltaX + deltaY * deltaY;
+            double b = 2 * (startX * deltaX + startY * deltaY);
+            double c = startX * startX + startY * startY - radiusSquared;
+            double discriminant = b * b - 4 * a * c;
+            if (a == 0 || discriminant <= 0) {
+                // Zero length segments do not change the clipped geometry, and a tangent segment only touches it
+                if (a != 0 || c > 0) {
+                    addPart(parts, part);
+                }
+                continue;
+            }
+            double root = Math.sqrt(discriminant);
+            double entry = Math.max(0, (-b - root) / (2 * a));
+            double exit = Math.min(1, (-b + root) / (2 * a));
+            if (entry >= exit) {
+                addPart(parts, part);
+                continue;
+            }
+            if (entry > 0) {
+                addPart(parts, part);
+            }
+            if (part.isEmpty()) {
+                part.add(interpolate(pointList, i, entry));
+            }
+            part.add(interpolate(pointList, i, exit));
+            if (exit < 1) {
+                addPart(parts, part);
+            }
+        }
+        addPart(parts, part);
+        if (parts.isEmpty()) {
+            return geometryFactory.createLineString();
+        }
+        if (parts.size() == 1) {
+            return parts.getFirst();
+        }
+        return geometryFactory.createMultiLineString(parts.toArray(LineString[]::new));
+    }
+
+    private Coordinate interpolate(PointList pointList, int end, double fraction) {
+        if (fraction == 0) {
+            return new Coordinate(pointList.getLon(end - 1), pointList.getLat(end - 1));
+        }
+        if (fraction == 1) {
+            return new Coordinate(pointList.getLon(end), pointList.getLat(end));
+        }
+        double lon = pointList.getLon(end - 1) + fraction * (pointList.getLon(end) - pointList.getLon(end - 1));
+        double lat = pointList.getLat(end - 1) + fraction * (pointList.getLat(end) - pointList.getLat(end - 1));
+        return new Coordinate(lon, lat);
+    }
+
+    private void addPart(List<LineString> parts, List<Coordinate> part) {
+        if (part.size() >= MINIMUM_LINESTRING_SIZE) {
+            parts.add(geometryFactory.createLineString(part.toArray(Coordinate[]::new)));
+        }
+        part.clear();
+    }
+}
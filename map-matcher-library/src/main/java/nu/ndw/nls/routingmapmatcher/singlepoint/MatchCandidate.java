@@ -0,0 +1,20 @@
+package nu.ndw.nls.routingmapmatcher.singlepoint;
+
+import com.graphhopper.util.PointList;
+import nu.ndw.nls.routingmapmatcher.model.EdgeIteratorTravelDirection;
+import nu.ndw.nls.routingmapmatcher.network.storage.EdgeGeometry;
+import org.locationtech.jts.geom.LineString;
+
+/**
+ * Candidate edge of a single point match. The edge attributes are read from the graph once per candidate and reused by
+ * the clipping and scoring stages.
+ *
+ * @param geometry the edge geometry in the original link direction
+ * @param originalGeometry the edge geometry in the original link direction as line string
+ * @param originalEdgeGeometry the edge geometry from the edge geometry cache, which is stored in the original link
+ * direction
+ */
+record MatchCandidate(PointList geometry, LineString originalGeometry, EdgeGeometry originalEdgeGeometry,
+                      int matchedLinkId, int matchedReversedLinkId, EdgeIteratorTravelDirection travelDirection) {
+
+}
@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.ToDoubleFunction;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import nu.ndw.nls.geometry.bearing.BearingCalculator;
@@ -16,6 +17,7 @@ import nu.ndw.nls.routingmapmatcher.model.EdgeIteratorTravelDirection;
 import nu.ndw.nls.routingmapmatcher.model.MatchedQueryResult;
 import nu.ndw.nls.routingmapmatcher.model.singlepoint.BearingFilter;
 import nu.ndw.nls.routingmapmatcher.model.singlepoint.MatchedPoint;
+import nu.ndw.nls.routingmapmatcher.network.storage.EdgeGeometry;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.LineString;
@@ -36,7 +38,7 @@ public class PointMatchingService {
         Coordinate inputCoordinate = matchedQueryResult.getInputPoint().getCoordinate();
         BearingFilter bearingFilter = matchedQueryResult.getBearingFilter();
         double cutoffDistance = matchedQueryResult.getCutoffDistance();
-        LineString originalGeometry = matchedQueryResult.getOriginalGeometry();
+        ToDoubleFunction<Coordinate> fractionFunction = createFractionFunction(matchedQueryResult);
         EdgeIteratorTravelDirection travelDirection = matchedQueryResult.getTravelDirection();
         int matchedLinkId = matchedQueryResult.getMatchedLinkId();
         int matchedReversedLinkId = matchedQueryResult.getMatchedReversedLinkId();
@@ -49,7 +51,7 @@ public class PointMatchingService {
                                                         inputCoordinate,
                                                         matchedLinkId,
                                                         matchedReversedLinkId,
-                                                        originalGeometry,
+                                                        fractionFunction,
                                                         false,
                                                         lineString,
                                                         bearingFilter,
@@ -66,7 +68,7 @@ public class PointMatchingService {
                                                             inputCoordinate,
                                                             matchedLinkId,
                                                             matchedReversedLinkId,
-                                                            originalGeometry,
+                                                            fractionFunction,
                                                             true,
                                                             lineString,
                                                             bearingFilter,
@@ -81,13 +83,26 @@ public class PointMatchingService {
         return matchedPoints;
     }
 
+    /**
+     * Fractions are looked up in the cumulative distances of the cached edge geometry when fraction lookup is enabled,
+     * and calculated over the full original geometry otherwise.
+     */
+    private ToDoubleFunction<Coordinate> createFractionFunction(MatchedQueryResult matchedQueryResult) {
+        EdgeGeometry originalEdgeGeometry = matchedQueryResult.getOriginalEdgeGeometry();
+        if (originalEdgeGeometry != null) {
+            return originalEdgeGeometry::getFraction;
+        }
+        LineString originalGeometry = matchedQueryResult.getOriginalGeometry();
+        return coordinate -> fractionAndDistanceCalculator.calculateFractionAndDistance(originalGeometry, coordinate)
+                .getFraction();
+    }
+
     private MatchedPoint createMatchedPoint(Coordinate input, int matchedLinkId, int matchedReversedLinkId,
-            LineString originalGeometry,
+            ToDoubleFunction<Coordinate> fractionFunction,
             boolean reversed, LineString aggregatedGeometry, BearingFilter bearingFilter, double cutoffDistance) {
         ClosestPointResult projectionResult = closestPointService.closestPoint(
                 Arrays.asList(aggregatedGeometry.getCoordinates()), input);
-        double fraction = fractionAndDistanceCalculator
-                .calculateFractionAndDistance(originalGeometry, projectionResult.point()).getFraction();
+        double fraction = fractionFunction.applyAsDouble(projectionResult.point());
 
         return MatchedPoint
                 .builder()
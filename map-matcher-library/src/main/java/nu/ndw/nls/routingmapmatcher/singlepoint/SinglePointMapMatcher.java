@@ -3,9 +3,13 @@ package nu.ndw.nls.routingmapmatcher.singlepoint;
 import static nu.ndw.nls.routingmapmatcher.model.singlepoint.MatchFilter.ALL;
 import static nu.ndw.nls.routingmapmatcher.network.model.Link.REVERSED_LINK_ID;
 import static nu.ndw.nls.routingmapmatcher.network.model.Link.WAY_ID_KEY;
+import static nu.ndw.nls.routingmapmatcher.util.MatchUtil.getEdges;
 import static nu.ndw.nls.routingmapmatcher.util.MatchUtil.getQueryResults;
+import static nu.ndw.nls.routingmapmatcher.util.MatchUtil.snapToEdge;
 import static nu.ndw.nls.routingmapmatcher.util.PathUtil.determineEdgeDirection;
 
+import com.graphhopper.routing.ev.IntEncodedValue;
+import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.routing.util.EncodingManager;
 import com.graphhopper.routing.util.FiniteWeightFilter;
 import com.graphhopper.routing.weighting.Weighting;
@@ -15,9 +19,17 @@ import com.graphhopper.storage.index.LocationIndexTree;
 import com.graphhopper.storage.index.Snap;
 import com.graphhopper.util.CustomModel;
 import com.graphhopper.util.EdgeIteratorState;
-import com.graphhopper.util.FetchMode;
+import com.graphhopper.util.PointList;
+import com.graphhopper.util.shapes.BBox;
+import com.graphhopper.util.shapes.Circle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
+import lombok.RequiredArgsConstructor;
 import nu.ndw.nls.geometry.bearing.BearingCalculator;
 import nu.ndw.nls.geometry.distance.FractionAndDistanceCalculator;
 import nu.ndw.nls.geometry.factories.GeometryFactoryWgs84;
@@ -29,7 +41,6 @@ import nu.ndw.nls.routingmapmatcher.isochrone.IsochroneService;
 import nu.ndw.nls.routingmapmatcher.isochrone.algorithm.ShortestPathTreeFactory;
 import nu.ndw.nls.routingmapmatcher.isochrone.mappers.IsochroneMatchMapper;
 import nu.ndw.nls.routingmapmatcher.mappers.PMapMapper;
-import nu.ndw.nls.routingmapmatcher.model.EdgeIteratorTravelDirection;
 import nu.ndw.nls.routingmapmatcher.model.IsochroneMatch;
 import nu.ndw.nls.routingmapmatcher.model.MatchStatus;
 import nu.ndw.nls.routingmapmatcher.model.MatchedQueryResult;
@@ -38,7 +49,8 @@ import nu.ndw.nls.routingmapmatcher.model.singlepoint.SinglePointLocation;
 import nu.ndw.nls.routingmapmatcher.model.singlepoint.SinglePointMatch;
 import nu.ndw.nls.routingmapmatcher.model.singlepoint.SinglePointMatch.CandidateMatch;
 import nu.ndw.nls.routingmapmatcher.network.NetworkGraphHopper;
-import nu.ndw.nls.routingmapmatcher.util.PointListUtil;
+import nu.ndw.nls.routingmapmatcher.network.storage.EdgeGeometry;
+import nu.ndw.nls.routingmapmatcher.network.storage.EdgeGeometryCache;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.LineString;
 import org.locationtech.jts.geom.Point;
@@ -49,14 +61,22 @@ public class SinglePointMapMatcher extends BaseMapMatcher implements MapMatcher<
     private static final int RADIUS_TO_DIAMETER = 2;
     private static final double DISTANCE_THRESHOLD = 0.1;
     private static final double RELIABILITY_THRESHOLD = 0.5;
+    /**
+     * Grid cell size for batch matching, about 110 by 70 meters in the Netherlands. Small cells keep the shared index
+     * query close to the cutoff distances of the individual locations in a cell.
+     */
+    private static final double CELL_SIZE_IN_DEGREES = 0.001;
 
     private final PMapMapper pMapMapper;
     private final LocationIndexTree locationIndexTree;
     private final IsochroneService isochroneService;
     private final PointMatchingService pointMatchingService;
+    private final CircleClipper circleClipper;
+    private final IntEncodedValue wayIdEncodedValue;
+    private final IntEncodedValue reversedLinkIdEncodedValue;
     private final DiameterToPolygonMapper diameterToPolygonMapper;
     private final EdgeIteratorStateReverseExtractor edgeIteratorStateReverseExtractor;
-    private final PointListUtil pointListUtil;
+    private final EdgeGeometryCache edgeGeometryCache;
 
 
     @SuppressWarnings("java:S107")
@@ -65,8 +85,7 @@ public class SinglePointMapMatcher extends BaseMapMatcher implements MapMatcher<
             DiameterToPolygonMapper diameterToPolygonMapper,
             BearingCalculator bearingCalculator, GeometryFactoryWgs84 geometryFactoryWgs84,
             FractionAndDistanceCalculator fractionAndDistanceCalculator, NetworkGraphHopper network,
-            String profileName, ClosestPointService closestPointService,
-            PointListUtil pointListUtil, CustomModel customModel) {
+            String profileName, ClosestPointService closestPointService, CustomModel customModel) {
         super(profileName, network, customModel);
         this.pMapMapper = pMapMapper;
         this.diameterToPolygonMapper = diameterToPolygonMapper;
@@ -77,28 +96,107 @@ public class SinglePointMapMatcher extends BaseMapMatcher implements MapMatcher<
         Weighting shortestWeightingForIsochrone = network.createWeighting(getProfile(),
                 pMapMapper.mapCustomModelOrDefaultToShortestWeighting(getCustomModel()));
         this.edgeIteratorStateReverseExtractor = new EdgeIteratorStateReverseExtractor();
-        this.pointListUtil = pointListUtil;
+        this.edgeGeometryCache = network.getEdgeGeometryCache();
         this.isochroneService = new IsochroneService(encodingManager, baseGraph,
                 new IsochroneMatchMapper(encodingManager, edgeIteratorStateReverseExtractor,
-                        pointListUtil,
+                        edgeGeometryCache,
                         fractionAndDistanceCalculator),
                 new ShortestPathTreeFactory(shortestWeightingForIsochrone, network.getEncodingManager()),
                 this.locationIndexTree, getProfile());
         this.pointMatchingService = new PointMatchingService(geometryFactoryWgs84, bearingCalculator,
                 fractionAndDistanceCalculator, closestPointService);
+        this.circleClipper = new CircleClipper(geometryFactoryWgs84);
+        this.wayIdEncodedValue = encodingManager.getIntEncodedValue(WAY_ID_KEY);
+        this.reversedLinkIdEncodedValue = encodingManager.getIntEncodedValue(REVERSED_LINK_ID);
 
     }
 
     public SinglePointMatch match(SinglePointLocation singlePointLocation) {
         Objects.requireNonNull(singlePointLocation);
+        Point inputPoint = singlePointLocation.getPoint();
+        double inputRadius = singlePointLocation.getCutoffDistance();
+        List<MatchCandidate> candidates = getQueryResults(getNetwork(), inputPoint, inputRadius, locationIndexTree,
+                createEdgeFilter(), this::createMatchCandidate);
+        return createMatch(singlePointLocation, candidates);
+    }
+
+    /**
+     * Matches all locations, sharing the work for locations near each other. The locations are grouped in grid cells,
+     * and the edges around all locations of a cell are queried from the location index, fetched and filtered once.
+     * Every location is then snapped to the shared edges within its own cutoff distance, and an edge that is matched
+     * by several locations is turned into a match candidate only once.
+     *
+     * @return the matches in the order of the locations
+     */
+    public List<SinglePointMatch> matchBatch(Collection<SinglePointLocation> singlePointLocations) {
+        List<SinglePointLocation> locations = List.copyOf(singlePointLocations);
+        EdgeFilter edgeFilter = createEdgeFilter();
+        SinglePointMatch[] matches = new SinglePointMatch[locations.size()];
+        for (List<Integer> cell : groupByCell(locations)) {
+            List<CellEdge> cellEdges = getCellEdges(locations, cell, edgeFilter);
+            for (int index : cell) {
+                SinglePointLocation singlePointLocation = locations.get(index);
+                matches[index] = createMatch(singlePointLocation, getCandidates(singlePointLocation, cellEdges));
+            }
+        }
+        return List.of(matches);
+    }
+
+    private EdgeFilter createEdgeFilter() {
         Weighting matchWeighting = getNetwork().createWeighting(getProfile(),
                 pMapMapper.createPropertyMapWithOptionalCustomModel(getCustomModel()));
+        return new FiniteWeightFilter(matchWeighting);
+    }
+
+    private static Collection<List<Integer>> groupByCell(List<SinglePointLocation> locations) {
+        Map<Long, List<Integer>> cells = new LinkedHashMap<>();
+        for (int index = 0; index < locations.size(); index++) {
+            Point point = locations.get(index).getPoint();
+            long row = (long) Math.floor(point.getY() / CELL_SIZE_IN_DEGREES);
+            long column = (long) Math.floor(point.getX() / CELL_SIZE_IN_DEGREES);
+            cells.computeIfAbsent((row << Integer.SIZE) | (column & 0xFFFFFFFFL), cell -> new ArrayList<>()).add(index);
+        }
+        return cells.values();
+    }
+
+    /**
+     * @return the edges that pass the edge filter within the bounds of the cutoff circles of all locations in the cell
+     */
+    private List<CellEdge> getCellEdges(List<SinglePointLocation> locations, List<Integer> cell,
+            EdgeFilter edgeFilter) {
+        BBox bounds = BBox.createInverse(false);
+        for (int index : cell) {
+            BBox circleBounds = createCircle(locations.get(index)).getBounds();
+            bounds.update(circleBounds.minLat, circleBounds.minLon);
+            bounds.update(circleBounds.maxLat, circleBounds.maxLon);
+        }
+        return getEdges(getNetwork(), bounds, locationIndexTree, edgeFilter, CellEdge::new);
+    }
+
+    /**
+     * Same as the candidates of {@link nu.ndw.nls.routingmapmatcher.util.MatchUtil#getQueryResults}, but from the
+     * shared edges of the cell.
+     */
+    private List<MatchCandidate> getCandidates(SinglePointLocation singlePointLocation, List<CellEdge> cellEdges) {
+        Circle circle = createCircle(singlePointLocation);
+        List<MatchCandidate> candidates = new ArrayList<>();
+        for (CellEdge cellEdge : cellEdges) {
+            if (circle.intersects(cellEdge.geometry.getPointList())) {
+                snapToEdge(locationIndexTree, singlePointLocation.getPoint(),
+                        singlePointLocation.getCutoffDistance(), cellEdge.edge)
+                        .ifPresent(snap -> candidates.add(cellEdge.getMatchCandidate(snap)));
+            }
+        }
+        return candidates;
+    }
+
+    private static Circle createCircle(SinglePointLocation singlePointLocation) {
         Point inputPoint = singlePointLocation.getPoint();
-        double inputRadius = singlePointLocation.getCutoffDistance();
-        List<Snap> queryResults = getQueryResults(getNetwork(), inputPoint, inputRadius, locationIndexTree,
-                new FiniteWeightFilter(matchWeighting));
-        Polygon circle = diameterToPolygonMapper.mapToPolygonWgs84(inputPoint, RADIUS_TO_DIAMETER * inputRadius);
-        List<MatchedPoint> matches = getMatchedPoints(singlePointLocation, queryResults, circle);
+        return new Circle(inputPoint.getY(), inputPoint.getX(), singlePointLocation.getCutoffDistance());
+    }
+
+    private SinglePointMatch createMatch(SinglePointLocation singlePointLocation, List<MatchCandidate> candidates) {
+        List<MatchedPoint> matches = getMatchedPoints(singlePointLocation, candidates);
         if (matches.isEmpty()) {
             return createFailedMatch(singlePointLocation);
         }
@@ -137,12 +235,11 @@ public class SinglePointMapMatcher extends BaseMapMatcher implements MapMatcher<
                 .build();
     }
 
-    private List<MatchedPoint> getMatchedPoints(SinglePointLocation singlePointLocation, List<Snap> queryResults,
-            Polygon circle) {
-        List<MatchedPoint> sorted = queryResults.stream()
-                .map(Snap::getClosestEdge)
-                .filter(e -> intersects(circle, e))
-                .flatMap(e -> calculateMatches(e, circle, singlePointLocation)
+    private List<MatchedPoint> getMatchedPoints(SinglePointLocation singlePointLocation,
+            List<MatchCandidate> candidates) {
+        Function<MatchCandidate, Geometry> circleClipFunction = createCircleClipFunction(singlePointLocation);
+        List<MatchedPoint> sorted = candidates.stream()
+                .flatMap(candidate -> calculateMatches(candidate, circleClipFunction, singlePointLocation)
                         .stream())
                 .sorted(singlePointLocation.getMatchSort().getSort().thenComparing(MatchedPoint::getLinkIdInDirection))
                 .toList();
@@ -172,41 +269,90 @@ public class SinglePointMapMatcher extends BaseMapMatcher implements MapMatcher<
                 .toList();
     }
 
-    private boolean intersects(Polygon circle, EdgeIteratorState edge) {
-        LineString wayGeometry = pointListUtil.toLineString(edge.fetchWayGeometry(FetchMode.ALL));
-        return circle.intersects(wayGeometry);
+    /**
+     * Creates a function that returns the part of an edge geometry within the cutoff distance of the input point, or an
+     * empty geometry when the edge does not cross the cutoff circle.
+     */
+    private Function<MatchCandidate, Geometry> createCircleClipFunction(SinglePointLocation singlePointLocation) {
+        Point inputPoint = singlePointLocation.getPoint();
+        double inputRadius = singlePointLocation.getCutoffDistance();
+        return switch (singlePointLocation.getCircleClipping()) {
+            case POLYGON -> {
+                Polygon circle = diameterToPolygonMapper.mapToPolygonWgs84(inputPoint,
+                        RADIUS_TO_DIAMETER * inputRadius);
+                yield candidate -> intersection(circle, candidate.originalGeometry());
+            }
+            case ANALYTIC -> candidate -> circleClipper.clip(candidate.geometry(), inputPoint.getCoordinate(),
+                    inputRadius);
+        };
+    }
+
+    private static Geometry intersection(Polygon circle, LineString wayGeometry) {
+        if (!circle.intersects(wayGeometry)) {
+            return wayGeometry.getFactory().createLineString();
+        }
+        return circle.intersection(wayGeometry);
     }
 
-    private List<MatchedPoint> calculateMatches(EdgeIteratorState edge, Polygon circle,
-            SinglePointLocation singlePointLocation) {
-        LineString wayGeometry = pointListUtil.toLineString(edge.fetchWayGeometry(FetchMode.ALL));
+    private MatchCandidate createMatchCandidate(Snap snap, EdgeGeometry edgeGeometry) {
+        EdgeIteratorState edge = snap.getClosestEdge();
         /*
            The geometry direction of the edge iterator wayGeometry does not necessarily reflect the direction of a
            street or the original encoded geometry direction. It is just the traversal direction within the graph.
            GraphHopper sometimes reverses the geometry direction with respect to the original direction. To fix this,
            an internal attribute of the edge iterator state is used, indicating it has done so or not.
         */
-        LineString originalGeometry =
-                edgeIteratorStateReverseExtractor.hasReversed(edge) ? wayGeometry.reverse() : wayGeometry;
-        Geometry cutoffGeometry = circle.intersection(originalGeometry);
-        EdgeIteratorTravelDirection travelDirection = determineEdgeDirection(edge, getNetwork().getEncodingManager(),
-                getProfile().getName());
-        int matchedLinkId = edge.get(getNetwork().getEncodingManager().getIntEncodedValue(WAY_ID_KEY));
-        int matchedReversedLinkId = edge.get(getNetwork().getEncodingManager().getIntEncodedValue(REVERSED_LINK_ID));
+        boolean reversed = edgeIteratorStateReverseExtractor.hasReversed(edge);
+        // The point list and line string of the edge geometry are shared, so only the reversed ones are copies
+        PointList originalGeometry = reversed ? edgeGeometry.getPointList().clone(true) : edgeGeometry.getPointList();
+        LineString originalLineString = reversed ? edgeGeometry.getLineString().reverse()
+                : edgeGeometry.getLineString();
+        return new MatchCandidate(originalGeometry, originalLineString, edgeGeometry,
+                edge.get(wayIdEncodedValue), edge.get(reversedLinkIdEncodedValue),
+                determineEdgeDirection(edge, getNetwork().getEncodingManager(), getProfile().getName()));
+    }
+
+    private List<MatchedPoint> calculateMatches(MatchCandidate candidate,
+            Function<MatchCandidate, Geometry> circleClipFunction, SinglePointLocation singlePointLocation) {
+        Geometry cutoffGeometry = circleClipFunction.apply(candidate);
+        if (cutoffGeometry.isEmpty()) {
+            return List.of();
+        }
         var matchedQueryResult = MatchedQueryResult.builder()
-                .matchedLinkId(matchedLinkId)
-                .matchedReversedLinkId(matchedReversedLinkId)
+                .matchedLinkId(candidate.matchedLinkId())
+                .matchedReversedLinkId(candidate.matchedReversedLinkId())
                 .inputPoint(singlePointLocation.getPoint())
                 .cutoffDistance(singlePointLocation.getCutoffDistance())
                 .bearingFilter(singlePointLocation.getBearingFilter())
-                .travelDirection(travelDirection)
-                .originalGeometry(originalGeometry)
+                .travelDirection(candidate.travelDirection())
+                .originalGeometry(candidate.originalGeometry())
+                .originalEdgeGeometry(edgeGeometryCache.isFractionLookupEnabled()
+                        ? candidate.originalEdgeGeometry() : null)
                 .cutoffGeometry(cutoffGeometry)
                 .build();
 
         return pointMatchingService.calculateMatches(matchedQueryResult);
     }
 
+    /**
+     * Edge of a batch cell with its geometry. The match candidate only depends on the edge, so it is created once for
+     * the first location that snaps to the edge and shared with the other locations of the cell.
+     */
+    @RequiredArgsConstructor
+    private final class CellEdge {
+
+        private final EdgeIteratorState edge;
+        private final EdgeGeometry geometry;
+        private MatchCandidate matchCandidate;
+
+        private MatchCandidate getMatchCandidate(Snap snap) {
+            if (matchCandidate == null) {
+                matchCandidate = createMatchCandidate(snap, geometry);
+            }
+            return matchCandidate;
+        }
+    }
+
     private SinglePointMatch createFailedMatch(SinglePointLocation singlePointLocation) {
         return SinglePointMatch.builder()
                 .id(singlePointLocation.getId())
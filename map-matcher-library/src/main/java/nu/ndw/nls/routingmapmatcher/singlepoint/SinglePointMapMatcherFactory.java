@@ -10,7 +10,6 @@ import nu.ndw.nls.routingmapmatcher.domain.MapMatcherFactory;
 import nu.ndw.nls.routingmapmatcher.geometry.services.ClosestPointService;
 import nu.ndw.nls.routingmapmatcher.mappers.PMapMapper;
 import nu.ndw.nls.routingmapmatcher.network.NetworkGraphHopper;
-import nu.ndw.nls.routingmapmatcher.util.PointListUtil;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -23,19 +22,18 @@ public class SinglePointMapMatcherFactory implements MapMatcherFactory<SinglePoi
     private final GeometryFactoryWgs84 geometryFactoryWgs84;
     private final FractionAndDistanceCalculator fractionAndDistanceCalculator;
     private final ClosestPointService closestPointService;
-    private final PointListUtil pointListUtil;
 
     @Override
     public SinglePointMapMatcher createMapMatcher(NetworkGraphHopper preInitializedNetwork, String profileName) {
 
         return new SinglePointMapMatcher(pMapMapper, diameterToPolygonMapper, bearingCalculator, geometryFactoryWgs84,
-                fractionAndDistanceCalculator, preInitializedNetwork, profileName, closestPointService, pointListUtil, null);
+                fractionAndDistanceCalculator, preInitializedNetwork, profileName, closestPointService, null);
     }
 
     @Override
     public SinglePointMapMatcher createMapMatcher(NetworkGraphHopper preInitializedNetwork, String profileName, CustomModel customModel) {
         return new SinglePointMapMatcher(pMapMapper, diameterToPolygonMapper, bearingCalculator, geometryFactoryWgs84,
-                fractionAndDistanceCalculator, preInitializedNetwork, profileName, closestPointService, pointListUtil, customModel);
+                fractionAndDistanceCalculator, preInitializedNetwork, profileName, closestPointService, customModel);
     }
 
 }
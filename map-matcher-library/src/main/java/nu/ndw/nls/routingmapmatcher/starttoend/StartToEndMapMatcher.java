@@ -32,7 +32,9 @@ import nu.ndw.nls.routingmapmatcher.mappers.PMapMapper;
 import nu.ndw.nls.routingmapmatcher.model.MatchStatus;
 import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringLocation;
 import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringMatch;
+import nu.ndw.nls.routingmapmatcher.model.linestring.StartToEndSearchMode;
 import nu.ndw.nls.routingmapmatcher.network.NetworkGraphHopper;
+import nu.ndw.nls.routingmapmatcher.routing.algorithm.OneToManyDijkstra;
 import nu.ndw.nls.routingmapmatcher.util.LineStringMatchUtil;
 import nu.ndw.nls.routingmapmatcher.util.LineStringScoreUtil;
 import nu.ndw.nls.routingmapmatcher.util.PointListUtil;
@@ -46,6 +48,12 @@ public class StartToEndMapMatcher extends BaseMapMatcher implements MapMatcher<L
      */
     private static final double MAXIMUM_CANDIDATE_DISTANCE_IN_METERS = 20.0;
 
+    /**
+     * One-to-many searches do not explore paths longer than this multiple of the input geometry length, plus the
+     * candidate distance at both ends. Such paths would hardly get a score anyway.
+     */
+    private static final double ONE_TO_MANY_MAXIMUM_PATH_LENGTH_FACTOR = 5.0;
+
     private final BaseGraph routingGraph;
     private final LocationIndexTree locationIndexTree;
     private final RoutingAlgorithmFactory algorithmFactory;
@@ -53,6 +61,7 @@ public class StartToEndMapMatcher extends BaseMapMatcher implements MapMatcher<L
     private final LineStringMatchUtil lineStringMatchUtil;
     private final LineStringScoreUtil lineStringScoreUtil;
     private final Weighting weighting;
+    private final FractionAndDistanceCalculator fractionAndDistanceCalculator;
 
     public StartToEndMapMatcher(PMapMapper pMapMapper, NetworkGraphHopper network, String profileName,
             FractionAndDistanceCalculator fractionAndDistanceCalculator, PointListUtil pointListUtil,
@@ -68,6 +77,7 @@ public class StartToEndMapMatcher extends BaseMapMatcher implements MapMatcher<L
                 pointListUtil, pMapMapper.mapCustomModelOrDefaultToShortestWeighting(customModel));
         this.lineStringScoreUtil = new LineStringScoreUtil(pointListUtil, lineStringReliabilityCalculator);
         this.weighting = network.createWeighting(getProfile(), pMapMapper.mapCustomModelOrDefaultToShortestWeighting(customModel));
+        this.fractionAndDistanceCalculator = fractionAndDistanceCalculator;
     }
 
     public LineStringMatch match(LineStringLocation lineStringLocation) {
@@ -117,23 +127,93 @@ public class StartToEndMapMatcher extends BaseMapMatcher implements MapMatcher<L
 
     private List<Candidate> createCandidatePaths(QueryGraph queryGraph, List<Snap> startCandidates,
             List<Snap> endCandidates, LineStringLocation lineStringLocation) {
+        StartToEndSearchMode searchMode = Objects.requireNonNull(lineStringLocation.getStartToEndSearchMode());
+        double maximumPathLength = getMaximumPathLength(lineStringLocation, searchMode);
+        return switch (searchMode) {
+            case PER_CANDIDATE_PAIR -> createCandidatePathsPerPair(queryGraph, startCandidates, endCandidates,
+                    lineStringLocation, maximumPathLength);
+            case ONE_TO_MANY -> createCandidatePathsOneToMany(queryGraph, startCandidates, endCandidates,
+                    lineStringLocation, maximumPathLength);
+        };
+    }
+
+    /**
+     * @return the maximum path length in meters, or infinity when paths between candidate pairs are not limited
+     */
+    private double getMaximumPathLength(LineStringLocation lineStringLocation, StartToEndSearchMode searchMode) {
+        Double maxPathLengthFactor = lineStringLocation.getMaxPathLengthFactor();
+        if (maxPathLengthFactor == null) {
+            if (searchMode == StartToEndSearchMode.PER_CANDIDATE_PAIR) {
+                return Double.POSITIVE_INFINITY;
+            }
+            maxPathLengthFactor = ONE_TO_MANY_MAXIMUM_PATH_LENGTH_FACTOR;
+        }
+        return fractionAndDistanceCalculator.calculateLengthInMeters(lineStringLocation.getGeometry())
+                * maxPathLengthFactor + 2 * MAXIMUM_CANDIDATE_DISTANCE_IN_METERS;
+    }
+
+    private List<Candidate> createCandidatePathsPerPair(QueryGraph queryGraph, List<Snap> startCandidates,
+            List<Snap> endCandidates, LineStringLocation lineStringLocation, double maximumPathLength) {
         List<Candidate> candidatePaths = new ArrayList<>(startCandidates.size() * endCandidates.size());
         for (Snap startCandidate : startCandidates) {
             for (Snap endCandidate : endCandidates) {
                 int fromNode = startCandidate.getClosestNode();
                 int toNode = endCandidate.getClosestNode();
-                RoutingAlgorithm routingAlgorithm = algorithmFactory.createAlgo(queryGraph, weighting,
-                        algorithmOptions);
-                Path path = routingAlgorithm.calcPath(fromNode, toNode);
-                if (path.isFound() && path.getEdgeCount() > 0) {
-                    double score = lineStringScoreUtil.calculateCandidatePathScore(path, lineStringLocation);
-                    candidatePaths.add(new Candidate(path, score));
-                }
+                Path path = calculatePath(queryGraph, fromNode, toNode, maximumPathLength);
+                addCandidateIfFound(candidatePaths, path, lineStringLocation, maximumPathLength);
+            }
+        }
+        return candidatePaths;
+    }
+
+    /**
+     * A bidirectional search cannot be limited by distance, so limited paths are calculated with a unidirectional
+     * search that stops as soon as the maximum path length is passed.
+     */
+    private Path calculatePath(QueryGraph queryGraph, int fromNode, int toNode, double maximumPathLength) {
+        if (Double.isInfinite(maximumPathLength)) {
+            RoutingAlgorithm routingAlgorithm = algorithmFactory.createAlgo(queryGraph, weighting, algorithmOptions);
+            return routingAlgorithm.calcPath(fromNode, toNode);
+        }
+        OneToManyDijkstra oneToManyDijkstra = new OneToManyDijkstra(queryGraph, queryGraph.wrapWeighting(weighting),
+                algorithmOptions.getTraversalMode());
+        oneToManyDijkstra.setMaxDistance(maximumPathLength);
+        return oneToManyDijkstra.calcPath(fromNode, toNode);
+    }
+
+    /**
+     * Searches once per start candidate and extracts the paths to all end candidates from that single search.
+     */
+    private List<Candidate> createCandidatePathsOneToMany(QueryGraph queryGraph, List<Snap> startCandidates,
+            List<Snap> endCandidates, LineStringLocation lineStringLocation, double maximumPathLength) {
+        int[] endNodes = endCandidates.stream().mapToInt(Snap::getClosestNode).toArray();
+        Weighting queryGraphWeighting = queryGraph.wrapWeighting(weighting);
+        List<Candidate> candidatePaths = new ArrayList<>(startCandidates.size() * endCandidates.size());
+        for (Snap startCandidate : startCandidates) {
+            OneToManyDijkstra oneToManyDijkstra = new OneToManyDijkstra(queryGraph, queryGraphWeighting,
+                    algorithmOptions.getTraversalMode());
+            oneToManyDijkstra.setMaxDistance(maximumPathLength);
+            oneToManyDijkstra.search(startCandidate.getClosestNode(), endNodes);
+            for (int endNode : endNodes) {
+                addCandidateIfFound(candidatePaths, oneToManyDijkstra.extractPath(endNode), lineStringLocation,
+                        maximumPathLength);
             }
         }
         return candidatePaths;
     }
 
+    /**
+     * Paths longer than the maximum path length are skipped before their points are calculated.
+     */
+    private void addCandidateIfFound(List<Candidate> candidatePaths, Path path,
+            LineStringLocation lineStringLocation, double maximumPathLength) {
+        if (!path.isFound() || path.getEdgeCount() == 0 || path.getDistance() > maximumPathLength) {
+            return;
+        }
+        double score = lineStringScoreUtil.calculateCandidatePathScore(path, lineStringLocation);
+        candidatePaths.add(new Candidate(path, score));
+    }
+
     private record Candidate(Path path, double score) {
 
     }
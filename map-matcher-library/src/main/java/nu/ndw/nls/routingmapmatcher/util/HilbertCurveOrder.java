@@ -0,0 +1,75 @@
+package nu.ndw.nls.routingmapmatcher.util;
+
+import java.util.Arrays;
+
+/**
+ * Orders coordinates along a Hilbert curve over their bounding box, so coordinates that are close in the order are
+ * also close in space.
+ */
+public final class HilbertCurveOrder {
+
+    /**
+     * The curve is laid over a grid of 2^15 by 2^15 cells, so the curve index and the coordinate index both fit in a
+     * single long.
+     */
+    private static final int GRID_SIZE = 1 << 15;
+    private static final int INDEX_BITS = 32;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    private HilbertCurveOrder() {
+    }
+
+    /**
+     * @param xs the x coordinates
+     * @param ys the y coordinates, with the same length as the x coordinates
+     * @return the indices of the coordinates in the order of the Hilbert curve
+     */
+    public static int[] sort(double[] xs, double[] ys) {
+        double minX = Arrays.stream(xs).min().orElse(0);
+        double maxX = Arrays.stream(xs).max().orElse(0);
+        double minY = Arrays.stream(ys).min().orElse(0);
+        double maxY = Arrays.stream(ys).max().orElse(0);
+
+        long[] keys = new long[xs.length];
+        for (int index = 0; index < xs.length; index++) {
+            long curveIndex = calculateCurveIndex(toGrid(xs[index], minX, maxX), toGrid(ys[index], minY, maxY));
+            keys[index] = curveIndex << INDEX_BITS | index;
+        }
+        Arrays.sort(keys);
+
+        int[] order = new int[keys.length];
+        for (int index = 0; index < keys.length; index++) {
+            order[index] = (int) (keys[index] & INDEX_MASK);
+        }
+        return order;
+    }
+
+    private static int toGrid(double value, double min, double max) {
+        return max > min ? (int) ((value - min) / (max - min) * (GRID_SIZE - 1)) : 0;
+    }
+
+    /**
+     * @return the distance along the Hilbert curve of the grid cell
+     */
+    private static long calculateCurveIndex(int gridX, int gridY) {
+        int x = gridX;
+        int y = gridY;
+        long curveIndex = 0;
+        for (int step = GRID_SIZE / 2; step > 0; step /= 2) {
+            int rx = (x & step) > 0 ? 1 : 0;
+            int ry = (y & step) > 0 ? 1 : 0;
+            curveIndex += (long) step * step * ((3 * rx) ^ ry);
+            // Rotate the quadrant, so the curve within it has the right orientation
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = GRID_SIZE - 1 - x;
+                    y = GRID_SIZE - 1 - y;
+                }
+                int swap = x;
+                x = y;
+                y = swap;
+            }
+        }
+        return curveIndex;
+    }
+}
@@ -26,6 +26,7 @@ import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringLocation;
 import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringMatch;
 import nu.ndw.nls.routingmapmatcher.model.linestring.MatchedLink;
 import nu.ndw.nls.routingmapmatcher.network.NetworkGraphHopper;
+import nu.ndw.nls.routingmapmatcher.network.storage.EdgeGeometryCache;
 import org.locationtech.jts.geom.LineString;
 import org.locationtech.jts.geom.Point;
 
@@ -40,6 +41,7 @@ public class LineStringMatchUtil {
     private final PointListUtil pointListUtil;
     private final MatchedLinkMapper matchedLinkMapper = new MatchedLinkMapper();
     private final FractionAndDistanceCalculator fractionAndDistanceCalculator;
+    private final EdgeGeometryCache edgeGeometryCache;
 
     public LineStringMatchUtil(NetworkGraphHopper networkGraphHopper, Profile profile,
             FractionAndDistanceCalculator fractionAndDistanceCalculator, PointListUtil pointListUtil, PMap requestHints) {
@@ -48,10 +50,12 @@ public class LineStringMatchUtil {
 
         this.encodingManager = networkGraphHopper.getEncodingManager();
         this.fractionAndDistanceCalculator = fractionAndDistanceCalculator;
+        this.edgeGeometryCache = networkGraphHopper.getEdgeGeometryCache();
         EdgeIteratorStateReverseExtractor edgeIteratorStateReverseExtractor = new EdgeIteratorStateReverseExtractor();
         this.pointListUtil = pointListUtil;
         IsochroneMatchMapper isochroneMatchMapper = new IsochroneMatchMapper(encodingManager,
-                edgeIteratorStateReverseExtractor, pointListUtil, fractionAndDistanceCalculator);
+                edgeIteratorStateReverseExtractor, networkGraphHopper.getEdgeGeometryCache(),
+                fractionAndDistanceCalculator);
         this.isochroneService = new IsochroneService(encodingManager,
                 networkGraphHopper.getBaseGraph(),
                 isochroneMatchMapper,
@@ -73,12 +77,13 @@ public class LineStringMatchUtil {
         EdgeIteratorState endEdge = edges.getLast();
 
         double startLinkFraction = PathUtil.determineStartLinkFraction(startEdge, queryGraph,
-                fractionAndDistanceCalculator);
+                fractionAndDistanceCalculator, edgeGeometryCache);
         double endLinkFraction = PathUtil.determineEndLinkFraction(endEdge, queryGraph,
-                fractionAndDistanceCalculator);
+                fractionAndDistanceCalculator, edgeGeometryCache);
 
         List<MatchedLink> matchedLinks = matchedLinkMapper.map(
-                PathUtil.determineMatchedLinks(encodingManager, fractionAndDistanceCalculator, edges),
+                PathUtil.determineMatchedLinks(encodingManager, fractionAndDistanceCalculator, edgeGeometryCache,
+                        edges),
                 startLinkFraction, endLinkFraction);
 
         Point startPoint = pointListUtil.toLineString(startEdge.fetchWayGeometry(FetchMode.ALL)).getStartPoint();
@@ -6,11 +6,15 @@ import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.storage.index.LocationIndexTree;
 import com.graphhopper.storage.index.Snap;
 import com.graphhopper.util.EdgeIteratorState;
-import com.graphhopper.util.FetchMode;
+import com.graphhopper.util.PointList;
+import com.graphhopper.util.shapes.BBox;
 import com.graphhopper.util.shapes.Circle;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
 import nu.ndw.nls.routingmapmatcher.network.NetworkGraphHopper;
+import nu.ndw.nls.routingmapmatcher.network.storage.EdgeGeometry;
 import org.locationtech.jts.geom.Point;
 
 public final class MatchUtil {
@@ -26,39 +30,97 @@ public final class MatchUtil {
         double latitude = point.getY();
         double longitude = point.getX();
         Circle circle = new Circle(latitude, longitude, radius);
-        List<Snap> queryResults = new ArrayList<>();
+        List<Snap> candidates = new ArrayList<>();
 
         locationIndexTree.query(circle.getBounds(), edgeId -> {
             EdgeIteratorState edge = network.getBaseGraph()
                     .getEdgeIteratorStateForKey(edgeId * KEY_FACTOR);
-            var geometry = edge.fetchWayGeometry(FetchMode.ALL).makeImmutable();
+            PointList geometry = network.getEdgeGeometryCache().getPointList(edge);
             if (circle.intersects(geometry) && edgeFilter.accept(edge)) {
-                var snap = new Snap(latitude, longitude);
-                locationIndexTree
-                        .traverseEdge(latitude, longitude, edge,
-                                (node, normedDist, wayIndex, pos) -> {
-                                    if (normedDist < snap.getQueryDistance()) {
-                                        snap.setQueryDistance(normedDist);
-                                        snap.setClosestNode(node);
-                                        snap.setClosestEdge(edge.detach(false));
-                                        snap.setWayIndex(wayIndex);
-                                        snap.setSnappedPosition(pos);
-                                    }
-                                });
-                if (snap.isValid()) {
-                    snap.setQueryDistance(DIST_PLANE.calcDenormalizedDist(snap.getQueryDistance()));
-                    snap.calcSnappedPoint(DIST_PLANE);
-                    queryResults.add(snap);
-                }
+                snapToEdge(locationIndexTree, point, radius, edge).ifPresent(candidates::add);
             }
         });
-        List<Snap> candidates = new ArrayList<>();
-        for (Snap queryResult : queryResults) {
-            if (queryResult.getQueryDistance() <= radius) {
-                candidates.add(queryResult);
+
+        return candidates;
+    }
+
+    /**
+     * Same as {@link #getQueryResults(NetworkGraphHopper, Point, double, LocationIndexTree, EdgeFilter)}, but maps
+     * every snap together with the geometry of its closest edge from the edge geometry cache, so callers do not need to
+     * fetch it again. The closest edges are in the direction in which they are stored, the same as the geometry.
+     */
+    public static <T> List<T> getQueryResults(NetworkGraphHopper network, Point point, double radius,
+            LocationIndexTree locationIndexTree, EdgeFilter edgeFilter,
+            BiFunction<Snap, EdgeGeometry, T> snapMapper) {
+        double latitude = point.getY();
+        double longitude = point.getX();
+        Circle circle = new Circle(latitude, longitude, radius);
+        List<T> candidates = new ArrayList<>();
+
+        locationIndexTree.query(circle.getBounds(), edgeId -> {
+            EdgeIteratorState edge = network.getBaseGraph()
+                    .getEdgeIteratorStateForKey(edgeId * KEY_FACTOR);
+            EdgeGeometry edgeGeometry = network.getEdgeGeometryCache().get(edge);
+            if (circle.intersects(edgeGeometry.getPointList()) && edgeFilter.accept(edge)) {
+                snapToEdge(locationIndexTree, point, radius, edge)
+                        .ifPresent(snap -> candidates.add(snapMapper.apply(snap, edgeGeometry)));
             }
-        }
+        });
 
         return candidates;
     }
+
+    /**
+     * Queries the edges within the bounds once, so several points near each other can be snapped to the same edges
+     * with {@link #snapToEdge(LocationIndexTree, Point, double, EdgeIteratorState)}.
+     *
+     * @return the edges that pass the edge filter, mapped together with their geometry from the edge geometry cache,
+     * both in the direction in which the edge is stored
+     */
+    public static <T> List<T> getEdges(NetworkGraphHopper network, BBox bounds, LocationIndexTree locationIndexTree,
+            EdgeFilter edgeFilter, BiFunction<EdgeIteratorState, EdgeGeometry, T> edgeMapper) {
+        List<T> edges = new ArrayList<>();
+        locationIndexTree.query(bounds, edgeId -> {
+            EdgeIteratorState edge = network.getBaseGraph()
+                    .getEdgeIteratorStateForKey(edgeId * KEY_FACTOR);
+            if (edgeFilter.accept(edge)) {
+                edges.add(edgeMapper.apply(edge, network.getEdgeGeometryCache().get(edge)));
+            }
+        });
+        return edges;
+    }
+
+    /**
+     * Snaps the point to the closest position on the edge, without checking whether the edge intersects the circle
+     * around the point or passes any edge filter.
+     *
+     * @return the snap with its snapped point calculated, or empty when the point is further than the radius from the
+     * edge
+     */
+    public static Optional<Snap> snapToEdge(LocationIndexTree locationIndexTree, Point point, double radius,
+            EdgeIteratorState edge) {
+        double latitude = point.getY();
+        double longitude = point.getX();
+        var snap = new Snap(latitude, longitude);
+        locationIndexTree
+                .traverseEdge(latitude, longitude, edge,
+                        (node, normedDist, wayIndex, pos) -> {
+                            if (normedDist < snap.getQueryDistance()) {
+                                snap.setQueryDistance(normedDist);
+                                snap.setClosestNode(node);
+                                snap.setClosestEdge(edge.detach(false));
+                                snap.setWayIndex(wayIndex);
+                                snap.setSnappedPosition(pos);
+                            }
+                        });
+        if (!snap.isValid()) {
+            return Optional.empty();
+        }
+        snap.setQueryDistance(DIST_PLANE.calcDenormalizedDist(snap.getQueryDistance()));
+        if (snap.getQueryDistance() > radius) {
+            return Optional.empty();
+        }
+        snap.calcSnappedPoint(DIST_PLANE);
+        return Optional.of(snap);
+    }
 }
@@ -12,13 +12,13 @@ import com.graphhopper.routing.querygraph.VirtualEdgeIteratorState;
 import com.graphhopper.routing.util.EncodingManager;
 import com.graphhopper.storage.EdgeIteratorStateReverseExtractor;
 import com.graphhopper.util.EdgeIteratorState;
-import com.graphhopper.util.FetchMode;
+import com.graphhopper.util.PointList;
 import java.util.ArrayList;
 import java.util.List;
 import nu.ndw.nls.geometry.distance.FractionAndDistanceCalculator;
-import nu.ndw.nls.geometry.factories.GeometryFactoryWgs84;
 import nu.ndw.nls.routingmapmatcher.model.EdgeIteratorTravelDirection;
 import nu.ndw.nls.routingmapmatcher.model.linestring.MatchedEdgeLink;
+import nu.ndw.nls.routingmapmatcher.network.storage.EdgeGeometryCache;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.LineString;
 
@@ -26,9 +26,6 @@ public final class PathUtil {
 
     private static final EdgeIteratorStateReverseExtractor EDGE_ITERATOR_STATE_REVERSE_EXTRACTOR = new EdgeIteratorStateReverseExtractor();
 
-    //todo : replace logic in this class to spring managed service
-    private static final PointListUtil POINT_LIST_UTIL = new PointListUtil(new GeometryFactoryWgs84());
-
     private PathUtil() {
         // Util class
     }
@@ -36,6 +33,7 @@ public final class PathUtil {
     public static List<MatchedEdgeLink> determineMatchedLinks(
             EncodingManager encodingManager,
             FractionAndDistanceCalculator fractionAndDistanceCalculator,
+            EdgeGeometryCache edgeGeometryCache,
             Iterable<EdgeIteratorState> edges
     ) {
         List<MatchedEdgeLink> matchedEdgeLinks = new ArrayList<>();
@@ -44,7 +42,7 @@ public final class PathUtil {
             int matchedLinkId = reversed && hasReversedLinkId(encodingManager, edge)
                     ? getReversedLinkId(encodingManager, edge)
                     : getLinkId(encodingManager, edge);
-            LineString lineString = POINT_LIST_UTIL.toLineString(edge.fetchWayGeometry(FetchMode.ALL));
+            LineString lineString = edgeGeometryCache.getLineString(edge);
             matchedEdgeLinks.add(MatchedEdgeLink.builder()
                     .linkId(matchedLinkId)
                     .distance(fractionAndDistanceCalculator.calculateLengthInMeters(lineString))
@@ -120,7 +118,8 @@ public final class PathUtil {
     public static double determineStartLinkFraction(
             EdgeIteratorState firstEdge,
             QueryGraph queryGraph,
-            FractionAndDistanceCalculator fractionAndDistanceCalculator
+            FractionAndDistanceCalculator fractionAndDistanceCalculator,
+            EdgeGeometryCache edgeGeometryCache
     ) {
         if (!queryGraph.isVirtualNode(firstEdge.getBaseNode())) {
             return 0D;
@@ -128,17 +127,15 @@ public final class PathUtil {
 
         EdgeIteratorState originalEdge = findOriginalEdge(firstEdge, queryGraph);
 
-        LineString originalGeometry = POINT_LIST_UTIL.toLineString(originalEdge.fetchWayGeometry(FetchMode.ALL));
-        Coordinate coordinate = POINT_LIST_UTIL.toLineString(firstEdge.fetchWayGeometry(FetchMode.ALL))
-                .getStartPoint().getCoordinate();
-        return fractionAndDistanceCalculator.calculateFractionAndDistance(originalGeometry, coordinate)
-                .getFraction();
+        PointList virtualEdgeGeometry = edgeGeometryCache.getPointList(firstEdge);
+        return calculateFraction(originalEdge, virtualEdgeGeometry, fractionAndDistanceCalculator, edgeGeometryCache);
     }
 
     public static double determineEndLinkFraction(
             EdgeIteratorState lastEdge,
             QueryGraph queryGraph,
-            FractionAndDistanceCalculator fractionAndDistanceCalculator
+            FractionAndDistanceCalculator fractionAndDistanceCalculator,
+            EdgeGeometryCache edgeGeometryCache
     ) {
         if (!queryGraph.isVirtualNode(lastEdge.getAdjNode())) {
             return 1D;
@@ -146,9 +143,24 @@ public final class PathUtil {
 
         EdgeIteratorState originalEdge = findOriginalEdge(lastEdge, queryGraph);
 
-        LineString originalGeometry = POINT_LIST_UTIL.toLineString(originalEdge.fetchWayGeometry(FetchMode.ALL));
-        Coordinate coordinate = POINT_LIST_UTIL.toLineString(lastEdge.fetchWayGeometry(FetchMode.ALL))
-                .getEndPoint().getCoordinate();
+        // Reversed, so the geometry starts at the virtual node
+        PointList virtualEdgeGeometry = edgeGeometryCache.getPointList(lastEdge).clone(true);
+        return calculateFraction(originalEdge, virtualEdgeGeometry, fractionAndDistanceCalculator, edgeGeometryCache);
+    }
+
+    /**
+     * With fraction lookup enabled on the edge geometry cache, the fraction is looked up in the cumulative distances of
+     * the cached geometry instead of being calculated over the full geometry.
+     *
+     * @param virtualEdgeGeometry the geometry of a virtual edge of the original edge, starting at the virtual node
+     */
+    private static double calculateFraction(EdgeIteratorState originalEdge, PointList virtualEdgeGeometry,
+            FractionAndDistanceCalculator fractionAndDistanceCalculator, EdgeGeometryCache edgeGeometryCache) {
+        if (edgeGeometryCache.isFractionLookupEnabled()) {
+            return edgeGeometryCache.getVirtualNodeFraction(originalEdge, virtualEdgeGeometry);
+        }
+        Coordinate coordinate = new Coordinate(virtualEdgeGeometry.getLon(0), virtualEdgeGeometry.getLat(0));
+        LineString originalGeometry = edgeGeometryCache.getLineString(originalEdge);
         return fractionAndDistanceCalculator.calculateFractionAndDistance(originalGeometry, coordinate)
                 .getFraction();
     }
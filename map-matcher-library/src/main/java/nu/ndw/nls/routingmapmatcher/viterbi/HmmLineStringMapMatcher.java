@@ -0,0 +1,383 @@
+package nu.ndw.nls.routingmapmatcher.viterbi;
+
+import static nu.ndw.nls.routingmapmatcher.viterbi.ObservationCandidateFinder.COORDINATES_LENGTH_START_END;
+import static nu.ndw.nls.routingmapmatcher.viterbi.ObservationCandidateFinder.TRANSITION_PROBABILITY_BETA;
+import static nu.ndw.nls.routingmapmatcher.viterbi.ObservationCandidateFinder.getMeasurementErrorSigma;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.graphhopper.routing.Path;
+import com.graphhopper.routing.SPTEntry;
+import com.graphhopper.routing.querygraph.QueryGraph;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.CustomModel;
+import com.graphhopper.util.DistanceCalcEarth;
+import com.graphhopper.util.EdgeExplorer;
+import com.graphhopper.util.EdgeIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import lombok.extern.slf4j.Slf4j;
+import nu.ndw.nls.geometry.confidence.LineStringReliabilityCalculator;
+import nu.ndw.nls.geometry.distance.FractionAndDistanceCalculator;
+import nu.ndw.nls.geometry.factories.GeometryFactoryWgs84;
+import nu.ndw.nls.routingmapmatcher.domain.BaseMapMatcher;
+import nu.ndw.nls.routingmapmatcher.domain.MapMatcher;
+import nu.ndw.nls.routingmapmatcher.exception.RoutingMapMatcherException;
+import nu.ndw.nls.routingmapmatcher.mappers.PMapMapper;
+import nu.ndw.nls.routingmapmatcher.model.MatchStatus;
+import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringLocation;
+import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringMatch;
+import nu.ndw.nls.routingmapmatcher.network.NetworkGraphHopper;
+import nu.ndw.nls.routingmapmatcher.routing.algorithm.OneToManyDijkstra;
+import nu.ndw.nls.routingmapmatcher.routing.algorithm.OneToManyDijkstra.Label;
+import nu.ndw.nls.routingmapmatcher.util.LineStringMatchUtil;
+import nu.ndw.nls.routingmapmatcher.util.LineStringScoreUtil;
+import nu.ndw.nls.routingmapmatcher.util.PointListUtil;
+import nu.ndw.nls.routingmapmatcher.viterbi.ObservationCandidateFinder.CandidateObservation;
+import org.locationtech.jts.geom.LineString;
+
+/**
+ * Hidden Markov model map matcher with the same model as {@link ViterbiLineStringMapMatcher}, but without the
+ * GraphHopper map matching module. Instead of routing separately for every pair of candidates of two successive
+ * observations, one bounded {@link OneToManyDijkstra} search per state settles all states of the next
+ * observation. Like in the map matching module, candidates in the middle of an edge are directed. The lattice is kept
+ * in primitive arrays that are reused between matches, and only the most probable states per observation are kept in
+ * a beam.
+ * <br />
+ * Like the other map matchers, an instance is not thread safe.
+ */
+@Slf4j
+public class HmmLineStringMapMatcher extends BaseMapMatcher implements
+        MapMatcher<LineStringLocation, LineStringMatch> {
+
+    /**
+     * Transition searches do not explore routes that are longer than the distance as the crow flies plus this many
+     * times beta. The log probability of such a transition is at least this much lower than that of a straight route.
+     */
+    private static final double MAXIMUM_TRANSITION_DETOUR_IN_BETAS = 20.0;
+
+    /**
+     * The maximum number of states that is kept per observation.
+     */
+    private static final int BEAM_WIDTH = 16;
+
+    /**
+     * States with a log probability that is this much lower than that of the best state of the same observation are
+     * not kept.
+     */
+    private static final double BEAM_LOG_PROBABILITY_MARGIN = 50.0;
+
+    private static final int INITIAL_LATTICE_CAPACITY = 256;
+    private static final int NO_STATE = -1;
+
+    private final LineStringMatchUtil lineStringMatchUtil;
+    private final LineStringScoreUtil lineStringScoreUtil;
+    private final ObservationCandidateFinder observationCandidateFinder;
+    private final Weighting weighting;
+
+    // Lattice of all states of all observations, indexed by state. The states of observation i are stored from
+    // timeStepOffsets[i] up to timeStepOffsets[i + 1].
+    private int[] timeStepOffsets = new int[INITIAL_LATTICE_CAPACITY];
+    private int[] stateNodes = new int[INITIAL_LATTICE_CAPACITY];
+    private int[] stateInEdges = new int[INITIAL_LATTICE_CAPACITY];
+    private int[] stateOutEdges = new int[INITIAL_LATTICE_CAPACITY];
+    private double[] emissionLogProbabilities = new double[INITIAL_LATTICE_CAPACITY];
+    private double[] logProbabilities = new double[INITIAL_LATTICE_CAPACITY];
+    private int[] previousStates = new int[INITIAL_LATTICE_CAPACITY];
+    private Label[] transitionLabels = new Label[INITIAL_LATTICE_CAPACITY];
+    private double[] beamLogProbabilities = new double[INITIAL_LATTICE_CAPACITY];
+
+    @SuppressWarnings("java:S107")
+    public HmmLineStringMapMatcher(PMapMapper pMapMapper, NetworkGraphHopper network, String profileName,
+            GeometryFactoryWgs84 geometryFactoryWgs84, FractionAndDistanceCalculator fractionAndDistanceCalculator,
+            PointListUtil pointListUtil, LineStringReliabilityCalculator lineStringReliabilityCalculator,
+            CustomModel customModel) {
+        super(profileName, network, customModel);
+        this.lineStringMatchUtil = new LineStringMatchUtil(network, getProfile(), fractionAndDistanceCalculator,
+                pointListUtil, pMapMapper.mapCustomModelOrDefaultToShortestWeighting(customModel));
+        this.lineStringScoreUtil = new LineStringScoreUtil(pointListUtil, lineStringReliabilityCalculator);
+        this.weighting = network.createWeighting(getProfile(),
+                pMapMapper.mapCustomModelOrDefaultToShortestWeighting(customModel));
+        this.observationCandidateFinder = new ObservationCandidateFinder(network, weighting, geometryFactoryWgs84,
+                pointListUtil);
+    }
+
+    @Override
+    public LineStringMatch match(LineStringLocation lineStringLocation) {
+        Objects.requireNonNull(lineStringLocation);
+        double measurementErrorSigma = getMeasurementErrorSigma(lineStringLocation);
+        LineString simplifiedLine = observationCandidateFinder.simplify(lineStringLocation);
+        List<CandidateObservation> observations = filterObservations(observationCandidateFinder.findObservations(
+                simplifiedLine, measurementErrorSigma), measurementErrorSigma);
+        if (observations.size() < COORDINATES_LENGTH_START_END) {
+            return lineStringMatchUtil.createFailedMatch(lineStringLocation, MatchStatus.NO_MATCH);
+        }
+        try {
+            return matchObservations(observations, measurementErrorSigma, lineStringLocation);
+        } catch (RuntimeException e) {
+            log.debug("Exception while map matching, creating failed result for {}", lineStringLocation, e);
+            return lineStringMatchUtil.createFailedMatch(lineStringLocation, MatchStatus.EXCEPTION);
+        } finally {
+            Arrays.fill(transitionLabels, null);
+        }
+    }
+
+    /**
+     * Like the GraphHopper map matching module, drops observations that are within twice the measurement error of the
+     * previous observation, except for the last observation.
+     */
+    private static List<CandidateObservation> filterObservations(List<CandidateObservation> observations,
+            double measurementErrorSigma) {
+        List<CandidateObservation> filteredObservations = new ArrayList<>(observations.size());
+        CandidateObservation previousObservation = null;
+        for (int index = 0; index < observations.size(); index++) {
+            CandidateObservation observation = observations.get(index);
+            if (previousObservation == null || index == observations.size() - 1
+                    || calculateDistance(previousObservation, observation) > 2 * measurementErrorSigma) {
+                filteredObservations.add(observation);
+                previousObservation = observation;
+            }
+        }
+        return filteredObservations;
+    }
+
+    private LineStringMatch matchObservations(List<CandidateObservation> observations, double measurementErrorSigma,
+            LineStringLocation lineStringLocation) {
+        List<Snap> allCandidates = observations.stream()
+                .flatMap(observation -> observation.candidates().stream())
+                .toList();
+        // Creating the query graph assigns the virtual node of every candidate as its closest node
+        QueryGraph queryGraph = QueryGraph.create(getNetwork().getBaseGraph(), allCandidates);
+        Weighting queryGraphWeighting = queryGraph.wrapWeighting(weighting);
+
+        createStates(queryGraph, observations, measurementErrorSigma);
+        for (int timeStep = 1; timeStep < observations.size(); timeStep++) {
+            calculateTransitions(queryGraph, queryGraphWeighting, observations, timeStep);
+            pruneStates(timeStep);
+        }
+
+        Path path = createMergedPath(queryGraph, findMostProbableState(observations.size() - 1));
+        if (path.getEdgeCount() == 0) {
+            return lineStringMatchUtil.createFailedMatch(lineStringLocation, MatchStatus.NO_MATCH);
+        }
+        double reliability = lineStringScoreUtil.calculateCandidatePathScore(path, lineStringLocation);
+        return lineStringMatchUtil.createMatch(lineStringLocation, path, queryGraph, reliability);
+    }
+
+    /**
+     * Like the GraphHopper map matching module, creates one state per distinct tower node of the candidates of every
+     * observation, and two directed states per candidate in the middle of an edge, one for each direction in which the
+     * candidate can be passed. A route arrives at a directed state on one of the virtual edges of the candidate and
+     * leaves it on the other, so it cannot turn around on the candidate. States get the emission probability of the
+     * nearest candidate.
+     */
+    private void createStates(QueryGraph queryGraph, List<CandidateObservation> observations,
+            double measurementErrorSigma) {
+        ensureLatticeCapacity(observations.size() + 1,
+                2 * observations.stream().mapToInt(observation -> observation.candidates().size()).sum());
+        EdgeExplorer edgeExplorer = queryGraph.createEdgeExplorer();
+        int stateCount = 0;
+        for (int timeStep = 0; timeStep < observations.size(); timeStep++) {
+            int timeStepOffset = stateCount;
+            timeStepOffsets[timeStep] = timeStepOffset;
+            for (Snap candidate : observations.get(timeStep).candidates()) {
+                double emissionLogProbability = calculateEmissionLogProbability(candidate.getQueryDistance(),
+                        measurementErrorSigma);
+                int node = candidate.getClosestNode();
+                if (queryGraph.isVirtualNode(node)) {
+                    EdgeIterator edgeIterator = edgeExplorer.setBaseNode(node);
+                    int firstEdge = edgeIterator.next() ? edgeIterator.getEdge() : EdgeIterator.NO_EDGE;
+                    int secondEdge = edgeIterator.next() ? edgeIterator.getEdge() : EdgeIterator.NO_EDGE;
+                    stateCount = addState(timeStep, timeStepOffset, stateCount, node, firstEdge, secondEdge,
+                            emissionLogProbability);
+                    stateCount = addState(timeStep, timeStepOffset, stateCount, node, secondEdge, firstEdge,
+                            emissionLogProbability);
+                } else {
+                    stateCount = addState(timeStep, timeStepOffset, stateCount, node, EdgeIterator.ANY_EDGE,
+                            EdgeIterator.ANY_EDGE, emissionLogProbability);
+                }
+            }
+        }
+        timeStepOffsets[observations.size()] = stateCount;
+    }
+
+    /**
+     * Adds the state to the states of the time step, or keeps the highest emission probability if it already exists.
+     *
+     * @return the new number of states
+     */
+    @SuppressWarnings("java:S107")
+    private int addState(int timeStep, int timeStepOffset, int stateCount, int node, int inEdge, int outEdge,
+            double emissionLogProbability) {
+        int state = findState(timeStepOffset, stateCount, node, inEdge);
+        if (state == NO_STATE) {
+            state = stateCount++;
+            stateNodes[state] = node;
+            stateInEdges[state] = inEdge;
+            stateOutEdges[state] = outEdge;
+            emissionLogProbabilities[state] = emissionLogProbability;
+        } else {
+            emissionLogProbabilities[state] = Math.max(emissionLogProbabilities[state], emissionLogProbability);
+        }
+        logProbabilities[state] = timeStep == 0 ? emissionLogProbabilities[state] : Double.NEGATIVE_INFINITY;
+        previousStates[state] = NO_STATE;
+        transitionLabels[state] = null;
+        return stateCount;
+    }
+
+    private int findState(int fromState, int toState, int node, int inEdge) {
+        for (int state = fromState; state < toState; state++) {
+            if (stateNodes[state] == node && stateInEdges[state] == inEdge) {
+                return state;
+            }
+        }
+        return NO_STATE;
+    }
+
+    /**
+     * Searches once from every reachable state of the previous observation, leaving it on its outgoing edge, to all
+     * states of this observation, arriving on their incoming edges. Like the router of the GraphHopper map matching
+     * module, the search is edge-based, so routes cannot turn around on candidates that are passed on the way either.
+     */
+    private void calculateTransitions(QueryGraph queryGraph, Weighting queryGraphWeighting,
+            List<CandidateObservation> observations, int timeStep) {
+        int fromStart = timeStepOffsets[timeStep - 1];
+        int fromEnd = timeStepOffsets[timeStep];
+        int toEnd = timeStepOffsets[timeStep + 1];
+        int[] targets = Arrays.copyOfRange(stateNodes, fromEnd, toEnd);
+        int[] targetInEdges = Arrays.copyOfRange(stateInEdges, fromEnd, toEnd);
+        double linearDistance = calculateDistance(observations.get(timeStep - 1), observations.get(timeStep));
+
+        for (int fromState = fromStart; fromState < fromEnd; fromState++) {
+            if (logProbabilities[fromState] == Double.NEGATIVE_INFINITY) {
+                continue;
+            }
+            OneToManyDijkstra oneToManyDijkstra = new OneToManyDijkstra(queryGraph, queryGraphWeighting,
+                    TraversalMode.EDGE_BASED);
+            oneToManyDijkstra.setMaxDistance(linearDistance
+                    + MAXIMUM_TRANSITION_DETOUR_IN_BETAS * TRANSITION_PROBABILITY_BETA);
+            oneToManyDijkstra.search(stateNodes[fromState], stateOutEdges[fromState], targets, targetInEdges);
+            for (int toState = fromEnd; toState < toEnd; toState++) {
+                Label label = oneToManyDijkstra.getSettledLabel(stateNodes[toState], stateInEdges[toState]);
+                if (label == null) {
+                    continue;
+                }
+                double logProbability = logProbabilities[fromState]
+                        + calculateTransitionLogProbability(label.getDistance(), linearDistance)
+                        + emissionLogProbabilities[toState];
+                if (logProbability > logProbabilities[toState]) {
+                    logProbabilities[toState] = logProbability;
+                    previousStates[toState] = fromState;
+                    transitionLabels[toState] = label;
+                }
+            }
+        }
+    }
+
+    /**
+     * Keeps at most the beam width of states with a log probability within the margin of the best state.
+     */
+    private void pruneStates(int timeStep) {
+        int fromState = timeStepOffsets[timeStep];
+        int toState = timeStepOffsets[timeStep + 1];
+        double bestLogProbability = Double.NEGATIVE_INFINITY;
+        int reachableStateCount = 0;
+        for (int state = fromState; state < toState; state++) {
+            if (logProbabilities[state] != Double.NEGATIVE_INFINITY) {
+                bestLogProbability = Math.max(bestLogProbability, logProbabilities[state]);
+                beamLogProbabilities[reachableStateCount++] = logProbabilities[state];
+            }
+        }
+        if (reachableStateCount == 0) {
+            throw new RoutingMapMatcherException("Sequence is broken at observation " + timeStep);
+        }
+        double minimumLogProbability = bestLogProbability - BEAM_LOG_PROBABILITY_MARGIN;
+        if (reachableStateCount > BEAM_WIDTH) {
+            Arrays.sort(beamLogProbabilities, 0, reachableStateCount);
+            minimumLogProbability = Math.max(minimumLogProbability,
+                    beamLogProbabilities[reachableStateCount - BEAM_WIDTH]);
+        }
+        for (int state = fromState; state < toState; state++) {
+            if (logProbabilities[state] < minimumLogProbability) {
+                logProbabilities[state] = Double.NEGATIVE_INFINITY;
+                transitionLabels[state] = null;
+            }
+        }
+    }
+
+    private int findMostProbableState(int timeStep) {
+        int mostProbableState = NO_STATE;
+        for (int state = timeStepOffsets[timeStep]; state < timeStepOffsets[timeStep + 1]; state++) {
+            if (mostProbableState == NO_STATE || logProbabilities[state] > logProbabilities[mostProbableState]) {
+                mostProbableState = state;
+            }
+        }
+        return mostProbableState;
+    }
+
+    /**
+     * Concatenates the transition paths of the most probable sequence of states into a single path.
+     */
+    private Path createMergedPath(QueryGraph queryGraph, int lastState) {
+        List<Label> labels = new ArrayList<>();
+        int firstState = lastState;
+        for (int state = lastState; previousStates[state] != NO_STATE; state = previousStates[state]) {
+            labels.add(transitionLabels[state]);
+            firstState = previousStates[state];
+        }
+        Path path = new Path(queryGraph);
+        path.setFromNode(stateNodes[firstState]);
+        IntArrayList edges = new IntArrayList();
+        double weight = 0;
+        for (Label label : labels.reversed()) {
+            edges.clear();
+            for (SPTEntry entry = label; entry.parent != null; entry = entry.parent) {
+                edges.add(entry.edge);
+            }
+            for (int index = edges.size() - 1; index >= 0; index--) {
+                path.addEdge(edges.get(index));
+            }
+            path.addDistance(label.getDistance());
+            path.addTime(label.getTime());
+            weight += label.getWeight();
+        }
+        path.setWeight(weight);
+        path.setEndNode(stateNodes[lastState]);
+        path.setFound(true);
+        return path;
+    }
+
+    private void ensureLatticeCapacity(int timeStepCount, int stateCount) {
+        if (timeStepOffsets.length < timeStepCount) {
+            timeStepOffsets = new int[timeStepCount];
+        }
+        if (stateNodes.length < stateCount) {
+            stateNodes = new int[stateCount];
+            stateInEdges = new int[stateCount];
+            stateOutEdges = new int[stateCount];
+            emissionLogProbabilities = new double[stateCount];
+            logProbabilities = new double[stateCount];
+            previousStates = new int[stateCount];
+            transitionLabels = new Label[stateCount];
+            beamLogProbabilities = new double[stateCount];
+        }
+    }
+
+    private static double calculateDistance(CandidateObservation from, CandidateObservation to) {
+        return DistanceCalcEarth.DIST_EARTH.calcDist(from.coordinate().getY(), from.coordinate().getX(),
+                to.coordinate().getY(), to.coordinate().getX());
+    }
+
+    private static double calculateEmissionLogProbability(double distance, double measurementErrorSigma) {
+        return Math.log(1.0 / (Math.sqrt(2.0 * Math.PI) * measurementErrorSigma))
+                - 0.5 * Math.pow(distance / measurementErrorSigma, 2);
+    }
+
+    private static double calculateTransitionLogProbability(double routeLength, double linearDistance) {
+        return Math.log(1.0 / TRANSITION_PROBABILITY_BETA)
+                - Math.abs(linearDistance - routeLength) / TRANSITION_PROBABILITY_BETA;
+    }
+}
@@ -0,0 +1,37 @@
+package nu.ndw.nls.routingmapmatcher.viterbi;
+
+import com.graphhopper.util.CustomModel;
+import lombok.RequiredArgsConstructor;
+import nu.ndw.nls.geometry.confidence.LineStringReliabilityCalculator;
+import nu.ndw.nls.geometry.distance.FractionAndDistanceCalculator;
+import nu.ndw.nls.geometry.factories.GeometryFactoryWgs84;
+import nu.ndw.nls.routingmapmatcher.domain.MapMatcherFactory;
+import nu.ndw.nls.routingmapmatcher.mappers.PMapMapper;
+import nu.ndw.nls.routingmapmatcher.network.NetworkGraphHopper;
+import nu.ndw.nls.routingmapmatcher.util.PointListUtil;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class HmmLineStringMapMatcherFactory implements MapMatcherFactory<HmmLineStringMapMatcher> {
+
+    private final PMapMapper pMapMapper;
+    private final GeometryFactoryWgs84 geometryFactoryWgs84;
+    private final FractionAndDistanceCalculator fractionAndDistanceCalculator;
+    private final PointListUtil pointListUtil;
+    private final LineStringReliabilityCalculator lineStringReliabilityCalculator;
+
+    @Override
+    public HmmLineStringMapMatcher createMapMatcher(NetworkGraphHopper preInitializedNetwork, String profileName) {
+        return new HmmLineStringMapMatcher(pMapMapper, preInitializedNetwork, profileName, geometryFactoryWgs84,
+                fractionAndDistanceCalculator, pointListUtil, lineStringReliabilityCalculator, null);
+    }
+
+    @Override
+    public HmmLineStringMapMatcher createMapMatcher(NetworkGraphHopper preInitializedNetwork, String profileName,
+            CustomModel customModel) {
+        return new HmmLineStringMapMatcher(pMapMapper, preInitializedNetwork, profileName, geometryFactoryWgs84,
+                fractionAndDistanceCalculator, pointListUtil, lineStringReliabilityCalculator, customModel);
+    }
+
+}
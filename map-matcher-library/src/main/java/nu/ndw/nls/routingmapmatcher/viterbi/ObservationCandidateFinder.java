@@ -0,0 +1,138 @@
+package nu.ndw.nls.routingmapmatcher.viterbi;
+
+import static nu.ndw.nls.routingmapmatcher.util.MatchUtil.getQueryResults;
+
+import com.carrotsearch.hppc.IntHashSet;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.util.FiniteWeightFilter;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.PathSimplification;
+import com.graphhopper.util.PointList;
+import com.graphhopper.util.RamerDouglasPeucker;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import nu.ndw.nls.geometry.factories.GeometryFactoryWgs84;
+import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringLocation;
+import nu.ndw.nls.routingmapmatcher.network.NetworkGraphHopper;
+import nu.ndw.nls.routingmapmatcher.util.PointListUtil;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.LineString;
+
+/**
+ * Creates the observations of a line string for the hidden Markov model map matchers, which share the model parameters
+ * below. The line is simplified and optionally resampled, after which the candidates of every coordinate are found
+ * with a single spatial query that serves both the check whether the observation is nearby the NDW base network and
+ * the map matching itself. The edge filter is created once per map matcher.
+ */
+class ObservationCandidateFinder {
+
+    /**
+     * The standard deviation of GPS observations.
+     * <p>
+     * Only search for candidates within this distance.
+     */
+    static final double MEASUREMENT_ERROR_SIGMA_IN_METERS = 20.0;
+
+    /**
+     * Only create observations for coordinates that are within this distance of the NDW base network.
+     */
+    static final double NEARBY_NDW_NETWORK_DISTANCE_IN_METERS = 2 * MEASUREMENT_ERROR_SIGMA_IN_METERS;
+
+    /**
+     * The beta (1/lambda) parameter used for the exponential distribution to determine the probability that the length
+     * of a route between two successive observations is the same as the distance as the crow flies between them.
+     */
+    static final double TRANSITION_PROBABILITY_BETA = 100.0;
+
+    /**
+     * The minimum number of observations that is needed to match a line string.
+     */
+    static final int COORDINATES_LENGTH_START_END = 2;
+
+    /**
+     * The tolerance used in smoothing the line before executing map matching
+     */
+    private static final double LINE_SMOOTHING_TOLERANCE = 0.5D;
+
+    private final NetworkGraphHopper network;
+    private final GeometryFactoryWgs84 geometryFactoryWgs84;
+    private final PointListUtil pointListUtil;
+    private final EdgeFilter edgeFilter;
+
+    ObservationCandidateFinder(NetworkGraphHopper network, Weighting weighting,
+            GeometryFactoryWgs84 geometryFactoryWgs84, PointListUtil pointListUtil) {
+        this.network = network;
+        this.geometryFactoryWgs84 = geometryFactoryWgs84;
+        this.pointListUtil = pointListUtil;
+        this.edgeFilter = new FiniteWeightFilter(weighting);
+    }
+
+    static double getMeasurementErrorSigma(LineStringLocation lineStringLocation) {
+        return lineStringLocation.getRadius() == null ? MEASUREMENT_ERROR_SIGMA_IN_METERS
+                : lineStringLocation.getRadius();
+    }
+
+    /**
+     * Smooths the line of the location and, when requested, resamples it so successive coordinates are at most the
+     * measurement error apart.
+     */
+    LineString simplify(LineStringLocation lineStringLocation) {
+        PointList pointList = PointList.fromLineString(lineStringLocation.getGeometry());
+        var simplifier = new RamerDouglasPeucker();
+        simplifier.setMaxDistance(LINE_SMOOTHING_TOLERANCE);
+        PathSimplification.simplify(pointList, List.of(), simplifier);
+        if (lineStringLocation.isResampleObservations()) {
+            pointList = ObservationResampler.resample(pointList, getMeasurementErrorSigma(lineStringLocation));
+        }
+        return pointListUtil.toLineString(pointList);
+    }
+
+    /**
+     * Only creates observations for coordinates that are nearby the NDW base network and have at least one candidate
+     * within the measurement error. This way, when too few observations are created, we can be pretty confident that
+     * there is no matching possible on the NDW base network. Like the GraphHopper map matching module, only the
+     * nearest candidate is kept per tower node.
+     */
+    List<CandidateObservation> findObservations(LineString lineString, double measurementErrorSigma) {
+        CoordinateSequence coordinateSequence = lineString.getCoordinateSequence();
+        double searchRadius = Math.max(measurementErrorSigma, MEASUREMENT_ERROR_SIGMA_IN_METERS);
+        List<CandidateObservation> observations = new ArrayList<>();
+        for (int index = 0; index < coordinateSequence.size(); index++) {
+            Coordinate coordinate = coordinateSequence.getCoordinate(index);
+            List<Snap> queryResults = getQueryResults(network, geometryFactoryWgs84.createPoint(coordinate),
+                    searchRadius, network.getLocationIndex(), edgeFilter);
+            List<Snap> candidates = findCandidates(queryResults, measurementErrorSigma);
+            if (isNearbyNdwNetwork(queryResults) && !candidates.isEmpty()) {
+                observations.add(new CandidateObservation(coordinate, candidates));
+            }
+        }
+        return observations;
+    }
+
+    private static List<Snap> findCandidates(List<Snap> queryResults, double measurementErrorSigma) {
+        IntHashSet towerNodes = new IntHashSet();
+        List<Snap> candidates = new ArrayList<>(queryResults.size());
+        queryResults.stream()
+                .filter(queryResult -> queryResult.getQueryDistance() <= measurementErrorSigma)
+                .sorted(Comparator.comparingDouble(Snap::getQueryDistance))
+                .filter(queryResult -> queryResult.getSnappedPosition() != Snap.Position.TOWER
+                        || towerNodes.add(queryResult.getClosestNode()))
+                .forEach(candidates::add);
+        return candidates;
+    }
+
+    private static boolean isNearbyNdwNetwork(List<Snap> queryResults) {
+        return queryResults.stream()
+                .anyMatch(queryResult -> queryResult.getQueryDistance() <= NEARBY_NDW_NETWORK_DISTANCE_IN_METERS);
+    }
+
+    /**
+     * A coordinate of the line string together with its candidates on the network, nearest first.
+     */
+    record CandidateObservation(Coordinate coordinate, List<Snap> candidates) {
+
+    }
+}
@@ -0,0 +1,68 @@
+package nu.ndw.nls.routingmapmatcher.viterbi;
+
+import com.graphhopper.util.AngleCalc;
+import com.graphhopper.util.DistanceCalcEarth;
+import com.graphhopper.util.PointList;
+
+/**
+ * Reduces densely digitized line strings to observations at roughly the measurement error spacing, so the cost of map
+ * matching depends on the length of the line instead of its number of coordinates. The first and last coordinates and
+ * coordinates where the bearing changes are always kept.
+ */
+final class ObservationResampler {
+
+    /**
+     * Coordinates where the bearing changes at least this many degrees are always kept.
+     */
+    private static final double MINIMUM_BEARING_CHANGE_IN_DEGREES = 30.0;
+    private static final double HALF_CIRCLE_IN_DEGREES = 180.0;
+    private static final double FULL_CIRCLE_IN_DEGREES = 360.0;
+
+    private ObservationResampler() {
+    }
+
+    /**
+     * @param pointList the coordinates of the line string
+     * @param spacing   the minimum distance in meters between kept coordinates on straight parts of the line string
+     * @return the kept coordinates
+     */
+    static PointList resample(PointList pointList, double spacing) {
+        int size = pointList.size();
+        if (size <= 2) {
+            return pointList;
+        }
+        PointList resampledPointList = new PointList(size, pointList.is3D());
+        resampledPointList.add(pointList, 0);
+        double distanceSinceKept = 0;
+        for (int index = 1; index < size - 1; index++) {
+            distanceSinceKept += calculateDistance(pointList, index - 1, index);
+            if (distanceSinceKept >= spacing || calculateBearingChange(pointList, index)
+                    >= MINIMUM_BEARING_CHANGE_IN_DEGREES) {
+                resampledPointList.add(pointList, index);
+                distanceSinceKept = 0;
+            }
+        }
+        resampledPointList.add(pointList, size - 1);
+        return resampledPointList;
+    }
+
+    private static double calculateDistance(PointList pointList, int fromIndex, int toIndex) {
+        return DistanceCalcEarth.DIST_EARTH.calcDist(pointList.getLat(fromIndex), pointList.getLon(fromIndex),
+                pointList.getLat(toIndex), pointList.getLon(toIndex));
+    }
+
+    /**
+     * @return the absolute change in degrees between the bearing towards and the bearing from the coordinate
+     */
+    private static double calculateBearingChange(PointList pointList, int index) {
+        double incomingBearing = calculateBearing(pointList, index - 1, index);
+        double outgoingBearing = calculateBearing(pointList, index, index + 1);
+        double bearingChange = Math.abs(outgoingBearing - incomingBearing) % FULL_CIRCLE_IN_DEGREES;
+        return bearingChange > HALF_CIRCLE_IN_DEGREES ? FULL_CIRCLE_IN_DEGREES - bearingChange : bearingChange;
+    }
+
+    private static double calculateBearing(PointList pointList, int fromIndex, int toIndex) {
+        return AngleCalc.ANGLE_CALC.calcAzimuth(pointList.getLat(fromIndex), pointList.getLon(fromIndex),
+                pointList.getLat(toIndex), pointList.getLon(toIndex));
+    }
+}
@@ -0,0 +1,42 @@
+package nu.ndw.nls.routingmapmatcher.viterbi;
+
+import com.graphhopper.matching.MapMatching;
+import com.graphhopper.matching.Observation;
+import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.PMap;
+import com.graphhopper.util.shapes.GHPoint;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import nu.ndw.nls.routingmapmatcher.network.NetworkGraphHopper;
+import nu.ndw.nls.routingmapmatcher.viterbi.ObservationCandidateFinder.CandidateObservation;
+import org.locationtech.jts.geom.Coordinate;
+
+/**
+ * GraphHopper map matching that uses the candidates which were already found while creating the observations, so
+ * every coordinate is snapped once. The candidates of a coordinate are handed out once, because the query graph changes
+ * the snaps it is created from. A coordinate that occurs more than once, or that has no candidates, falls back to the
+ * snapping of the GraphHopper map matching module. An instance can only be used for a single match.
+ */
+class PrecomputedSnapsMapMatching extends MapMatching {
+
+    private final Map<Coordinate, List<Snap>> candidatesByCoordinate;
+
+    PrecomputedSnapsMapMatching(NetworkGraphHopper network, PMap hints, List<CandidateObservation> observations) {
+        super(network.getBaseGraph(), network.getLocationIndex(), MapMatching.routerFromGraphHopper(network, hints));
+        this.candidatesByCoordinate = new HashMap<>(observations.size());
+        for (CandidateObservation observation : observations) {
+            candidatesByCoordinate.putIfAbsent(observation.coordinate(), observation.candidates());
+        }
+    }
+
+    static Observation toObservation(CandidateObservation observation) {
+        return new Observation(new GHPoint(observation.coordinate().getY(), observation.coordinate().getX()));
+    }
+
+    @Override
+    public List<Snap> findCandidateSnaps(double queryLat, double queryLon) {
+        List<Snap> candidates = candidatesByCoordinate.remove(new Coordinate(queryLon, queryLat));
+        return candidates == null ? super.findCandidateSnaps(queryLat, queryLon) : candidates;
+    }
+}
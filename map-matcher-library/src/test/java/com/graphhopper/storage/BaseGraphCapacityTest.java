@@ -0,0 +1,86 @@
+package com.graphhopper.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.graphhopper.util.FetchMode;
+import com.graphhopper.util.PointList;
+import java.lang.reflect.Field;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BaseGraphCapacityTest {
+
+    private static final int BYTES_FOR_FLAGS = 4;
+    private static final int NODE_COUNT = 100_000;
+    private static final int EDGE_COUNT = 120_000;
+    private static final long PILLAR_NODE_COUNT = 500_000;
+
+    private BaseGraph baseGraph;
+
+    @BeforeEach
+    void setUp() {
+        baseGraph = new BaseGraph.Builder(BYTES_FOR_FLAGS).create();
+    }
+
+    @AfterEach
+    void tearDown() {
+        baseGraph.close();
+    }
+
+    @Test
+    void ensureCapacity_ok() {
+        BaseGraphCapacity.ensureCapacity(baseGraph, NODE_COUNT, EDGE_COUNT, PILLAR_NODE_COUNT);
+
+        Object store = getFieldValue(BaseGraph.class, baseGraph, "store");
+        assertThat(getCapacity(store, "nodes")).isGreaterThanOrEqualTo(
+                (long) NODE_COUNT * (int) getFieldValue(store.getClass(), store, "nodeEntryBytes"));
+        assertThat(getCapacity(store, "edges")).isGreaterThanOrEqualTo(
+                (long) EDGE_COUNT * (int) getFieldValue(store.getClass(), store, "edgeEntryBytes"));
+        assertThat(((DataAccess) getFieldValue(BaseGraph.class, baseGraph, "wayGeometry")).getCapacity())
+                .isGreaterThanOrEqualTo(PILLAR_NODE_COUNT * 2 * Integer.BYTES);
+    }
+
+    @Test
+    void ensureCapacity_ok_graphRemainsEmptyAndWritable() {
+        BaseGraphCapacity.ensureCapacity(baseGraph, NODE_COUNT, EDGE_COUNT, PILLAR_NODE_COUNT);
+
+        assertThat(baseGraph.getNodes()).isZero();
+        assertThat(baseGraph.getEdges()).isZero();
+
+        baseGraph.getNodeAccess().setNode(0, 52.0, 5.0);
+        baseGraph.getNodeAccess().setNode(1, 52.1, 5.1);
+        PointList pillarNodes = new PointList(1, false);
+        pillarNodes.add(52.05, 5.05);
+        baseGraph.edge(0, 1).setDistance(10).setWayGeometry(pillarNodes);
+
+        assertThat(baseGraph.getNodes()).isEqualTo(2);
+        assertThat(baseGraph.getEdges()).isEqualTo(1);
+        assertThat(baseGraph.getEdgeIteratorState(0, 1).fetchWayGeometry(FetchMode.PILLAR_ONLY))
+                .isEqualTo(pillarNodes);
+    }
+
+    @Test
+    void ensureCapacity_ok_unknownCountsLeaveStorageUnchanged() {
+        Object store = getFieldValue(BaseGraph.class, baseGraph, "store");
+        long nodesCapacity = getCapacity(store, "nodes");
+        long edgesCapacity = getCapacity(store, "edges");
+
+        BaseGraphCapacity.ensureCapacity(baseGraph, 0, 0, 0);
+
+        assertThat(getCapacity(store, "nodes")).isEqualTo(nodesCapacity);
+        assertThat(getCapacity(store, "edges")).isEqualTo(edgesCapacity);
+    }
+
+    private static long getCapacity(Object store, String fieldName) {
+        return ((DataAccess) getFieldValue(store.getClass(), store, fieldName)).getCapacity();
+    }
+
+    @SneakyThrows
+    private static Object getFieldValue(Class<?> type, Object instance, String fieldName) {
+        Field field = type.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        return field.get(instance);
+    }
+}
@@ -1,11 +1,22 @@
 package nu.ndw.nls.routingmapmatcher;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
+import nu.ndw.nls.geometry.factories.GeometryFactoryWgs84;
 import nu.ndw.nls.routingmapmatcher.domain.MapMatcherFactory;
 import nu.ndw.nls.routingmapmatcher.model.MapMatchingLineRequest;
 import nu.ndw.nls.routingmapmatcher.model.MatchStatus;
@@ -16,6 +27,7 @@ import nu.ndw.nls.routingmapmatcher.viterbi.ViterbiLineStringMapMatcher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.locationtech.jts.geom.Coordinate;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -24,6 +36,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 class RoutingMapMatcherLineTest {
 
     private static final String PROFILE_NAME = "car";
+    private static final int NUMBER_OF_LOCATIONS = 100;
+    private static final int PARALLELISM = 4;
+
     @Mock
     private MapMatcherFactory<ViterbiLineStringMapMatcher> lineStringMapMatcherFactory;
 
@@ -63,4 +78,159 @@ class RoutingMapMatcherLineTest {
                 PROFILE_NAME);
         assertThat(results).hasSize(1);
     }
+
+    @Test
+    void testMatchLocations_locationStream() {
+        AtomicBoolean locationStreamClosed = new AtomicBoolean();
+        MapMatchingLineRequest streamingRequest = MapMatchingLineRequest.builder()
+                .locationTypeName("test location type")
+                .locationStreamSupplier(() -> Stream.of(lineStringLocation, lineStringLocation)
+                        .onClose(() -> locationStreamClosed.set(true)))
+                .build();
+        when(lineStringMapMatcherFactory.createMapMatcher(preInitializedNetwork, PROFILE_NAME))
+                .thenReturn(lineStringMapMatcher);
+        when(lineStringMapMatcher.match(lineStringLocation)).thenReturn(lineStringMatch);
+        when(lineStringMatch.getStatus()).thenReturn(MatchStatus.MATCH);
+
+        try (Stream<LineStringMatch> results = routingMapMatcher.matchLocations(preInitializedNetwork,
+                streamingRequest, PROFILE_NAME)) {
+            assertThat(results).containsExactly(lineStringMatch, lineStringMatch);
+        }
+        assertThat(locationStreamClosed).isTrue();
+    }
+
+    @Test
+    void testMatchLocations_parallel() {
+        List<LineStringLocation> lineStringLocations = new ArrayList<>();
+        Map<LineStringLocation, LineStringMatch> matchesByLocation = new HashMap<>();
+        for (int index = 0; index < NUMBER_OF_LOCATIONS; index++) {
+            LineStringLocation location = mock(LineStringLocation.class);
+            LineStringMatch match = mock(LineStringMatch.class);
+            when(match.getStatus()).thenReturn(MatchStatus.MATCH);
+            lineStringLocations.add(location);
+            matchesByLocation.put(location, match);
+        }
+        MapMatchingLineRequest parallelRequest = MapMatchingLineRequest.builder()
+                .locationTypeName("test location type")
+                .locationSupplier(() -> lineStringLocations)
+                .parallelism(PARALLELISM)
+                .build();
+        when(lineStringMapMatcherFactory.createMapMatcher(preInitializedNetwork, PROFILE_NAME))
+                .thenReturn(lineStringMapMatcher);
+        when(lineStringMapMatcher.match(any())).thenAnswer(invocation -> matchesByLocation.get(invocation.getArgument(0)));
+
+        try (Stream<LineStringMatch> results = routingMapMatcher.matchLocations(preInitializedNetwork, parallelRequest,
+                PROFILE_NAME)) {
+            assertThat(results).containsExactlyElementsOf(lineStringLocations.stream()
+                    .map(matchesByLocation::get)
+                    .toList());
+        }
+        verify(lineStringMapMatcherFactory, atMost(PARALLELISM)).createMapMatcher(preInitializedNetwork, PROFILE_NAME);
+    }
+
+    @Test
+    void testMatchLocations_parallelChunked() {
+        GeometryFactoryWgs84 geometryFactory = new GeometryFactoryWgs84();
+        Coordinate coordinate = new Coordinate(5.0, 52.0);
+        List<LineStringLocation> lineStringLocations = new ArrayList<>();
+        Map<LineStringLocation, LineStringMatch> matchesByLocation = new HashMap<>();
+        for (int index = 0; index < NUMBER_OF_LOCATIONS; index++) {
+            LineStringLocation location = mock(LineStringLocation.class);
+            LineStringMatch match = mock(LineStringMatch.class);
+            when(location.getGeometry()).thenReturn(geometryFactory.createLineString(
+                    new Coordinate[]{coordinate, coordinate}));
+            when(match.getStatus()).thenReturn(MatchStatus.MATCH);
+            lineStringLocations.add(location);
+            matchesByLocation.put(location, match);
+        }
+        MapMatchingLineRequest chunkedRequest = MapMatchingLineRequest.builder()
+                .locationTypeName("test location type")
+                .locationSupplier(() -> lineStringLocations)
+                .parallelism(PARALLELISM)
+                .chunkLengthInMeters(1000.0)
+                .build();
+        when(lineStringMapMatcherFactory.createMapMatcher(preInitializedNetwork, PROFILE_NAME))
+                .thenReturn(lineStringMapMatcher);
+        when(lineStringMapMatcher.match(any())).thenAnswer(invocation -> matchesByLocation.get(invocation.getArgument(0)));
+
+        try (Stream<LineStringMatch> results = routingMapMatcher.matchLocations(preInitializedNetwork, chunkedRequest,
+                PROFILE_NAME)) {
+            assertThat(results).containsExactlyElementsOf(lineStringLocations.stream()
+                    .map(matchesByLocation::get)
+                    .toList());
+        }
+        // The workers share one chunked map matcher and therefore its idle map matchers
+        verify(lineStringMapMatcherFactory, atMost(PARALLELISM)).createMapMatcher(preInitializedNetwork, PROFILE_NAME);
+    }
+
+    @Test
+    void testMatchLocations_parallelShortCircuit() {
+        List<LineStringLocation> lineStringLocations = new ArrayList<>();
+        Map<LineStringLocation, LineStringMatch> matchesByLocation = new HashMap<>();
+        for (int index = 0; index < NUMBER_OF_LOCATIONS; index++) {
+            LineStringLocation location = mock(LineStringLocation.class);
+            lineStringLocations.add(location);
+            matchesByLocation.put(location, mock(LineStringMatch.class));
+        }
+        AtomicInteger locationsRead = new AtomicInteger();
+        MapMatchingLineRequest parallelRequest = MapMatchingLineRequest.builder()
+                .locationTypeName("test location type")
+                .locationStreamSupplier(() -> lineStringLocations.stream()
+                        .peek(location -> locationsRead.incrementAndGet()))
+                .parallelism(PARALLELISM)
+                .build();
+
+        Stream<LineStringMatch> results = routingMapMatcher.matchLocations(preInitializedNetwork, parallelRequest,
+                PROFILE_NAME);
+
+        assertThat(locationsRead).hasValue(0);
+        verifyNoInteractions(lineStringMapMatcherFactory);
+
+        when(lineStringMapMatcherFactory.createMapMatcher(preInitializedNetwork, PROFILE_NAME))
+                .thenReturn(lineStringMapMatcher);
+        when(lineStringMapMatcher.match(any())).thenAnswer(invocation -> matchesByLocation.get(invocation.getArgument(0)));
+
+        assertThat(results.findFirst()).contains(matchesByLocation.get(lineStringLocations.getFirst()));
+        assertThat(locationsRead.get()).isLessThan(NUMBER_OF_LOCATIONS);
+        results.close();
+    }
+
+    @Test
+    void testMatchLocations_spatiallyOrdered() {
+        GeometryFactoryWgs84 geometryFactory = new GeometryFactoryWgs84();
+        List<LineStringLocation> lineStringLocations = new ArrayList<>();
+        Map<LineStringLocation, LineStringMatch> matchesByLocation = new HashMap<>();
+        for (Coordinate coordinate : List.of(new Coordinate(6.0, 53.0), new Coordinate(5.0, 52.0),
+                new Coordinate(5.5, 52.5))) {
+            LineStringLocation location = mock(LineStringLocation.class);
+            LineStringMatch match = mock(LineStringMatch.class);
+            when(location.getGeometry()).thenReturn(geometryFactory.createLineString(
+                    new Coordinate[]{coordinate, coordinate}));
+            when(match.getStatus()).thenReturn(MatchStatus.MATCH);
+            lineStringLocations.add(location);
+            matchesByLocation.put(location, match);
+        }
+        MapMatchingLineRequest spatiallyOrderedRequest = MapMatchingLineRequest.builder()
+                .locationTypeName("test location type")
+                .locationSupplier(() -> lineStringLocations)
+                .spatiallyOrdered(true)
+                .build();
+        List<LineStringLocation> matchedLocations = new ArrayList<>();
+        when(lineStringMapMatcherFactory.createMapMatcher(preInitializedNetwork, PROFILE_NAME))
+                .thenReturn(lineStringMapMatcher);
+        when(lineStringMapMatcher.match(any())).thenAnswer(invocation -> {
+            matchedLocations.add(invocation.getArgument(0));
+            return matchesByLocation.get(invocation.getArgument(0));
+        });
+
+        try (Stream<LineStringMatch> results = routingMapMatcher.matchLocations(preInitializedNetwork,
+                spatiallyOrderedRequest, PROFILE_NAME)) {
+            assertThat(matchedLocations).isEmpty();
+            assertThat(results).containsExactlyElementsOf(lineStringLocations.stream()
+                    .map(matchesByLocation::get)
+                    .toList());
+        }
+        assertThat(matchedLocations).containsExactly(lineStringLocations.get(1), lineStringLocations.get(2),
+                lineStringLocations.get(0));
+    }
 }
@@ -0,0 +1,98 @@
+package nu.ndw.nls.routingmapmatcher.auto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import nu.ndw.nls.routingmapmatcher.domain.MapMatcher;
+import nu.ndw.nls.routingmapmatcher.model.MatchStatus;
+import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringLocation;
+import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringMatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class AutoLineStringMapMatcherTest {
+
+    private static final double RELIABILITY_THRESHOLD = 90.0;
+
+    @Mock
+    private MapMatcher<LineStringLocation, LineStringMatch> startToEndMapMatcher;
+
+    @Mock
+    private MapMatcher<LineStringLocation, LineStringMatch> lineStringMapMatcher;
+
+    @Mock
+    private LineStringLocation lineStringLocation;
+
+    @Mock
+    private LineStringMatch startToEndMatch;
+
+    @Mock
+    private LineStringMatch lineStringMatch;
+
+    private AutoLineStringMapMatcher autoLineStringMapMatcher;
+
+    @BeforeEach
+    void setUp() {
+        autoLineStringMapMatcher = new AutoLineStringMapMatcher(startToEndMapMatcher, lineStringMapMatcher,
+                RELIABILITY_THRESHOLD);
+    }
+
+    @Test
+    void match_ok_reliableStartToEnd() {
+        when(startToEndMapMatcher.match(lineStringLocation)).thenReturn(startToEndMatch);
+        when(startToEndMatch.getStatus()).thenReturn(MatchStatus.MATCH);
+        when(startToEndMatch.getReliability()).thenReturn(RELIABILITY_THRESHOLD);
+
+        assertThat(autoLineStringMapMatcher.match(lineStringLocation)).isSameAs(startToEndMatch);
+        verifyNoInteractions(lineStringMapMatcher);
+    }
+
+    @Test
+    void match_ok_unreliableStartToEnd() {
+        when(startToEndMapMatcher.match(lineStringLocation)).thenReturn(startToEndMatch);
+        when(startToEndMatch.getStatus()).thenReturn(MatchStatus.MATCH);
+        when(startToEndMatch.getReliability()).thenReturn(50.0);
+        when(lineStringMapMatcher.match(lineStringLocation)).thenReturn(lineStringMatch);
+        when(lineStringMatch.getStatus()).thenReturn(MatchStatus.MATCH);
+        when(lineStringMatch.getReliability()).thenReturn(80.0);
+
+        assertThat(autoLineStringMapMatcher.match(lineStringLocation)).isSameAs(lineStringMatch);
+    }
+
+    @Test
+    void match_ok_unreliableStartToEndMoreReliableThanLineString() {
+        when(startToEndMapMatcher.match(lineStringLocation)).thenReturn(startToEndMatch);
+        when(startToEndMatch.getStatus()).thenReturn(MatchStatus.MATCH);
+        when(startToEndMatch.getReliability()).thenReturn(50.0);
+        when(lineStringMapMatcher.match(lineStringLocation)).thenReturn(lineStringMatch);
+        when(lineStringMatch.getStatus()).thenReturn(MatchStatus.MATCH);
+        when(lineStringMatch.getReliability()).thenReturn(40.0);
+
+        assertThat(autoLineStringMapMatcher.match(lineStringLocation)).isSameAs(startToEndMatch);
+    }
+
+    @Test
+    void match_ok_noStartToEndMatch() {
+        when(startToEndMapMatcher.match(lineStringLocation)).thenReturn(startToEndMatch);
+        when(startToEndMatch.getStatus()).thenReturn(MatchStatus.NO_MATCH);
+        when(lineStringMapMatcher.match(lineStringLocation)).thenReturn(lineStringMatch);
+        when(lineStringMatch.getStatus()).thenReturn(MatchStatus.MATCH);
+
+        assertThat(autoLineStringMapMatcher.match(lineStringLocation)).isSameAs(lineStringMatch);
+    }
+
+    @Test
+    void match_ok_noMatch() {
+        when(startToEndMapMatcher.match(lineStringLocation)).thenReturn(startToEndMatch);
+        when(startToEndMatch.getStatus()).thenReturn(MatchStatus.NO_MATCH);
+        when(lineStringMapMatcher.match(lineStringLocation)).thenReturn(lineStringMatch);
+        when(lineStringMatch.getStatus()).thenReturn(MatchStatus.EXCEPTION);
+
+        assertThat(autoLineStringMapMatcher.match(lineStringLocation)).isSameAs(lineStringMatch);
+    }
+}
@@ -0,0 +1,173 @@
+package nu.ndw.nls.routingmapmatcher.chunked;
+
+import static nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider.CAR;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.SneakyThrows;
+import nu.ndw.nls.routingmapmatcher.TestConfig;
+import nu.ndw.nls.routingmapmatcher.domain.MapMatcher;
+import nu.ndw.nls.routingmapmatcher.model.MatchStatus;
+import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringLocation;
+import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringMatch;
+import nu.ndw.nls.routingmapmatcher.model.linestring.MatchedLink;
+import nu.ndw.nls.routingmapmatcher.network.NetworkGraphHopper;
+import nu.ndw.nls.routingmapmatcher.starttoend.StartToEndMapMatcher;
+import nu.ndw.nls.routingmapmatcher.starttoend.StartToEndMapMatcherFactory;
+import nu.ndw.nls.routingmapmatcher.testutil.TestLineStringProvider;
+import nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider;
+import org.assertj.core.data.Percentage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.linearref.LengthIndexedLine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+@SpringJUnitConfig(classes = {TestConfig.class})
+class ChunkedLineStringMapMatcherIT {
+
+    private static final double CHUNK_LENGTH = 250.0;
+    private static final double CHUNK_OVERLAP = 100.0;
+    private static final int PARALLELISM = 2;
+    private static final double FRACTION_OFFSET = 0.001;
+
+    private final Map<LineStringLocation, LineStringMatch> windowMatches = new ConcurrentHashMap<>();
+
+    private final Set<Thread> windowThreads = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    private StartToEndMapMatcherFactory startToEndMapMatcherFactory;
+
+    private NetworkGraphHopper network;
+
+    private StartToEndMapMatcher startToEndMapMatcher;
+
+    @SneakyThrows
+    @BeforeEach
+    void setup() {
+        network = TestNetworkProvider.getTestNetworkFromFile("/test-data/network.geojson");
+        startToEndMapMatcher = startToEndMapMatcherFactory.createMapMatcher(network, CAR);
+    }
+
+    @Test
+    void match_ok_sameLinksAsCompleteMatch() {
+        LineStringLocation lineStringLocation = TestLineStringProvider.getLineStringLocation(
+                "/test-data/matched_linestring_location.geojson");
+
+        LineStringMatch lineStringMatch;
+        try (ChunkedLineStringMapMatcher chunkedLineStringMapMatcher = new ChunkedLineStringMapMatcher(
+                this::createRecordingMapMatcher, CHUNK_LENGTH, CHUNK_OVERLAP, PARALLELISM)) {
+            lineStringMatch = chunkedLineStringMapMatcher.match(lineStringLocation);
+        }
+
+        LineStringMatch completeMatch = startToEndMapMatcher.match(lineStringLocation);
+        // Stitched from windows, without falling back to matching the complete line string
+        assertThat(windowMatches).hasSizeGreaterThan(1);
+        assertThat(windowMatches.keySet()).noneMatch(window -> window.getGeometry()
+                .equalsExact(lineStringLocation.getGeometry()));
+        assertThat(lineStringMatch.getStatus()).isEqualTo(MatchStatus.MATCH);
+        assertThat(lineStringMatch.getMatchedLinks()).extracting(MatchedLink::getLinkId)
+                .containsExactlyElementsOf(completeMatch.getMatchedLinks().stream().map(MatchedLink::getLinkId)
+                        .toList());
+        assertThat(lineStringMatch.getStartLinkFraction()).isEqualTo(completeMatch.getStartLinkFraction());
+        assertThat(lineStringMatch.getEndLinkFraction()).isEqualTo(completeMatch.getEndLinkFraction());
+        assertThat(lineStringMatch.getDistance()).isCloseTo(completeMatch.getDistance(), Percentage.withPercentage(1));
+        assertThat(lineStringMatch.getReliability()).isLessThanOrEqualTo(100.0);
+    }
+
+    @Test
+    void match_ok_sharedLinkCutMidEdge() {
+        LineStringLocation lineStringLocation = TestLineStringProvider.getLineStringLocation(
+                "/test-data/matched_linestring_location.geojson");
+
+        LineStringMatch lineStringMatch;
+        try (ChunkedLineStringMapMatcher chunkedLineStringMapMatcher = new ChunkedLineStringMapMatcher(
+                this::createRecordingMapMatcher, CHUNK_LENGTH, CHUNK_OVERLAP, PARALLELISM)) {
+            lineStringMatch = chunkedLineStringMapMatcher.match(lineStringLocation);
+        }
+
+        // The second window starts on a link that the first window matched, so the stitched link is cut mid-edge
+        List<LineStringMatch> windowMatchesInOrder = windowMatches.entrySet().stream()
+                .sorted(Comparator.comparingDouble(entry -> distanceFromStart(lineStringLocation, entry.getKey())))
+                .map(Entry::getValue)
+                .toList();
+        MatchedLink cutLink = windowMatchesInOrder.get(1).getMatchedLinks().getFirst();
+        assertThat(cutLink.getStartFraction()).isStrictlyBetween(0.0, 1.0);
+        assertThat(windowMatchesInOrder.getFirst().getMatchedLinks()).extracting(MatchedLink::getLinkId)
+                .contains(cutLink.getLinkId());
+
+        LineStringMatch completeMatch = startToEndMapMatcher.match(lineStringLocation);
+        MatchedLink stitchedLink = findLink(lineStringMatch, cutLink.getLinkId());
+        MatchedLink completeLink = findLink(completeMatch, cutLink.getLinkId());
+        assertThat(stitchedLink.getStartFraction()).isCloseTo(completeLink.getStartFraction(), offset(FRACTION_OFFSET));
+        assertThat(stitchedLink.getEndFraction()).isCloseTo(completeLink.getEndFraction(), offset(FRACTION_OFFSET));
+        assertThat(stitchedLink.getDistance()).isCloseTo(completeLink.getDistance(), Percentage.withPercentage(1));
+    }
+
+    @Test
+    void match_ok_shortLineStringMatchedCompletely() {
+        ChunkedLineStringMapMatcher chunkedLineStringMapMatcher = new ChunkedLineStringMapMatcher(
+                () -> startToEndMapMatcherFactory.createMapMatcher(network, CAR), 10_000.0, CHUNK_OVERLAP,
+                PARALLELISM);
+        LineStringLocation lineStringLocation = TestLineStringProvider.getLineStringLocation(
+                "/test-data/matched_linestring_location.geojson");
+
+        assertThat(chunkedLineStringMapMatcher.match(lineStringLocation))
+                .isEqualTo(startToEndMapMatcher.match(lineStringLocation));
+    }
+
+    @Test
+    void match_ok_executorSharedBetweenMatches() {
+        LineStringLocation lineStringLocation = TestLineStringProvider.getLineStringLocation(
+                "/test-data/matched_linestring_location.geojson");
+
+        try (ChunkedLineStringMapMatcher chunkedLineStringMapMatcher = new ChunkedLineStringMapMatcher(
+                this::createRecordingMapMatcher, CHUNK_LENGTH, CHUNK_OVERLAP, PARALLELISM)) {
+            LineStringMatch first = chunkedLineStringMapMatcher.match(lineStringLocation);
+            LineStringMatch second = chunkedLineStringMapMatcher.match(lineStringLocation);
+
+            assertThat(second).isEqualTo(first);
+        }
+        assertThat(windowThreads).hasSizeLessThanOrEqualTo(PARALLELISM);
+    }
+
+    @Test
+    void constructor_exception_overlapNotShorterThanChunk() {
+        assertThatThrownBy(() -> new ChunkedLineStringMapMatcher(() -> startToEndMapMatcher, CHUNK_OVERLAP,
+                CHUNK_OVERLAP, PARALLELISM))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Chunk overlap 100.0 must be at least 0 and less than chunk length 100.0");
+    }
+
+    /**
+     * @return a map matcher that records the windows it matches and the threads it matches them on
+     */
+    private MapMatcher<LineStringLocation, LineStringMatch> createRecordingMapMatcher() {
+        StartToEndMapMatcher mapMatcher = startToEndMapMatcherFactory.createMapMatcher(network, CAR);
+        return location -> {
+            LineStringMatch match = mapMatcher.match(location);
+            windowMatches.put(location, match);
+            windowThreads.add(Thread.currentThread());
+            return match;
+        };
+    }
+
+    private static double distanceFromStart(LineStringLocation lineStringLocation, LineStringLocation window) {
+        return new LengthIndexedLine(lineStringLocation.getGeometry())
+                .indexOf(window.getGeometry().getStartPoint().getCoordinate());
+    }
+
+    private static MatchedLink findLink(LineStringMatch lineStringMatch, int linkId) {
+        return lineStringMatch.getMatchedLinks().stream()
+                .filter(matchedLink -> matchedLink.getLinkId() == linkId)
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -19,6 +19,7 @@ import nu.ndw.nls.geometry.factories.GeometryFactoryWgs84;
 import nu.ndw.nls.routingmapmatcher.TestConfig;
 import nu.ndw.nls.routingmapmatcher.isochrone.algorithm.IsoLabel;
 import nu.ndw.nls.routingmapmatcher.model.IsochroneMatch;
+import nu.ndw.nls.routingmapmatcher.network.storage.EdgeGeometryCache;
 import nu.ndw.nls.routingmapmatcher.util.PointListUtil;
 import org.assertj.core.data.Percentage;
 import org.junit.jupiter.api.BeforeEach;
@@ -93,7 +94,7 @@ class IsochroneMatchMapperTest {
                 COORDINATE_2});
 
         isochroneMatchMapper = new IsochroneMatchMapper(encodingManager, edgeIteratorStateReverseExtractor,
-                pointListUtil, fractionAndDistanceCalculator);
+                new EdgeGeometryCache(EdgeGeometryCache.DISABLED, pointListUtil), fractionAndDistanceCalculator);
     }
 
     @Test
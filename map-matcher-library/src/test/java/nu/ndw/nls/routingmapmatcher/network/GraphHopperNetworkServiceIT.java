@@ -1,14 +1,19 @@
 package nu.ndw.nls.routingmapmatcher.network;
 
+import static nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider.CAR;
 import static nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider.HGV_ACCESSIBLE_KEY;
 import static nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider.TEST_PROFILES;
 import static nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider.getTestLinks;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import ch.qos.logback.classic.Level;
+import com.graphhopper.config.Profile;
 import com.graphhopper.routing.ev.BooleanEncodedValue;
 import com.graphhopper.routing.ev.IntEncodedValue;
+import com.graphhopper.routing.ev.StringEncodedValue;
 import com.graphhopper.routing.util.AllEdgesIterator;
+import com.graphhopper.storage.DAType;
 import com.graphhopper.util.EdgeIteratorState;
 import java.io.File;
 import java.nio.file.Files;
@@ -18,10 +23,15 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.function.Supplier;
+import lombok.Getter;
 import lombok.SneakyThrows;
 import nu.ndw.nls.geometry.factories.GeometryFactoryWgs84;
+import nu.ndw.nls.routingmapmatcher.network.annotations.EncodedValue;
+import nu.ndw.nls.routingmapmatcher.network.model.DirectionalDto;
 import nu.ndw.nls.routingmapmatcher.network.model.Link;
+import nu.ndw.nls.routingmapmatcher.network.model.LinkVehicleMapper;
 import nu.ndw.nls.routingmapmatcher.network.model.RoutingNetworkSettings;
+import nu.ndw.nls.routingmapmatcher.network.storage.WayIdToEdgeKeyIndex;
 import nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider;
 import nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider.TestLink;
 import nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider.TestLinkCarMapper;
@@ -32,11 +42,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.LineString;
 
 class GraphHopperNetworkServiceIT {
 
     private static final String TEST_NETWORK = "test_network";
 
+    private static final String NAME_KEY = "road_name";
+
     private static final Instant DATA_DATE = Instant.parse("2023-11-07T15:37:23.129Z");
 
     private static final Instant DATA_DATE_TRUNCATED = Instant.parse("2023-11-07T15:37:23Z");
@@ -76,6 +89,7 @@ class GraphHopperNetworkServiceIT {
 
         assertThat(graphHopperLocation.resolve(TEST_NETWORK)).exists();
         assertThat(graphHopperLocation.resolve(TEST_NETWORK).resolve("properties")).exists();
+        assertThat(graphHopperLocation.resolve(TEST_NETWORK).resolve(WayIdToEdgeKeyIndex.NAME)).exists();
 
         graphHopperNetworkService = getNewGraphHopperNetworkService();
         NetworkGraphHopper networkGraphHopper = graphHopperNetworkService.loadFromDisk(routingNetworkSettings);
@@ -101,8 +115,14 @@ class GraphHopperNetworkServiceIT {
                 .filter(event -> event.getLevel() == Level.DEBUG)
                 .filter(event -> event.getMessage().startsWith("Build wayId to edgeKey maps in "))
                 .count())
-                .withFailMessage("Expected debug log message with edge map build time but was not found.")
-                .isEqualTo(2);
+                .withFailMessage("Expected the edge map to be built once, when storing the network.")
+                .isEqualTo(1);
+        assertThat(loggerExtension.getLogEvents().stream()
+                .filter(event -> event.getLevel() == Level.DEBUG)
+                .filter(event -> event.getMessage().startsWith("Loaded wayId to edgeKey index in "))
+                .count())
+                .withFailMessage("Expected the stored edge map to be loaded when loading the network.")
+                .isEqualTo(1);
     }
 
     private GraphHopperNetworkService getNewGraphHopperNetworkService() {
@@ -159,6 +179,153 @@ class GraphHopperNetworkServiceIT {
         verifyCustomEncodedValue(networkGraphHopper, 2L, true);
     }
 
+    @SneakyThrows
+    @Test
+    void loadFromDisk_memoryMapped() {
+        Path tempDirectory = Files.createTempDirectory("graphhopper");
+
+        RoutingNetworkSettings<TestLink> routingNetworkSettings = RoutingNetworkSettings.builder(TestLink.class)
+                .networkNameAndVersion(TEST_NETWORK)
+                .profiles(TEST_PROFILES)
+                .graphhopperRootPath(tempDirectory)
+                .linkSupplier(() -> List.of(
+                        createTestLink(1, false, new Coordinate(1, 2), new Coordinate(3, 4)),
+                        createTestLink(2, true, new Coordinate(5, 6), new Coordinate(7, 8))).iterator())
+                .indexed(true)
+                .dataAccessType(DAType.MMAP)
+                .preloadDataAccess(true)
+                .build();
+
+        GraphHopperNetworkService graphHopperNetworkService = getNewGraphHopperNetworkService();
+        graphHopperNetworkService.storeOnDisk(routingNetworkSettings);
+        NetworkGraphHopper networkGraphHopper = graphHopperNetworkService.loadFromDisk(routingNetworkSettings);
+
+        assertThat(networkGraphHopper.getBaseGraph().getDirectory().getDefaultType()).isEqualTo(DAType.MMAP);
+        verifyCustomEncodedValue(networkGraphHopper, 1L, false);
+        verifyCustomEncodedValue(networkGraphHopper, 2L, true);
+        networkGraphHopper.close();
+        FileUtils.deleteDirectory(tempDirectory.toFile());
+    }
+
+    @Test
+    void loadFromDisk_exception_notStoringDataAccessType() {
+        RoutingNetworkSettings<TestLink> routingNetworkSettings = RoutingNetworkSettings.builder(TestLink.class)
+                .networkNameAndVersion(TEST_NETWORK)
+                .profiles(TEST_PROFILES)
+                .graphhopperRootPath(Path.of(TEST_NETWORK))
+                .dataAccessType(DAType.RAM)
+                .build();
+
+        GraphHopperNetworkService graphHopperNetworkService = getNewGraphHopperNetworkService();
+
+        assertThatThrownBy(() -> graphHopperNetworkService.loadFromDisk(routingNetworkSettings))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Data access type RAM cannot load a network from disk");
+    }
+
+    @Test
+    void applyLinkUpdates_ok() {
+        RoutingNetworkSettings<TestLink> routingNetworkSettings = RoutingNetworkSettings.builder(TestLink.class)
+                .networkNameAndVersion(TEST_NETWORK)
+                .profiles(TEST_PROFILES)
+                .linkSupplier(() -> List.of(
+                        createTestLink(1, false, new Coordinate(1, 2), new Coordinate(3, 4)),
+                        createTestLink(2, true, new Coordinate(5, 6), new Coordinate(7, 8))).iterator())
+                .indexed(true)
+                .build();
+
+        GraphHopperNetworkService graphHopperNetworkService = getNewGraphHopperNetworkService();
+        NetworkGraphHopper networkGraphHopper = graphHopperNetworkService.inMemory(routingNetworkSettings);
+        NetworkHolder networkHolder = new NetworkHolder(networkGraphHopper);
+        int updatedLinks = graphHopperNetworkService.applyLinkUpdates(networkHolder, TestLink.class, List.of(
+                createTestLink(1, true, new Coordinate(1, 2), new Coordinate(3, 4)),
+                createTestLink(2, false, new Coordinate(5, 6), new Coordinate(7, 8))));
+
+        assertThat(updatedLinks).isEqualTo(2);
+        verifyCustomEncodedValue(networkGraphHopper, 1L, true);
+        verifyCustomEncodedValue(networkGraphHopper, 2L, false);
+    }
+
+    @Test
+    void applyLinkUpdates_exception_unknownLink() {
+        RoutingNetworkSettings<TestLink> routingNetworkSettings = RoutingNetworkSettings.builder(TestLink.class)
+                .networkNameAndVersion(TEST_NETWORK)
+                .profiles(TEST_PROFILES)
+                .linkSupplier(() -> List.of(
+                        createTestLink(1, false, new Coordinate(1, 2), new Coordinate(3, 4))).iterator())
+                .indexed(true)
+                .build();
+
+        GraphHopperNetworkService graphHopperNetworkService = getNewGraphHopperNetworkService();
+        NetworkGraphHopper networkGraphHopper = graphHopperNetworkService.inMemory(routingNetworkSettings);
+        List<TestLink> changedLinks = List.of(
+                createTestLink(1, true, new Coordinate(1, 2), new Coordinate(3, 4)),
+                createTestLink(3, true, new Coordinate(5, 6), new Coordinate(7, 8)));
+
+        assertThatThrownBy(() -> graphHopperNetworkService.applyLinkUpdates(new NetworkHolder(networkGraphHopper),
+                TestLink.class, changedLinks))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Links [3] are not part of the network");
+        verifyCustomEncodedValue(networkGraphHopper, 1L, false);
+    }
+
+    @Test
+    void applyLinkUpdates_exception_notIndexed() {
+        RoutingNetworkSettings<TestLink> routingNetworkSettings = RoutingNetworkSettings.builder(TestLink.class)
+                .networkNameAndVersion(TEST_NETWORK)
+                .profiles(TEST_PROFILES)
+                .linkSupplier(() -> List.of(
+                        createTestLink(1, false, new Coordinate(1, 2), new Coordinate(3, 4))).iterator())
+                .build();
+
+        GraphHopperNetworkService graphHopperNetworkService = getNewGraphHopperNetworkService();
+        NetworkGraphHopper networkGraphHopper = graphHopperNetworkService.inMemory(routingNetworkSettings);
+        List<TestLink> changedLinks = List.of(createTestLink(1, true, new Coordinate(1, 2), new Coordinate(3, 4)));
+
+        assertThatThrownBy(() -> graphHopperNetworkService.applyLinkUpdates(new NetworkHolder(networkGraphHopper),
+                TestLink.class, changedLinks))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void applyLinkUpdates_exception_stringValuesExhausted() {
+        RoutingNetworkSettings<NamedTestLink> routingNetworkSettings = RoutingNetworkSettings
+                .builder(NamedTestLink.class)
+                .networkNameAndVersion(TEST_NETWORK)
+                .profiles(List.of(new Profile(CAR)))
+                .linkSupplier(() -> List.of(
+                        createNamedTestLink(1, "a", new Coordinate(1, 2), new Coordinate(3, 4)),
+                        createNamedTestLink(2, "b", new Coordinate(5, 6), new Coordinate(7, 8))).iterator())
+                .indexed(true)
+                .build();
+
+        GraphHopperNetworkService graphHopperNetworkService = TestNetworkProvider.getNetworkService(List.of(
+                new NamedTestLinkCarMapper()));
+        NetworkGraphHopper networkGraphHopper = graphHopperNetworkService.inMemory(routingNetworkSettings);
+        // The name encoded value has room for three values, so the second new name does not fit
+        List<NamedTestLink> changedLinks = List.of(
+                createNamedTestLink(1, "c", new Coordinate(1, 2), new Coordinate(3, 4)),
+                createNamedTestLink(2, "d", new Coordinate(5, 6), new Coordinate(7, 8)));
+
+        assertThatThrownBy(() -> graphHopperNetworkService.applyLinkUpdates(new NetworkHolder(networkGraphHopper),
+                NamedTestLink.class, changedLinks))
+                .isInstanceOf(IllegalStateException.class);
+        verifyName(networkGraphHopper, 1L, "a");
+        verifyName(networkGraphHopper, 2L, "b");
+    }
+
+    private TestLink createTestLink(long id, boolean hgvAccessible, Coordinate from, Coordinate to) {
+        return TestLink.builder()
+                .id(id)
+                .hgvAccessible(hgvAccessible)
+                .distanceInMeters(1)
+                .speedInKilometersPerHour(1)
+                .geometry(geometryFactoryWgs84.createLineString(new Coordinate[]{from, to}))
+                .fromNodeId(id * 2 - 1)
+                .toNodeId(id * 2)
+                .build();
+    }
+
     private void verifyCustomEncodedValue(
             NetworkGraphHopper networkGraphHopper,
             Long roadSectionId,
@@ -171,6 +338,19 @@ class GraphHopperNetworkServiceIT {
         assertThat(edge.get(encodedValue)).isEqualTo(expectedValue);
     }
 
+    private NamedTestLink createNamedTestLink(long id, String name, Coordinate from, Coordinate to) {
+        return new NamedTestLink(id, id * 2 - 1, id * 2, 1,
+                geometryFactoryWgs84.createLineString(new Coordinate[]{from, to}), name);
+    }
+
+    private static void verifyName(NetworkGraphHopper networkGraphHopper, Long roadSectionId, String expectedName) {
+        Integer edgeKey = networkGraphHopper.getWayIdToEdgeKey().get(roadSectionId);
+        EdgeIteratorState edge = networkGraphHopper.getBaseGraph().getEdgeIteratorStateForKey(edgeKey);
+        StringEncodedValue encodedValue = networkGraphHopper.getEncodingManager().getStringEncodedValue(NAME_KEY);
+
+        assertThat(edge.get(encodedValue)).isEqualTo(expectedName);
+    }
+
     @SneakyThrows
     @Test
     void storeOnDisk() {
@@ -197,4 +377,34 @@ class GraphHopperNetworkServiceIT {
         Path path = Path.of(TEST_NETWORK);
         FileUtils.deleteDirectory(new File(path.toUri()));
     }
+
+    @Getter
+    public static class NamedTestLink extends Link {
+
+        @EncodedValue(key = NAME_KEY, bits = 2)
+        private final String name;
+
+        public NamedTestLink(long id, long fromNodeId, long toNodeId, double distanceInMeters, LineString geometry,
+                String name) {
+            super(id, fromNodeId, toNodeId, distanceInMeters, geometry);
+            this.name = name;
+        }
+    }
+
+    public static class NamedTestLinkCarMapper extends LinkVehicleMapper<NamedTestLink> {
+
+        public NamedTestLinkCarMapper() {
+            super(CAR, NamedTestLink.class);
+        }
+
+        @Override
+        public DirectionalDto<Boolean> getAccessibility(NamedTestLink link) {
+            return new DirectionalDto<>(true);
+        }
+
+        @Override
+        public DirectionalDto<Double> getSpeed(NamedTestLink link) {
+            return new DirectionalDto<>(10D);
+        }
+    }
 }
@@ -0,0 +1,159 @@
+package nu.ndw.nls.routingmapmatcher.network;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.SneakyThrows;
+import nu.ndw.nls.routingmapmatcher.network.NetworkHolder.Lease;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class NetworkHolderTest {
+
+    private static final long WAIT_MILLIS = 100;
+
+    @Mock
+    private NetworkGraphHopper network1;
+    @Mock
+    private NetworkGraphHopper network2;
+
+    @Test
+    void acquire_ok() {
+        NetworkHolder networkHolder = new NetworkHolder(network1);
+
+        try (Lease lease = networkHolder.acquire()) {
+            assertThat(lease.getNetwork()).isSameAs(network1);
+            assertThat(lease.getVersion()).isEqualTo(1);
+        }
+        verify(network1, never()).close();
+    }
+
+    @Test
+    void publish_ok_oldVersionClosedAfterLastLease() {
+        NetworkHolder networkHolder = new NetworkHolder(network1);
+        Lease oldLease = networkHolder.acquire();
+
+        assertThat(networkHolder.publish(network2)).isEqualTo(2);
+        assertThat(networkHolder.getCurrentVersion()).isEqualTo(2);
+        verify(network1, never()).close();
+
+        try (Lease newLease = networkHolder.acquire()) {
+            assertThat(newLease.getNetwork()).isSameAs(network2);
+        }
+        assertThat(oldLease.getNetwork()).isSameAs(network1);
+        oldLease.close();
+        oldLease.close();
+
+        verify(network1).close();
+        verify(network2, never()).close();
+    }
+
+    @Test
+    void publish_ok_noLeases() {
+        NetworkHolder networkHolder = new NetworkHolder(network1);
+
+        networkHolder.publish(network2);
+
+        verify(network1).close();
+    }
+
+    @Test
+    void close_ok() {
+        NetworkHolder networkHolder = new NetworkHolder(network1);
+        Lease lease = networkHolder.acquire();
+
+        networkHolder.close();
+
+        assertThat(networkHolder.getCurrentVersion()).isEqualTo(-1);
+        assertThatThrownBy(networkHolder::acquire).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> networkHolder.publish(network2)).isInstanceOf(IllegalStateException.class);
+        verify(network1, never()).close();
+        lease.close();
+        verify(network1).close();
+        assertThatThrownBy(lease::getNetwork).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void update_ok() {
+        NetworkHolder networkHolder = new NetworkHolder(network1);
+
+        assertThat(networkHolder.update(network -> network == network1)).isTrue();
+
+        try (Lease lease = networkHolder.acquire()) {
+            assertThat(lease.getNetwork()).isSameAs(network1);
+        }
+        verify(network1, never()).close();
+    }
+
+    @SneakyThrows
+    @Test
+    void update_ok_waitsForOpenLeases() {
+        NetworkHolder networkHolder = new NetworkHolder(network1);
+        Lease lease = networkHolder.acquire();
+        AtomicBoolean updated = new AtomicBoolean();
+
+        Thread updater = new Thread(() -> networkHolder.update(network -> {
+            updated.set(true);
+            return null;
+        }));
+        updater.start();
+        updater.join(WAIT_MILLIS);
+
+        assertThat(updater.isAlive()).isTrue();
+        assertThat(updated).isFalse();
+        lease.close();
+        updater.join();
+        assertThat(updated).isTrue();
+        verify(network1, never()).close();
+    }
+
+    @SneakyThrows
+    @Test
+    void acquire_ok_waitsForUpdate() {
+        NetworkHolder networkHolder = new NetworkHolder(network1);
+        CountDownLatch updateStarted = new CountDownLatch(1);
+        CountDownLatch updateReleased = new CountDownLatch(1);
+        Thread updater = new Thread(() -> networkHolder.update(network -> {
+            updateStarted.countDown();
+            await(updateReleased);
+            return null;
+        }));
+        updater.start();
+        updateStarted.await();
+        AtomicBoolean acquired = new AtomicBoolean();
+
+        Thread reader = new Thread(() -> {
+            try (Lease lease = networkHolder.acquire()) {
+                acquired.set(true);
+            }
+        });
+        reader.start();
+        reader.join(WAIT_MILLIS);
+
+        assertThat(acquired).isFalse();
+        updateReleased.countDown();
+        reader.join();
+        updater.join();
+        assertThat(acquired).isTrue();
+    }
+
+    @Test
+    void update_exception_closed() {
+        NetworkHolder networkHolder = new NetworkHolder(network1);
+        networkHolder.close();
+
+        assertThatThrownBy(() -> networkHolder.update(network -> null)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @SneakyThrows
+    private static void await(CountDownLatch countDownLatch) {
+        countDownLatch.await();
+    }
+}
@@ -0,0 +1,45 @@
+package nu.ndw.nls.routingmapmatcher.network.init;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import nu.ndw.nls.geometry.factories.GeometryFactoryWgs84;
+import nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider.TestLink;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+
+class NetworkCapacityTest {
+
+    private final GeometryFactoryWgs84 geometryFactoryWgs84 = new GeometryFactoryWgs84();
+
+    @Test
+    void count_ok() {
+        List<TestLink> links = List.of(
+                createLink(1, 10, 11, 3),
+                createLink(2, 11, 12, 2),
+                createLink(3, 12, 10, 5),
+                createLink(4, 12, 12, 4));
+
+        NetworkCapacity networkCapacity = NetworkCapacity.count(links.iterator());
+
+        assertThat(networkCapacity).isEqualTo(new NetworkCapacity(3, 3, 4));
+    }
+
+    @Test
+    void count_ok_empty() {
+        assertThat(NetworkCapacity.count(List.<TestLink>of().iterator())).isEqualTo(new NetworkCapacity(0, 0, 0));
+    }
+
+    private TestLink createLink(long id, long fromNodeId, long toNodeId, int numberOfPoints) {
+        Coordinate[] coordinates = new Coordinate[numberOfPoints];
+        for (int index = 0; index < numberOfPoints; index++) {
+            coordinates[index] = new Coordinate(5 + index * 0.001, 52);
+        }
+        return TestLink.builder()
+                .id(id)
+                .fromNodeId(fromNodeId)
+                .toNodeId(toNodeId)
+                .geometry(geometryFactoryWgs84.createLineString(coordinates))
+                .build();
+    }
+}
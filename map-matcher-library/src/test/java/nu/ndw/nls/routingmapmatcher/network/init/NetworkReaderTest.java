@@ -1,21 +1,35 @@
 package nu.ndw.nls.routingmapmatcher.network.init;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
-import com.graphhopper.coll.GHLongLongBTree;
-import com.graphhopper.coll.LongLongMap;
+import com.carrotsearch.hppc.LongIntHashMap;
 import com.graphhopper.routing.ev.EdgeIntAccess;
+import com.graphhopper.routing.ev.StringEncodedValue;
+import com.graphhopper.routing.util.EncodingManager;
 import com.graphhopper.routing.util.parsers.TagParser;
 import com.graphhopper.storage.BaseGraph;
 import com.graphhopper.storage.IntsRef;
 import com.graphhopper.storage.NodeAccess;
 import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.FetchMode;
 import com.graphhopper.util.PointList;
 import com.graphhopper.util.shapes.BBox;
+import java.util.ArrayList;
 import java.util.List;
+import lombok.Getter;
+import nu.ndw.nls.geometry.factories.GeometryFactoryWgs84;
+import nu.ndw.nls.routingmapmatcher.network.annotations.EncodedValue;
+import nu.ndw.nls.routingmapmatcher.network.annotations.mappers.AnnotationMapper;
+import nu.ndw.nls.routingmapmatcher.network.annotations.mappers.DirectionalFieldGenericTypeArgumentMapper;
+import nu.ndw.nls.routingmapmatcher.network.annotations.mappers.EncodedValuesMapper;
+import nu.ndw.nls.routingmapmatcher.network.annotations.model.EncodedValueDto;
+import nu.ndw.nls.routingmapmatcher.network.init.annotation.encodedvaluefactories.EncodedStringValueFactory;
+import nu.ndw.nls.routingmapmatcher.network.init.annotation.mappers.EncodedStringValueMapper;
+import nu.ndw.nls.routingmapmatcher.network.model.Link;
 import nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider.TestLink;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -55,6 +69,19 @@ class NetworkReaderTest {
 
     private static final int EDGE_ID = 2;
 
+    private static final String NAME_KEY = "name";
+
+    // For string encoded values, the bits of the annotation are the expected number of distinct values
+    private static final int NAME_VALUE_COUNT = 64;
+
+    private static final int NAMED_LINK_COUNT = 2_500;
+
+    private static final int LINKS_PER_NAME = 50;
+
+    private static final double COORDINATE_STEP = 0.0001;
+
+    private static final GeometryFactoryWgs84 GEOMETRY_FACTORY = new GeometryFactoryWgs84();
+
     private static final Coordinate coordinateA1 = new Coordinate(LONG_1, LAT_1);
 
     private static final Coordinate coordinateA2 = new Coordinate(LONG_2, LAT_2);
@@ -76,7 +103,7 @@ class NetworkReaderTest {
     @Mock
     private TagParser tagParser;
 
-    private LongLongMap nodeIdToInternalNodeIdMap;
+    private LongIntHashMap nodeIdToInternalNodeIdMap;
 
     @Mock
     private EdgeIntAccess edgeIntAccess;
@@ -119,16 +146,104 @@ class NetworkReaderTest {
         verify(bBox).update(LAT_3 - .000001, LONG_3 - .000001);
     }
 
+    @Test
+    void readGraph_pipelined() {
+        setupWithExpandBoundsParameter(false, 2);
+
+        networkReader.readGraph();
+
+        verifyResults();
+        verifyNoMoreInteractions(bBox);
+    }
+
+    @Test
+    void readGraph_pipelined_sameGraphAsSequentialWithStringEncodedValue() {
+        List<NamedLink> links = createNamedLinks();
+
+        NamedGraph sequential = readNamedGraph(links, 1);
+        NamedGraph pipelined = readNamedGraph(links, 4);
+
+        assertEquals(NAMED_LINK_COUNT, sequential.baseGraph().getEdges());
+        assertEquals(sequential.baseGraph().getEdges(), pipelined.baseGraph().getEdges());
+        assertEquals(sequential.baseGraph().getNodes(), pipelined.baseGraph().getNodes());
+        for (int edgeId = 0; edgeId < sequential.baseGraph().getEdges(); edgeId++) {
+            EdgeIteratorState sequentialEdge = sequential.baseGraph().getEdgeIteratorState(edgeId, Integer.MIN_VALUE);
+            EdgeIteratorState pipelinedEdge = pipelined.baseGraph().getEdgeIteratorState(edgeId, Integer.MIN_VALUE);
+            assertEquals(sequentialEdge.getBaseNode(), pipelinedEdge.getBaseNode());
+            assertEquals(sequentialEdge.getAdjNode(), pipelinedEdge.getAdjNode());
+            assertEquals(sequentialEdge.getDistance(), pipelinedEdge.getDistance());
+            assertEquals(sequentialEdge.fetchWayGeometry(FetchMode.ALL), pipelinedEdge.fetchWayGeometry(FetchMode.ALL));
+            assertEquals(links.get(edgeId).getName(), pipelinedEdge.get(pipelined.name()));
+            // The string dictionary is filled in link order, so the stored indexes must be equal as well
+            assertEquals(sequential.name().getInt(false, edgeId, sequential.baseGraph().getEdgeAccess()),
+                    pipelined.name().getInt(false, edgeId, pipelined.baseGraph().getEdgeAccess()));
+        }
+    }
+
+    @Test
+    void readGraph_pipelined_invalidGeometry() {
+        when(baseGraph.getEdgeAccess()).thenReturn(edgeIntAccess);
+        networkReader = new NetworkReader(baseGraph, List.of(link)::iterator, List.of(tagParser),
+                new LongIntHashMap(), false, 2);
+        when(link.getGeometry()).thenReturn(lineString);
+        when(lineString.getCoordinates()).thenReturn(new Coordinate[]{coordinateA1});
+
+        assertThrows(IllegalStateException.class, networkReader::readGraph);
+    }
+
+    @Test
+    void constructor_invalidImportThreads() {
+        List<TagParser> tagParsers = List.of(tagParser);
+        LongIntHashMap nodeMap = new LongIntHashMap();
+
+        assertThrows(IllegalArgumentException.class, () -> new NetworkReader(baseGraph, List.of(link)::iterator,
+                tagParsers, nodeMap, false, 0));
+    }
+
+    private static List<NamedLink> createNamedLinks() {
+        List<NamedLink> links = new ArrayList<>(NAMED_LINK_COUNT);
+        for (int index = 0; index < NAMED_LINK_COUNT; index++) {
+            double longitude = LONG_1 + index * COORDINATE_STEP;
+            LineString geometry = GEOMETRY_FACTORY.createLineString(new Coordinate[]{
+                    new Coordinate(longitude, LAT_1),
+                    new Coordinate(longitude + COORDINATE_STEP / 2, LAT_1 + COORDINATE_STEP),
+                    new Coordinate(longitude + COORDINATE_STEP, LAT_1)});
+            // New names keep appearing throughout the import, so they are added by several batches
+            String name = "name_" + index / LINKS_PER_NAME;
+            links.add(new NamedLink(index, index, index + 1L, geometry, name));
+        }
+        return links;
+    }
+
+    private static NamedGraph readNamedGraph(List<NamedLink> links, int importThreads) {
+        EncodedValueDto<NamedLink, String> nameDto = new EncodedValuesMapper(new AnnotationMapper(),
+                new DirectionalFieldGenericTypeArgumentMapper())
+                .map(NamedLink.class)
+                .getByKey(String.class, NAME_KEY)
+                .orElseThrow();
+        StringEncodedValue name = (StringEncodedValue) new EncodedStringValueFactory().encode(nameDto);
+        EncodingManager encodingManager = EncodingManager.start().add(name).build();
+        BaseGraph namedBaseGraph = new BaseGraph.Builder(encodingManager).create();
+        List<TagParser> tagParsers = List.of(new EncodedStringValueMapper<>(encodingManager, nameDto));
+        new NetworkReader(namedBaseGraph, links::iterator, tagParsers, new LongIntHashMap(), false, importThreads)
+                .readGraph();
+        return new NamedGraph(namedBaseGraph, name);
+    }
+
     void setupWithExpandBoundsParameter(boolean expandBounds) {
-        // Use parameters from NetworkGraphHopper class
-        nodeIdToInternalNodeIdMap = new GHLongLongBTree(200, 4, -1);
+        setupWithExpandBoundsParameter(expandBounds, 1);
+    }
+
+    void setupWithExpandBoundsParameter(boolean expandBounds, int importThreads) {
+        nodeIdToInternalNodeIdMap = new LongIntHashMap();
         when(baseGraph.getEdgeAccess()).thenReturn(edgeIntAccess);
         networkReader = new NetworkReader(
                 baseGraph,
                 List.of(link)::iterator,
                 List.of(tagParser),
                 nodeIdToInternalNodeIdMap,
-                expandBounds);
+                expandBounds,
+                importThreads);
 
         when(link.getGeometry()).thenReturn(lineString);
         Coordinate[] coordinates = {coordinateA1, coordinateA2, coordinateA3};
@@ -148,10 +263,30 @@ class NetworkReaderTest {
         verify(nodeAccess).setNode(FROM_NODE_ID_INTERNAL, LAT_1, LONG_1);
         verify(nodeAccess).setNode(TO_NODE_ID_INTERNAL, LAT_3, LONG_3);
         verify(tagParser).handleWayTags(EDGE_ID, edgeIntAccess, link, IntsRef.EMPTY);
+        verifyPillarNodes();
+    }
+
+    private void verifyPillarNodes() {
         verify(edge).setWayGeometry(pointListArgumentCaptor.capture());
         PointList pointList = pointListArgumentCaptor.getValue();
         assertEquals(1, pointList.size());
         assertEquals(LONG_2, pointList.getLon(0));
         assertEquals(LAT_2, pointList.getLat(0));
     }
+
+    private record NamedGraph(BaseGraph baseGraph, StringEncodedValue name) {
+
+    }
+
+    @Getter
+    public static class NamedLink extends Link {
+
+        @EncodedValue(key = NAME_KEY, bits = NAME_VALUE_COUNT)
+        private final String name;
+
+        private NamedLink(long id, long fromNodeId, long toNodeId, LineString geometry, String name) {
+            super(id, fromNodeId, toNodeId, DISTANCE, geometry);
+            this.name = name;
+        }
+    }
 }
@@ -0,0 +1,174 @@
+package nu.ndw.nls.routingmapmatcher.network.storage;
+
+import static nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider.CAR;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import nu.ndw.nls.geometry.factories.GeometryFactoryWgs84;
+import nu.ndw.nls.routingmapmatcher.TestConfig;
+import nu.ndw.nls.routingmapmatcher.model.IsochroneMatch;
+import nu.ndw.nls.routingmapmatcher.model.IsochroneUnit;
+import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringLocation;
+import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringMatch;
+import nu.ndw.nls.routingmapmatcher.model.linestring.MatchedLink;
+import nu.ndw.nls.routingmapmatcher.model.linestring.ReliabilityCalculationType;
+import nu.ndw.nls.routingmapmatcher.model.singlepoint.SinglePointLocation;
+import nu.ndw.nls.routingmapmatcher.model.singlepoint.SinglePointMatch;
+import nu.ndw.nls.routingmapmatcher.model.singlepoint.SinglePointMatch.CandidateMatch;
+import nu.ndw.nls.routingmapmatcher.network.NetworkGraphHopper;
+import nu.ndw.nls.routingmapmatcher.singlepoint.SinglePointMapMatcher;
+import nu.ndw.nls.routingmapmatcher.singlepoint.SinglePointMapMatcherFactory;
+import nu.ndw.nls.routingmapmatcher.starttoend.StartToEndMapMatcher;
+import nu.ndw.nls.routingmapmatcher.starttoend.StartToEndMapMatcherFactory;
+import nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.LineString;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+/**
+ * Runs the same matches on networks with the edge geometry cache disabled and enabled. The cache alone must not change
+ * any fraction, while fraction lookup may only change them within rounding.
+ */
+@SpringJUnitConfig(classes = {TestConfig.class})
+class EdgeGeometryCacheIT {
+
+    private static final String LINKS_RESOURCE = "/test-data/network.geojson";
+    private static final String BIDIRECTIONAL_LINKS_RESOURCE = "/test-data/network_bidirectional.geojson";
+    private static final String SHIVI_LINKS_RESOURCE = "/test-data/network_shivi_traffic_ways.geojson";
+    private static final String SHIVI_POINTS_RESOURCE = "/test-data/shivi-flow-mapping-fractions.csv";
+    private static final long CACHE_SIZE_IN_BYTES = 100_000_000;
+    private static final Coordinate ISOCHRONE_START_POINT = new Coordinate(5.4267250, 52.1767242);
+    private static final int ISOCHRONE_METERS = 200;
+    private static final int ID = 1;
+
+    @Autowired
+    private StartToEndMapMatcherFactory startToEndMapMatcherFactory;
+    @Autowired
+    private SinglePointMapMatcherFactory singlePointMapMatcherFactory;
+    @Autowired
+    private GeometryFactoryWgs84 geometryFactory;
+
+    @ParameterizedTest(name = "fractionLookup={0}")
+    @CsvSource({"false, 0.000000001", "true, 0.001"})
+    void match_ok_startToEndFractions(boolean fractionLookup, double fractionOffset) throws IOException {
+        LineString lineString = geometryFactory.createLineString(new Coordinate[]{new Coordinate(5.431, 52.181),
+                new Coordinate(5.423, 52.181)});
+        LineStringLocation lineStringLocation = LineStringLocation.builder()
+                .id(ID)
+                .locationIndex(1)
+                .reversed(false)
+                .geometry(lineString)
+                .reliabilityCalculationType(ReliabilityCalculationType.POINT_OBSERVATIONS)
+                .build();
+
+        List<MatchedLink> expected = createStartToEndMapMatcher(EdgeGeometryCache.DISABLED, false)
+                .match(lineStringLocation).getMatchedLinks();
+        List<MatchedLink> actual = createStartToEndMapMatcher(CACHE_SIZE_IN_BYTES, fractionLookup)
+                .match(lineStringLocation).getMatchedLinks();
+
+        assertThat(actual).hasSameSizeAs(expected);
+        assertThat(expected.getFirst().getStartFraction()).isPositive();
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).getLinkId()).isEqualTo(expected.get(i).getLinkId());
+            assertThat(actual.get(i).getStartFraction()).isCloseTo(expected.get(i).getStartFraction(),
+                    offset(fractionOffset));
+            assertThat(actual.get(i).getEndFraction()).isCloseTo(expected.get(i).getEndFraction(),
+                    offset(fractionOffset));
+        }
+    }
+
+    @ParameterizedTest(name = "fractionLookup={0}")
+    @CsvSource({"false, 0.000000001", "true, 0.001"})
+    void match_ok_singlePointFractions(boolean fractionLookup, double fractionOffset) throws IOException {
+        SinglePointMapMatcher expectedMapMatcher = createSinglePointMapMatcher(SHIVI_LINKS_RESOURCE,
+                EdgeGeometryCache.DISABLED, false);
+        SinglePointMapMatcher actualMapMatcher = createSinglePointMapMatcher(SHIVI_LINKS_RESOURCE,
+                CACHE_SIZE_IN_BYTES, fractionLookup);
+
+        for (String line : readPointLines()) {
+            String[] values = line.split(",");
+            SinglePointLocation singlePointLocation = SinglePointLocation.builder()
+                    .id(ID)
+                    .point(geometryFactory.createPoint(
+                            new Coordinate(Double.parseDouble(values[1]), Double.parseDouble(values[2]))))
+                    .build();
+
+            List<CandidateMatch> expected = expectedMapMatcher.match(singlePointLocation).getCandidateMatches();
+            List<CandidateMatch> actual = actualMapMatcher.match(singlePointLocation).getCandidateMatches();
+
+            assertThat(actual).as(values[0]).hasSameSizeAs(expected);
+            for (int i = 0; i < expected.size(); i++) {
+                assertThat(actual.get(i).getMatchedLinkId()).as(values[0])
+                        .isEqualTo(expected.get(i).getMatchedLinkId());
+                assertThat(actual.get(i).getFraction()).as(values[0])
+                        .isCloseTo(expected.get(i).getFraction(), offset(fractionOffset));
+            }
+        }
+    }
+
+    @ParameterizedTest(name = "fractionLookup={0}")
+    @CsvSource({"false, 0.000000001", "true, 0.001"})
+    void match_ok_isochroneFractions(boolean fractionLookup, double fractionOffset) throws IOException {
+        SinglePointLocation singlePointLocation = SinglePointLocation.builder()
+                .id(ID)
+                .point(geometryFactory.createPoint(ISOCHRONE_START_POINT))
+                .downstreamIsochrone(ISOCHRONE_METERS)
+                .downstreamIsochroneUnit(IsochroneUnit.METERS)
+                .upstreamIsochrone(ISOCHRONE_METERS)
+                .upstreamIsochroneUnit(IsochroneUnit.METERS)
+                .build();
+
+        SinglePointMatch expected = createSinglePointMapMatcher(BIDIRECTIONAL_LINKS_RESOURCE,
+                EdgeGeometryCache.DISABLED, false).match(singlePointLocation);
+        SinglePointMatch actual = createSinglePointMapMatcher(BIDIRECTIONAL_LINKS_RESOURCE, CACHE_SIZE_IN_BYTES,
+                fractionLookup).match(singlePointLocation);
+
+        assertThat(actual.getCandidateMatches()).hasSameSizeAs(expected.getCandidateMatches());
+        for (int i = 0; i < expected.getCandidateMatches().size(); i++) {
+            CandidateMatch expectedMatch = expected.getCandidateMatches().get(i);
+            CandidateMatch actualMatch = actual.getCandidateMatches().get(i);
+            assertIsochroneMatches(actualMatch.getDownstream(), expectedMatch.getDownstream(), fractionOffset);
+            assertIsochroneMatches(actualMatch.getUpstream(), expectedMatch.getUpstream(), fractionOffset);
+        }
+    }
+
+    private static void assertIsochroneMatches(List<IsochroneMatch> actual, List<IsochroneMatch> expected,
+            double fractionOffset) {
+        assertThat(expected).isNotEmpty();
+        assertThat(actual).hasSameSizeAs(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).getMatchedLinkId()).isEqualTo(expected.get(i).getMatchedLinkId());
+            assertThat(actual.get(i).getStartFraction()).isCloseTo(expected.get(i).getStartFraction(),
+                    offset(fractionOffset));
+            assertThat(actual.get(i).getEndFraction()).isCloseTo(expected.get(i).getEndFraction(),
+                    offset(fractionOffset));
+        }
+    }
+
+    private StartToEndMapMatcher createStartToEndMapMatcher(long cacheSizeInBytes, boolean fractionLookup)
+            throws IOException {
+        NetworkGraphHopper network = TestNetworkProvider.getTestNetworkFromFile(LINKS_RESOURCE, cacheSizeInBytes,
+                fractionLookup);
+        return startToEndMapMatcherFactory.createMapMatcher(network, CAR);
+    }
+
+    private SinglePointMapMatcher createSinglePointMapMatcher(String resource, long cacheSizeInBytes,
+            boolean fractionLookup) throws IOException {
+        NetworkGraphHopper network = TestNetworkProvider.getTestNetworkFromFile(resource, cacheSizeInBytes,
+                fractionLookup);
+        return singlePointMapMatcherFactory.createMapMatcher(network, CAR);
+    }
+
+    private static List<String> readPointLines() throws IOException {
+        List<String> lines = IOUtils.readLines(EdgeGeometryCacheIT.class.getResourceAsStream(SHIVI_POINTS_RESOURCE),
+                StandardCharsets.UTF_8);
+        return lines.subList(1, lines.size());
+    }
+}
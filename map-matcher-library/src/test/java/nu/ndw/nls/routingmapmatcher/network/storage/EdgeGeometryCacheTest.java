@@ -0,0 +1,165 @@
+package nu.ndw.nls.routingmapmatcher.network.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.FetchMode;
+import com.graphhopper.util.PointList;
+import nu.ndw.nls.geometry.factories.GeometryFactoryWgs84;
+import nu.ndw.nls.routingmapmatcher.network.storage.EdgeGeometryCache.Statistics;
+import nu.ndw.nls.routingmapmatcher.util.PointListUtil;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.LineString;
+
+class EdgeGeometryCacheTest {
+
+    private static final long MAX_SIZE_IN_BYTES = 1_000_000;
+    private static final int EDGE_ID = 1;
+
+    private final PointListUtil pointListUtil = new PointListUtil(new GeometryFactoryWgs84());
+
+    @Test
+    void get_ok_cached() {
+        EdgeGeometryCache edgeGeometryCache = new EdgeGeometryCache(MAX_SIZE_IN_BYTES, pointListUtil);
+        EdgeIteratorState edge = mockEdge(EDGE_ID, false);
+
+        EdgeGeometry first = edgeGeometryCache.get(edge);
+        EdgeGeometry second = edgeGeometryCache.get(edge);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getPointList().size()).isEqualTo(3);
+        assertThat(first.getLineString().getCoordinateN(0)).isEqualTo(new Coordinate(5.0, 52.0));
+        assertThat(first.getCumulativeDistance(0)).isZero();
+        assertThat(first.getCumulativeDistance(1)).isCloseTo(68.46, offset(0.01));
+        assertThat(first.getLength()).isCloseTo(68.46 + 111.19, offset(0.01));
+        verify(edge, times(1)).fetchWayGeometry(FetchMode.ALL);
+        Statistics statistics = edgeGeometryCache.getStatistics();
+        assertThat(statistics.hitCount()).isEqualTo(1);
+        assertThat(statistics.missCount()).isEqualTo(1);
+        assertThat(statistics.size()).isEqualTo(1);
+        assertThat(statistics.sizeInBytes()).isEqualTo(first.estimateSizeInBytes());
+        assertThat(statistics.hitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void get_ok_reverseStateStoredInStorageDirection() {
+        EdgeGeometryCache edgeGeometryCache = new EdgeGeometryCache(MAX_SIZE_IN_BYTES, pointListUtil);
+        EdgeIteratorState reversedEdge = mockEdge(EDGE_ID, true);
+
+        EdgeGeometry geometry = edgeGeometryCache.get(reversedEdge);
+        LineString lineString = edgeGeometryCache.getLineString(reversedEdge);
+        PointList pointList = edgeGeometryCache.getPointList(reversedEdge);
+
+        assertThat(geometry.getLineString().getCoordinateN(0)).isEqualTo(new Coordinate(5.0, 52.0));
+        assertThat(lineString.getCoordinateN(0)).isEqualTo(new Coordinate(5.001, 52.001));
+        assertThat(pointList.getLon(0)).isEqualTo(5.001);
+        assertThat(pointList.isImmutable()).isTrue();
+        assertThat(edgeGeometryCache.getStatistics().hitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void getFraction_ok_inStateDirection() {
+        EdgeGeometryCache edgeGeometryCache = new EdgeGeometryCache(MAX_SIZE_IN_BYTES, pointListUtil);
+        Coordinate vertex = new Coordinate(5.001, 52.0);
+
+        double fraction = edgeGeometryCache.getFraction(mockEdge(EDGE_ID, false), vertex);
+        double reversedFraction = edgeGeometryCache.getFraction(mockEdge(EDGE_ID, true), vertex);
+        LineString reversedSubLineString = edgeGeometryCache.getSubLineString(mockEdge(EDGE_ID, true),
+                reversedFraction);
+
+        assertThat(fraction).isCloseTo(68.46 / (68.46 + 111.19), offset(0.0001));
+        assertThat(reversedFraction).isCloseTo(1 - fraction, offset(0.0001));
+        assertThat(reversedSubLineString.getStartPoint().getCoordinate()).isEqualTo(new Coordinate(5.001, 52.001));
+        assertThat(reversedSubLineString.getEndPoint().getCoordinate().distance(vertex)).isCloseTo(0, offset(1e-7));
+    }
+
+    @Test
+    void getVirtualNodeFraction_ok_inStateDirection() {
+        EdgeGeometryCache edgeGeometryCache = new EdgeGeometryCache(MAX_SIZE_IN_BYTES, true, pointListUtil);
+        Coordinate virtualNode = new Coordinate(5.001, 52.0005);
+        PointList virtualEdgeGeometry = new PointList();
+        virtualEdgeGeometry.add(virtualNode.y, virtualNode.x);
+        virtualEdgeGeometry.add(52.001, 5.001);
+
+        double fraction = edgeGeometryCache.getVirtualNodeFraction(mockEdge(EDGE_ID, false), virtualEdgeGeometry);
+        double reversedFraction = edgeGeometryCache.getVirtualNodeFraction(mockEdge(EDGE_ID, true),
+                virtualEdgeGeometry);
+
+        assertThat(edgeGeometryCache.isFractionLookupEnabled()).isTrue();
+        assertThat(fraction).isEqualTo(edgeGeometryCache.getFraction(mockEdge(EDGE_ID, false), virtualNode));
+        assertThat(reversedFraction).isCloseTo(1 - fraction, offset(0.0001));
+    }
+
+    @Test
+    void isFractionLookupEnabled_false_notRequested() {
+        assertThat(new EdgeGeometryCache(MAX_SIZE_IN_BYTES, pointListUtil).isFractionLookupEnabled()).isFalse();
+        assertThat(new EdgeGeometryCache(EdgeGeometryCache.DISABLED, true, pointListUtil).isFractionLookupEnabled())
+                .isFalse();
+    }
+
+    @Test
+    void get_ok_evictedWhenOverBudget() {
+        EdgeGeometryCache edgeGeometryCache = new EdgeGeometryCache(1_000, pointListUtil);
+
+        for (int edgeId = 0; edgeId < 10; edgeId++) {
+            edgeGeometryCache.get(mockEdge(edgeId, false));
+        }
+
+        Statistics statistics = edgeGeometryCache.getStatistics();
+        assertThat(statistics.missCount()).isEqualTo(10);
+        assertThat(statistics.evictionCount()).isPositive();
+        assertThat(statistics.size()).isEqualTo(10 - statistics.evictionCount());
+        assertThat(statistics.sizeInBytes()).isLessThanOrEqualTo(1_000);
+    }
+
+    @Test
+    void get_ok_disabled() {
+        EdgeGeometryCache edgeGeometryCache = new EdgeGeometryCache(EdgeGeometryCache.DISABLED, pointListUtil);
+        EdgeIteratorState edge = mock(EdgeIteratorState.class);
+        when(edge.fetchWayGeometry(FetchMode.ALL)).thenAnswer(invocation -> createPointList());
+
+        EdgeGeometry first = edgeGeometryCache.get(edge);
+        EdgeGeometry second = edgeGeometryCache.get(edge);
+
+        assertThat(edgeGeometryCache.isEnabled()).isFalse();
+        assertThat(second).isNotSameAs(first);
+        verify(edge, times(2)).fetchWayGeometry(FetchMode.ALL);
+        assertThat(edgeGeometryCache.getStatistics().missCount()).isZero();
+    }
+
+    @Test
+    void constructor_exception_negativeSize() {
+        assertThatThrownBy(() -> new EdgeGeometryCache(-1, pointListUtil))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Maximum size -1 must not be negative");
+    }
+
+    private static EdgeIteratorState mockEdge(int edgeId, boolean reverseState) {
+        EdgeIteratorState edge = mock(EdgeIteratorState.class);
+        when(edge.getEdge()).thenReturn(edgeId);
+        when(edge.get(EdgeIteratorState.REVERSE_STATE)).thenReturn(reverseState);
+        when(edge.fetchWayGeometry(FetchMode.ALL)).thenAnswer(invocation -> {
+            PointList pointList = createPointList();
+            if (reverseState) {
+                pointList.reverse();
+            }
+            return pointList;
+        });
+        return edge;
+    }
+
+    private static PointList createPointList() {
+        PointList pointList = new PointList();
+        pointList.add(52.0, 5.0);
+        pointList.add(52.0, 5.001);
+        pointList.add(52.001, 5.001);
+        return pointList;
+    }
+}
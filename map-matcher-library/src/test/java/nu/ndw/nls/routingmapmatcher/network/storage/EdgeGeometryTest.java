@@ -0,0 +1,142 @@
+package nu.ndw.nls.routingmapmatcher.network.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+import com.graphhopper.util.PointList;
+import nu.ndw.nls.geometry.factories.GeometryFactoryWgs84;
+import nu.ndw.nls.routingmapmatcher.util.PointListUtil;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.LineString;
+
+class EdgeGeometryTest {
+
+    private static final double FRACTION_OFFSET = 0.0001;
+    private static final double COORDINATE_OFFSET = 0.0000001;
+
+    private final PointListUtil pointListUtil = new PointListUtil(new GeometryFactoryWgs84());
+
+    private final EdgeGeometry edgeGeometry = createEdgeGeometry();
+
+    @Test
+    void getFraction_ok_vertex() {
+        double expectedFraction = edgeGeometry.getCumulativeDistance(1) / edgeGeometry.getLength();
+
+        assertThat(edgeGeometry.getFraction(new Coordinate(5.001, 52.0))).isCloseTo(expectedFraction,
+                offset(FRACTION_OFFSET));
+    }
+
+    @Test
+    void getFraction_ok_projectedOnClosestSegment() {
+        double expectedFraction = edgeGeometry.getCumulativeDistance(1) / 2 / edgeGeometry.getLength();
+
+        assertThat(edgeGeometry.getFraction(new Coordinate(5.0005, 52.0001))).isCloseTo(expectedFraction,
+                offset(FRACTION_OFFSET));
+    }
+
+    @Test
+    void getFraction_ok_beyondEnds() {
+        assertThat(edgeGeometry.getFraction(new Coordinate(4.999, 52.0))).isZero();
+        assertThat(edgeGeometry.getFraction(new Coordinate(5.001, 52.002))).isEqualTo(1.0);
+    }
+
+    @Test
+    void getFraction_ok_onKnownSegment() {
+        Coordinate coordinate = new Coordinate(5.001, 52.0005);
+
+        assertThat(edgeGeometry.getFraction(coordinate, 1)).isEqualTo(edgeGeometry.getFraction(coordinate));
+    }
+
+    @Test
+    void getFraction_ok_notOnKnownSegmentFallsBackToScan() {
+        Coordinate coordinate = new Coordinate(5.0005, 52.0);
+
+        assertThat(edgeGeometry.getFraction(coordinate, 1)).isEqualTo(edgeGeometry.getFraction(coordinate));
+        assertThat(edgeGeometry.getFraction(coordinate, -1)).isEqualTo(edgeGeometry.getFraction(coordinate));
+    }
+
+    @Test
+    void getVirtualNodeSegment_ok_towardsEnd() {
+        PointList virtualEdgeGeometry = new PointList();
+        virtualEdgeGeometry.add(52.0, 5.0005);
+        virtualEdgeGeometry.add(52.0, 5.001);
+        virtualEdgeGeometry.add(52.001, 5.001);
+
+        assertThat(edgeGeometry.getVirtualNodeSegment(virtualEdgeGeometry)).isZero();
+    }
+
+    @Test
+    void getVirtualNodeSegment_ok_towardsStart() {
+        PointList virtualEdgeGeometry = new PointList();
+        virtualEdgeGeometry.add(52.0005, 5.001);
+        virtualEdgeGeometry.add(52.0, 5.001);
+        virtualEdgeGeometry.add(52.0, 5.0);
+
+        assertThat(edgeGeometry.getVirtualNodeSegment(virtualEdgeGeometry)).isEqualTo(1);
+    }
+
+    @Test
+    void getVirtualNodeSegment_ok_otherVirtualNode() {
+        PointList virtualEdgeGeometry = new PointList();
+        virtualEdgeGeometry.add(52.0, 5.0002);
+        virtualEdgeGeometry.add(52.0, 5.0005);
+
+        assertThat(edgeGeometry.getVirtualNodeSegment(virtualEdgeGeometry)).isEqualTo(-1);
+    }
+
+    @Test
+    void getSubLineString_ok_wholeGeometry() {
+        LineString subLineString = edgeGeometry.getSubLineString(0, 1);
+
+        assertThat(subLineString.getCoordinates()).containsExactly(edgeGeometry.getLineString().getCoordinates());
+    }
+
+    @Test
+    void getSubLineString_ok_interpolatedOnSegments() {
+        double length = edgeGeometry.getLength();
+        double startFraction = edgeGeometry.getCumulativeDistance(1) / 2 / length;
+        double endFraction = (edgeGeometry.getCumulativeDistance(1) + 111.19 / 2) / length;
+
+        Coordinate[] coordinates = edgeGeometry.getSubLineString(startFraction, endFraction).getCoordinates();
+
+        assertThat(coordinates).hasSize(3);
+        assertThat(coordinates[0].x).isCloseTo(5.0005, offset(COORDINATE_OFFSET));
+        assertThat(coordinates[0].y).isCloseTo(52.0, offset(COORDINATE_OFFSET));
+        assertThat(coordinates[1]).isEqualTo(new Coordinate(5.001, 52.0));
+        assertThat(coordinates[2].x).isCloseTo(5.001, offset(COORDINATE_OFFSET));
+        assertThat(coordinates[2].y).isCloseTo(52.0005, offset(COORDINATE_OFFSET));
+    }
+
+    @Test
+    void getSubLineString_ok_vertexIsNotDuplicated() {
+        double fraction = edgeGeometry.getCumulativeDistance(1) / edgeGeometry.getLength();
+
+        LineString subLineString = edgeGeometry.getSubLineString(0, fraction);
+
+        assertThat(subLineString.getCoordinates()).containsExactly(new Coordinate(5.0, 52.0),
+                new Coordinate(5.001, 52.0));
+    }
+
+    @Test
+    void getSubLineString_ok_emptyRange() {
+        LineString subLineString = edgeGeometry.getSubLineString(0.5, 0.5);
+
+        assertThat(subLineString.getNumPoints()).isEqualTo(2);
+        assertThat(subLineString.getLength()).isZero();
+    }
+
+    @Test
+    void estimateSizeInBytes_ok_threePoints() {
+        // Object overhead plus, per point, the point list, packed and object coordinates, and cumulative distance
+        assertThat(edgeGeometry.estimateSizeInBytes()).isEqualTo(256 + 3 * (16 + 16 + 48 + 8));
+    }
+
+    private EdgeGeometry createEdgeGeometry() {
+        PointList pointList = new PointList();
+        pointList.add(52.0, 5.0);
+        pointList.add(52.0, 5.001);
+        pointList.add(52.001, 5.001);
+        return new EdgeGeometry(pointList, pointListUtil.toLineString(pointList));
+    }
+}
@@ -0,0 +1,96 @@
+package nu.ndw.nls.routingmapmatcher.network.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.graphhopper.routing.ev.IntEncodedValue;
+import com.graphhopper.routing.ev.IntEncodedValueImpl;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.storage.BaseGraph;
+import com.graphhopper.storage.DAType;
+import com.graphhopper.storage.GHDirectory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import lombok.SneakyThrows;
+import nu.ndw.nls.routingmapmatcher.network.model.Link;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class WayIdToEdgeKeyIndexTest {
+
+    private static final int WAY_ID_1 = 30;
+    private static final int WAY_ID_2 = 10;
+    private static final int WAY_ID_3 = 20;
+
+    private Path directoryPath;
+    private IntEncodedValue wayIdEncodedValue;
+    private BaseGraph baseGraph;
+
+    @SneakyThrows
+    @BeforeEach
+    void setUp() {
+        directoryPath = Files.createTempDirectory("way_id_index");
+        wayIdEncodedValue = new IntEncodedValueImpl(Link.WAY_ID_KEY, 31, false);
+        EncodingManager encodingManager = EncodingManager.start().add(wayIdEncodedValue).build();
+        baseGraph = new BaseGraph.Builder(encodingManager)
+                .setDir(new GHDirectory(directoryPath.toString(), DAType.RAM_STORE))
+                .create();
+        baseGraph.edge(0, 1).set(wayIdEncodedValue, WAY_ID_1);
+        baseGraph.edge(1, 2).set(wayIdEncodedValue, WAY_ID_2);
+        baseGraph.edge(2, 3).set(wayIdEncodedValue, WAY_ID_3);
+    }
+
+    @SneakyThrows
+    @AfterEach
+    void tearDown() {
+        baseGraph.close();
+        FileUtils.deleteDirectory(directoryPath.toFile());
+    }
+
+    @Test
+    void build_ok() {
+        WayIdToEdgeKeyIndex index = WayIdToEdgeKeyIndex.build(baseGraph.getDirectory(), baseGraph, wayIdEncodedValue);
+
+        assertThat(index.getEdgeKey(WAY_ID_1)).isZero();
+        assertThat(index.getEdgeKey(WAY_ID_2)).isEqualTo(2);
+        assertThat(index.getEdgeKey(WAY_ID_3)).isEqualTo(4);
+        assertThat(index.getEdgeKey(40)).isEqualTo(WayIdToEdgeKeyIndex.NOT_FOUND);
+        assertThat(index.getEdgeKey(-1)).isEqualTo(WayIdToEdgeKeyIndex.NOT_FOUND);
+        assertThat(index).isEqualTo(Map.of(30L, 0, 10L, 2, 20L, 4));
+        assertThat(index.get(40L)).isNull();
+        assertThat(index.get(WAY_ID_1)).isNull();
+    }
+
+    @Test
+    void build_ok_duplicateWayIdKeepsLastEdge() {
+        baseGraph.edge(3, 4).set(wayIdEncodedValue, WAY_ID_2);
+
+        WayIdToEdgeKeyIndex index = WayIdToEdgeKeyIndex.build(baseGraph.getDirectory(), baseGraph, wayIdEncodedValue);
+
+        assertThat(index).hasSize(3);
+        assertThat(index.getEdgeKey(WAY_ID_2)).isEqualTo(6);
+    }
+
+    @Test
+    void loadExisting_ok() {
+        WayIdToEdgeKeyIndex builtIndex = WayIdToEdgeKeyIndex.build(baseGraph.getDirectory(), baseGraph,
+                wayIdEncodedValue);
+        builtIndex.flush();
+        builtIndex.close();
+
+        Optional<WayIdToEdgeKeyIndex> loadedIndex = WayIdToEdgeKeyIndex.loadExisting(
+                new GHDirectory(directoryPath.toString(), DAType.RAM_STORE), baseGraph);
+
+        assertThat(loadedIndex).isPresent();
+        assertThat(loadedIndex.get()).isEqualTo(Map.of(30L, 0, 10L, 2, 20L, 4));
+        loadedIndex.get().close();
+    }
+
+    @Test
+    void loadExisting_ok_notStored() {
+        assertThat(WayIdToEdgeKeyIndex.loadExisting(baseGraph.getDirectory(), baseGraph)).isEmpty();
+    }
+}
@@ -0,0 +1,122 @@
+package nu.ndw.nls.routingmapmatcher.routing;
+
+import static nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider.CAR;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import lombok.SneakyThrows;
+import nu.ndw.nls.geometry.factories.GeometryFactoryWgs84;
+import nu.ndw.nls.routingmapmatcher.TestConfig;
+import nu.ndw.nls.routingmapmatcher.model.RouteStatus;
+import nu.ndw.nls.routingmapmatcher.model.routing.MatrixRoutingRequest;
+import nu.ndw.nls.routingmapmatcher.model.routing.MatrixRoutingResponse;
+import nu.ndw.nls.routingmapmatcher.model.routing.RoutingRequest;
+import nu.ndw.nls.routingmapmatcher.model.routing.RoutingResponse;
+import nu.ndw.nls.routingmapmatcher.network.NetworkGraphHopper;
+import nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Point;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+@SpringJUnitConfig(classes = {TestConfig.class})
+class MatrixRouterIT {
+
+    private static final Offset<Double> OFFSET = Offset.offset(0.001);
+
+    @Autowired
+    private MatrixRouterFactory matrixRouterFactory;
+
+    @Autowired
+    private RouterFactory routerFactory;
+
+    @Autowired
+    private GeometryFactoryWgs84 geometryFactory;
+
+    private MatrixRouter matrixRouter;
+
+    private Router router;
+
+    private Point start;
+
+    private Point via;
+
+    private Point end;
+
+    @SneakyThrows
+    @BeforeEach
+    void setUp() {
+        NetworkGraphHopper network = TestNetworkProvider.getTestNetworkFromFile("/test-data/network.geojson");
+        matrixRouter = matrixRouterFactory.createMapMatcher(network, CAR);
+        router = routerFactory.createMapMatcher(network, CAR);
+        start = geometryFactory.createPoint(new Coordinate(5.430496, 52.177687));
+        via = geometryFactory.createPoint(new Coordinate(5.4295216, 52.1768461));
+        end = geometryFactory.createPoint(new Coordinate(5.428436, 52.175901));
+    }
+
+    @Test
+    void route_ok() {
+        MatrixRoutingResponse response = matrixRouter.route(MatrixRoutingRequest.builder()
+                .origins(List.of(start, via))
+                .destinations(List.of(via, end))
+                .build());
+
+        assertThat(response.getStatus()).isEqualTo(RouteStatus.ROUTE_FOUND);
+        assertThat(response.getOriginCount()).isEqualTo(2);
+        assertThat(response.getDestinationCount()).isEqualTo(2);
+        assertThat(response.getLegs()).isEmpty();
+        assertSameAsRoute(response, 0, 1, start, end);
+        assertSameAsRoute(response, 0, 0, start, via);
+        assertSameAsRoute(response, 1, 1, via, end);
+        assertThat(response.getDistance(1, 0)).isZero();
+    }
+
+    @Test
+    void route_ok_includeLegs() {
+        MatrixRoutingResponse response = matrixRouter.route(MatrixRoutingRequest.builder()
+                .origins(List.of(start))
+                .destinations(List.of(start, end))
+                .includeLegs(true)
+                .build());
+
+        RoutingResponse routingResponse = router.route(RoutingRequest.builder().wayPoints(List.of(start, end)).build());
+        assertThat(response.getLeg(0, 0)).isEmpty();
+        assertThat(response.getLeg(0, 1)).contains(routingResponse.getLegs().getFirst());
+    }
+
+    @Test
+    void route_ok_unreachable() {
+        Point outOfBounds = geometryFactory.createPoint(new Coordinate(5.430496, 42.0));
+
+        MatrixRoutingResponse response = matrixRouter.route(MatrixRoutingRequest.builder()
+                .origins(List.of(start, outOfBounds))
+                .destinations(List.of(outOfBounds, end))
+                .includeLegs(true)
+                .build());
+
+        assertThat(response.getStatus()).isEqualTo(RouteStatus.ROUTE_FOUND);
+        assertThat(response.isReachable(0, 0)).isFalse();
+        assertThat(response.isReachable(0, 1)).isTrue();
+        assertThat(response.isReachable(1, 0)).isFalse();
+        assertThat(response.isReachable(1, 1)).isFalse();
+        assertThat(response.getDistance(1, 1)).isInfinite();
+        assertThat(response.getLeg(1, 1)).isEmpty();
+    }
+
+    private void assertSameAsRoute(MatrixRoutingResponse response, int originIndex, int destinationIndex,
+            Point origin, Point destination) {
+        RoutingResponse routingResponse = router.route(RoutingRequest.builder()
+                .wayPoints(List.of(origin, destination))
+                .build());
+        assertThat(response.isReachable(originIndex, destinationIndex)).isTrue();
+        assertThat(response.getDistance(originIndex, destinationIndex))
+                .isCloseTo(routingResponse.getDistance(), OFFSET);
+        assertThat(response.getDuration(originIndex, destinationIndex))
+                .isCloseTo(routingResponse.getDuration(), OFFSET);
+        assertThat(response.getWeight(originIndex, destinationIndex))
+                .isCloseTo(routingResponse.getWeight(), OFFSET);
+    }
+}
@@ -0,0 +1,97 @@
+package nu.ndw.nls.routingmapmatcher.routing.algorithm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.when;
+
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.BaseGraph;
+import com.graphhopper.util.EdgeIteratorState;
+import nu.ndw.nls.routingmapmatcher.routing.algorithm.OneToManyDijkstra.Label;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Node 1 can be reached directly on a short but expensive edge, or through node 2 on a long but cheap detour. Target
+ * node 3 lies just behind node 1.
+ */
+@ExtendWith(MockitoExtension.class)
+class OneToManyDijkstraTest {
+
+    private static final int FROM_NODE = 0;
+    private static final int VIA_NODE = 1;
+    private static final int TARGET_NODE = 3;
+    private static final double[] EDGE_DISTANCES = {10, 60, 10, 10};
+    private static final double[] DETOUR_EDGE_WEIGHTS = {10, 1, 1, 1};
+    private static final double MAX_DISTANCE = 75;
+
+    @Mock
+    private Weighting weighting;
+
+    private BaseGraph baseGraph;
+
+    @BeforeEach
+    void setUp() {
+        baseGraph = new BaseGraph.Builder(4).create();
+        baseGraph.edge(FROM_NODE, VIA_NODE).setDistance(EDGE_DISTANCES[0]);
+        baseGraph.edge(FROM_NODE, 2).setDistance(EDGE_DISTANCES[1]);
+        baseGraph.edge(2, VIA_NODE).setDistance(EDGE_DISTANCES[2]);
+        baseGraph.edge(VIA_NODE, TARGET_NODE).setDistance(EDGE_DISTANCES[3]);
+    }
+
+    @AfterEach
+    void tearDown() {
+        baseGraph.close();
+    }
+
+    @Test
+    void search_ok_maxDistanceWithWeightProportionalToDistance() {
+        mockEdgeWeights(EDGE_DISTANCES);
+        OneToManyDijkstra oneToManyDijkstra = new OneToManyDijkstra(baseGraph, weighting, TraversalMode.NODE_BASED);
+        oneToManyDijkstra.setMaxDistance(MAX_DISTANCE);
+
+        oneToManyDijkstra.search(FROM_NODE, new int[]{TARGET_NODE});
+
+        assertThat(oneToManyDijkstra.getSettledLabel(TARGET_NODE).getDistance()).isEqualTo(20);
+    }
+
+    @Test
+    void search_ok_withoutMaxDistanceLowestWeightPath() {
+        mockEdgeWeights(DETOUR_EDGE_WEIGHTS);
+        OneToManyDijkstra oneToManyDijkstra = new OneToManyDijkstra(baseGraph, weighting, TraversalMode.NODE_BASED);
+
+        oneToManyDijkstra.search(FROM_NODE, new int[]{TARGET_NODE});
+
+        Label label = oneToManyDijkstra.getSettledLabel(TARGET_NODE);
+        assertThat(label.getWeight()).isEqualTo(3);
+        assertThat(label.getDistance()).isEqualTo(80);
+    }
+
+    /**
+     * The maximum distance only bounds the search space. The cheap detour takes the place of the short edge at the via
+     * node and is then cut off, so the target is not reached although the short path of 20 meters is within the limit.
+     */
+    @Test
+    void search_notFound_maxDistanceWithWeightNotProportionalToDistance() {
+        mockEdgeWeights(DETOUR_EDGE_WEIGHTS);
+        OneToManyDijkstra oneToManyDijkstra = new OneToManyDijkstra(baseGraph, weighting, TraversalMode.NODE_BASED);
+        oneToManyDijkstra.setMaxDistance(MAX_DISTANCE);
+
+        oneToManyDijkstra.search(FROM_NODE, new int[]{TARGET_NODE});
+
+        assertThat(oneToManyDijkstra.getSettledLabel(VIA_NODE).getDistance()).isEqualTo(70);
+        assertThat(oneToManyDijkstra.getSettledLabel(TARGET_NODE)).isNull();
+        assertThat(oneToManyDijkstra.extractPath(TARGET_NODE).isFound()).isFalse();
+    }
+
+    private void mockEdgeWeights(double[] edgeWeights) {
+        when(weighting.calcEdgeWeight(any(EdgeIteratorState.class), anyBoolean()))
+                .thenAnswer(invocation -> edgeWeights[invocation.<EdgeIteratorState>getArgument(0).getEdge()]);
+    }
+}
@@ -0,0 +1,86 @@
+package nu.ndw.nls.routingmapmatcher.singlepoint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+import com.graphhopper.util.DistanceCalcEarth;
+import com.graphhopper.util.PointList;
+import nu.ndw.nls.geometry.factories.GeometryFactoryWgs84;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.MultiLineString;
+
+class CircleClipperTest {
+
+    private static final Coordinate CENTRE = new Coordinate(5.0, 52.0);
+    private static final double RADIUS = 20.0;
+    private static final double DISTANCE_OFFSET = 0.01;
+
+    private final CircleClipper circleClipper = new CircleClipper(new GeometryFactoryWgs84());
+
+    @Test
+    void clip_ok_segmentThroughCentre() {
+        Geometry clipped = circleClipper.clip(createPointList(4.999, 52.0, 5.001, 52.0), CENTRE, RADIUS);
+
+        assertThat(clipped).isInstanceOf(LineString.class);
+        Coordinate[] coordinates = clipped.getCoordinates();
+        assertThat(coordinates).hasSize(2);
+        assertThat(distanceToCentre(coordinates[0])).isCloseTo(RADIUS, offset(DISTANCE_OFFSET));
+        assertThat(distanceToCentre(coordinates[1])).isCloseTo(RADIUS, offset(DISTANCE_OFFSET));
+        assertThat(coordinates[0].x).isLessThan(coordinates[1].x);
+    }
+
+    @Test
+    void clip_ok_vertexInsideCircleIsKept() {
+        Geometry clipped = circleClipper.clip(createPointList(4.999, 52.0, 5.0, 52.00005, 5.001, 52.0), CENTRE,
+                RADIUS);
+
+        Coordinate[] coordinates = clipped.getCoordinates();
+        assertThat(coordinates).hasSize(3);
+        assertThat(distanceToCentre(coordinates[0])).isCloseTo(RADIUS, offset(DISTANCE_OFFSET));
+        assertThat(coordinates[1]).isEqualTo(new Coordinate(5.0, 52.00005));
+        assertThat(distanceToCentre(coordinates[2])).isCloseTo(RADIUS, offset(DISTANCE_OFFSET));
+    }
+
+    @Test
+    void clip_ok_geometryCrossesCircleTwice() {
+        Geometry clipped = circleClipper.clip(
+                createPointList(4.999, 52.0, 5.001, 52.0, 5.001, 52.001, 5.0, 52.001, 5.0, 51.999), CENTRE, RADIUS);
+
+        assertThat(clipped).isInstanceOf(MultiLineString.class);
+        assertThat(clipped.getNumGeometries()).isEqualTo(2);
+        assertThat(clipped.getGeometryN(0).getCoordinates()[0].y).isEqualTo(52.0);
+        assertThat(clipped.getGeometryN(1).getCoordinates()[0].x).isEqualTo(5.0);
+    }
+
+    @Test
+    void clip_ok_startsInsideCircle() {
+        Geometry clipped = circleClipper.clip(createPointList(5.0, 52.0, 5.001, 52.0), CENTRE, RADIUS);
+
+        Coordinate[] coordinates = clipped.getCoordinates();
+        assertThat(coordinates).hasSize(2);
+        assertThat(coordinates[0]).isEqualTo(CENTRE);
+        assertThat(distanceToCentre(coordinates[1])).isCloseTo(RADIUS, offset(DISTANCE_OFFSET));
+    }
+
+    @Test
+    void clip_empty_outsideCircle() {
+        Geometry clipped = circleClipper.clip(createPointList(4.999, 52.001, 5.001, 52.001), CENTRE, RADIUS);
+
+        assertThat(clipped.isEmpty()).isTrue();
+    }
+
+    private static PointList createPointList(double... lonLats) {
+        PointList pointList = new PointList();
+        for (int i = 0; i < lonLats.length; i += 2) {
+            pointList.add(lonLats[i + 1], lonLats[i]);
+        }
+        return pointList;
+    }
+
+    private static double distanceToCentre(Coordinate coordinate) {
+        return DistanceCalcEarth.DIST_EARTH.calcDist(CENTRE.y, CENTRE.x, coordinate.y, coordinate.x);
+    }
+}
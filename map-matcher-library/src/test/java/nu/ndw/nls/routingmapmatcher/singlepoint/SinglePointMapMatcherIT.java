@@ -13,6 +13,7 @@ import nu.ndw.nls.routingmapmatcher.TestConfig;
 import nu.ndw.nls.routingmapmatcher.model.IsochroneUnit;
 import nu.ndw.nls.routingmapmatcher.model.MatchStatus;
 import nu.ndw.nls.routingmapmatcher.model.singlepoint.BearingFilter;
+import nu.ndw.nls.routingmapmatcher.model.singlepoint.CircleClipping;
 import nu.ndw.nls.routingmapmatcher.model.singlepoint.SinglePointLocation;
 import nu.ndw.nls.routingmapmatcher.model.singlepoint.SinglePointMatch;
 import nu.ndw.nls.routingmapmatcher.model.singlepoint.SinglePointMatch.CandidateMatch;
@@ -32,6 +33,7 @@ class SinglePointMapMatcherIT {
     private static final String SHIVI_LINKS_RESOURCE = "/test-data/network_shivi_traffic_ways.geojson";
     private static final int ID = 123;
     private static final double DISTANCE_ROUNDING_ERROR = 0.1;
+    private static final long CACHE_SIZE_IN_BYTES = 100_000_000;
     @Autowired
     private SinglePointMapMatcherFactory singlePointMapMatcherFactory;
     @Autowired
@@ -67,6 +69,38 @@ class SinglePointMapMatcherIT {
         assertThat(singlePointMatch.getCandidateMatches().getFirst().getFraction()).isCloseTo(expectedFraction, offset(0.01));
     }
 
+    @SneakyThrows
+    @ParameterizedTest(name = "{0} [{index}]")
+    @CsvFileSource(resources = "/test-data/shivi-flow-mapping-fractions.csv", numLinesToSkip = 1)
+    void testFraction_analyticCircleClipping(String externalId, double x, double y, double expectedFraction) {
+        setupNetwork(SHIVI_LINKS_RESOURCE);
+
+        Point point = geometryFactory.createPoint(new Coordinate(x, y));
+        SinglePointMatch polygonMatch = singlePointMapMatcher.match(SinglePointLocation.builder()
+                .id(ID)
+                .point(point)
+                .circleClipping(CircleClipping.POLYGON)
+                .build());
+        SinglePointMatch analyticMatch = singlePointMapMatcher.match(SinglePointLocation.builder()
+                .id(ID)
+                .point(point)
+                .circleClipping(CircleClipping.ANALYTIC)
+                .build());
+        assertThat(analyticMatch.getStatus()).isEqualTo(MatchStatus.MATCH);
+        assertThat(analyticMatch.getCandidateMatches()).hasSameSizeAs(polygonMatch.getCandidateMatches());
+        for (int i = 0; i < polygonMatch.getCandidateMatches().size(); i++) {
+            CandidateMatch polygonCandidate = polygonMatch.getCandidateMatches().get(i);
+            CandidateMatch analyticCandidate = analyticMatch.getCandidateMatches().get(i);
+            assertThat(analyticCandidate.getMatchedLinkId()).isEqualTo(polygonCandidate.getMatchedLinkId());
+            assertThat(analyticCandidate.isReversed()).isEqualTo(polygonCandidate.isReversed());
+            assertThat(analyticCandidate.getFraction()).isCloseTo(polygonCandidate.getFraction(), offset(0.001));
+            assertThat(analyticCandidate.getDistance()).isCloseTo(polygonCandidate.getDistance(),
+                    offset(DISTANCE_ROUNDING_ERROR));
+        }
+        assertThat(analyticMatch.getCandidateMatches().getFirst().getFraction()).isCloseTo(expectedFraction,
+                offset(0.01));
+    }
+
     @SneakyThrows
     @Test
     void testOneWayMatch() {
@@ -212,6 +246,51 @@ class SinglePointMapMatcherIT {
         assertThat(singlePointMatch.getReliability()).isEqualTo(0.0);
     }
 
+    @SneakyThrows
+    @Test
+    void testMatchBatch() {
+        setupNetwork(LINKS_RESOURCE);
+
+        // The first two points are near each other, the last point does not match
+        List<SinglePointLocation> locations = List.of(
+                createLocation(1, 5.4280, 52.1798),
+                createLocation(2, 5.42805, 52.17985),
+                createLocation(3, 5.427, 52.177),
+                createLocation(4, 5.424633, 52.178623),
+                createLocation(5, 5.420, 52.190));
+
+        List<SinglePointMatch> batchMatches = singlePointMapMatcher.matchBatch(locations);
+
+        assertThat(batchMatches).hasSameSizeAs(locations);
+        for (int i = 0; i < locations.size(); i++) {
+            assertThat(batchMatches.get(i)).isEqualTo(singlePointMapMatcher.match(locations.get(i)));
+        }
+        assertThat(batchMatches).extracting(SinglePointMatch::getStatus).containsExactly(MatchStatus.MATCH,
+                MatchStatus.MATCH, MatchStatus.MATCH, MatchStatus.MATCH, MatchStatus.NO_MATCH);
+    }
+
+    @SneakyThrows
+    @Test
+    void testMatchBatch_sameCellSharesCandidates() {
+        // With fraction lookup, the fractions of shared candidates come from the cached edge geometry
+        singlePointMapMatcher = singlePointMapMatcherFactory.createMapMatcher(
+                TestNetworkProvider.getTestNetworkFromFile(LINKS_RESOURCE, CACHE_SIZE_IN_BYTES, true), CAR);
+        List<SinglePointLocation> locations = List.of(
+                createLocation(1, 5.4280, 52.1798),
+                createLocation(2, 5.4280, 52.1798));
+
+        List<SinglePointMatch> batchMatches = singlePointMapMatcher.matchBatch(locations);
+
+        assertThat(batchMatches.getFirst().getStatus()).isEqualTo(MatchStatus.MATCH);
+        assertThat(batchMatches.get(1).getCandidateMatches())
+                .isEqualTo(batchMatches.getFirst().getCandidateMatches())
+                .extracting(CandidateMatch::getFraction)
+                .containsExactlyElementsOf(singlePointMapMatcher.match(locations.getFirst()).getCandidateMatches()
+                        .stream()
+                        .map(CandidateMatch::getFraction)
+                        .toList());
+    }
+
     @SneakyThrows
     @Test
     void testUpstreamDownstream() {
@@ -248,6 +327,13 @@ class SinglePointMapMatcherIT {
                 3666114, 3666130, 3666115, 3666116, 3666117, 3666118, 3666119, 3666120);
     }
 
+    private SinglePointLocation createLocation(int id, double x, double y) {
+        return SinglePointLocation.builder()
+                .id(id)
+                .point(geometryFactory.createPoint(new Coordinate(x, y)))
+                .build();
+    }
+
     private List<CandidateMatch> getNearestCandidateMatches(List<CandidateMatch> candidateMatches) {
         double cutoffDistance = candidateMatches.getFirst().getDistance() + DISTANCE_ROUNDING_ERROR;
         return candidateMatches.stream().filter(cm -> cm.getDistance() < cutoffDistance).toList();
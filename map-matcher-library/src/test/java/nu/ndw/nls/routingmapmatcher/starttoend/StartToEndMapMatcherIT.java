@@ -11,6 +11,7 @@ import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringLocation;
 import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringMatch;
 import nu.ndw.nls.routingmapmatcher.model.linestring.MatchedLink;
 import nu.ndw.nls.routingmapmatcher.model.linestring.ReliabilityCalculationType;
+import nu.ndw.nls.routingmapmatcher.model.linestring.StartToEndSearchMode;
 import nu.ndw.nls.routingmapmatcher.testutil.TestLineStringProvider;
 import nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider;
 import org.assertj.core.data.Percentage;
@@ -235,6 +236,45 @@ class StartToEndMapMatcherIT {
                 new Coordinate(5.425227, 52.178303), new Coordinate(5.424792, 52.178546)});
     }
 
+    @SneakyThrows
+    @Test
+    void match_ok_oneToManySameAsPerCandidatePair() {
+        LineStringLocation lineStringLocation = TestLineStringProvider.getLineStringLocation(
+                "/test-data/matched_linestring_location.geojson");
+        LineStringLocation oneToManyLineStringLocation = lineStringLocation.toBuilder()
+                .startToEndSearchMode(StartToEndSearchMode.ONE_TO_MANY)
+                .build();
+
+        LineStringMatch lineStringMatch = startToEndMapMatcher.match(oneToManyLineStringLocation);
+
+        assertThat(lineStringMatch).isEqualTo(startToEndMapMatcher.match(lineStringLocation));
+    }
+
+    @Test
+    void match_ok_maxPathLengthFactorSameAsUnlimited() {
+        LineStringLocation lineStringLocation = TestLineStringProvider.getLineStringLocation(
+                "/test-data/matched_linestring_location.geojson");
+        LineStringLocation limitedLineStringLocation = lineStringLocation.toBuilder()
+                .maxPathLengthFactor(2.0)
+                .build();
+
+        LineStringMatch lineStringMatch = startToEndMapMatcher.match(limitedLineStringLocation);
+
+        assertThat(lineStringMatch).isEqualTo(startToEndMapMatcher.match(lineStringLocation));
+    }
+
+    @Test
+    void match_noMatch_maxPathLengthFactorTooSmall() {
+        LineStringLocation lineStringLocation = TestLineStringProvider.getLineStringLocation(
+                "/test-data/matched_linestring_location.geojson").toBuilder()
+                .maxPathLengthFactor(0.1)
+                .build();
+
+        LineStringMatch lineStringMatch = startToEndMapMatcher.match(lineStringLocation);
+
+        assertThat(lineStringMatch.getStatus()).isEqualTo(MatchStatus.NO_MATCH);
+    }
+
     private void assertSuccess(LineStringMatch lineStringMatch, Coordinate[] coordinates) {
         assertThat(lineStringMatch.getId()).isEqualTo(29);
         assertThat(lineStringMatch.getStatus()).isEqualTo(MatchStatus.MATCH);
@@ -37,6 +37,7 @@ import nu.ndw.nls.routingmapmatcher.network.model.DirectionalDto;
 import nu.ndw.nls.routingmapmatcher.network.model.Link;
 import nu.ndw.nls.routingmapmatcher.network.model.LinkVehicleMapper;
 import nu.ndw.nls.routingmapmatcher.network.model.RoutingNetworkSettings;
+import nu.ndw.nls.routingmapmatcher.network.storage.EdgeGeometryCache;
 import org.apache.commons.io.IOUtils;
 import org.geotools.data.geojson.GeoJSONReader;
 import org.geotools.data.simple.SimpleFeatureIterator;
@@ -109,11 +110,18 @@ public final class TestNetworkProvider {
     }
 
     public static NetworkGraphHopper getTestNetworkFromFile(String path) throws IOException {
+        return getTestNetworkFromFile(path, EdgeGeometryCache.DISABLED, false);
+    }
+
+    public static NetworkGraphHopper getTestNetworkFromFile(String path, long edgeGeometryCacheSizeInBytes,
+            boolean edgeFractionLookup) throws IOException {
         List<TestLink> links = getTestLinks(path);
         RoutingNetworkSettings<TestLink> routingNetworkSettings = RoutingNetworkSettings.builder(TestLink.class)
                 .networkNameAndVersion("test_network")
                 .profiles(TEST_PROFILES)
                 .linkSupplier(links::iterator)
+                .edgeGeometryCacheSizeInBytes(edgeGeometryCacheSizeInBytes)
+                .edgeFractionLookup(edgeFractionLookup)
                 .build();
 
         return NETWORK_SERVICE.inMemory(routingNetworkSettings);
@@ -0,0 +1,39 @@
+package nu.ndw.nls.routingmapmatcher.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class HilbertCurveOrderTest {
+
+    @Test
+    void sort_ok_quadrants() {
+        double[] xs = {5.0, 5.0, 6.0, 6.0};
+        double[] ys = {52.0, 53.0, 52.0, 53.0};
+
+        assertThat(HilbertCurveOrder.sort(xs, ys)).containsExactly(0, 1, 3, 2);
+    }
+
+    @Test
+    void sort_ok_nearbyCoordinatesAreAdjacent() {
+        double[] xs = {5.0, 6.0, 5.001, 6.001};
+        double[] ys = {52.0, 53.0, 52.001, 53.001};
+
+        int[] order = HilbertCurveOrder.sort(xs, ys);
+
+        assertThat(order).containsExactly(0, 2, 1, 3);
+    }
+
+    @Test
+    void sort_ok_sameCoordinatesKeepInputOrder() {
+        double[] xs = {5.0, 5.0, 5.0};
+        double[] ys = {52.0, 52.0, 52.0};
+
+        assertThat(HilbertCurveOrder.sort(xs, ys)).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void sort_ok_empty() {
+        assertThat(HilbertCurveOrder.sort(new double[0], new double[0])).isEmpty();
+    }
+}
@@ -0,0 +1,127 @@
+package nu.ndw.nls.routingmapmatcher.viterbi;
+
+import static nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider.CAR;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import lombok.SneakyThrows;
+import nu.ndw.nls.geometry.factories.GeometryFactoryWgs84;
+import nu.ndw.nls.routingmapmatcher.TestConfig;
+import nu.ndw.nls.routingmapmatcher.model.MatchStatus;
+import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringLocation;
+import nu.ndw.nls.routingmapmatcher.model.linestring.LineStringMatch;
+import nu.ndw.nls.routingmapmatcher.network.NetworkGraphHopper;
+import nu.ndw.nls.routingmapmatcher.testutil.TestLineStringProvider;
+import nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider;
+import nu.ndw.nls.routingmapmatcher.util.CoordinateHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.LineString;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+@SpringJUnitConfig(classes = {TestConfig.class})
+class HmmLineStringMapMatcherIT {
+
+    private static final String ROUND_TRIP_COORDINATES =
+            "5.426229655945605,52.180997682499225;5.426016932174917,52.18049042990458;"
+            + "5.425796329747783,52.17989138129437;5.425890873644789,52.179760942221066;"
+            + "5.427159337606241,52.17978992871468;5.429129002141082,52.179852732719894;"
+            + "5.430287164887744,52.17991070556937;5.430618068529668,52.180016988929594;"
+            + "5.4305786752388485,52.18037931665884;5.429491420414905,52.180538739924884;"
+            + "5.426552680928609,52.18097352774487;5.426221777286685,52.18102183724045;"
+            + "5.426040568150427,52.18064985277195;5.425819965722042,52.18009428575948;"
+            + "5.425764815114661,52.1798044219548;5.426489651663502,52.179722293533246;"
+            + "5.429160516773038,52.1798044219548;5.430562917922288,52.17995418515633;"
+            + "5.430618068529668,52.18030202032435;5.430184742331875,52.180509753918926;"
+            + "5.428774462524984,52.18068366967026;5.426276927894065,52.18106048479896";
+
+    @Autowired
+    private GeometryFactoryWgs84 geometryFactory;
+
+    @Autowired
+    private HmmLineStringMapMatcherFactory hmmLineStringMapMatcherFactory;
+
+    @Autowired
+    private ViterbiLinestringMapMatcherFactory viterbiLinestringMapMatcherFactory;
+
+    private HmmLineStringMapMatcher hmmLineStringMapMatcher;
+
+    private ViterbiLineStringMapMatcher viterbiLineStringMapMatcher;
+
+    @SneakyThrows
+    @BeforeEach
+    void setup() {
+        NetworkGraphHopper network = TestNetworkProvider.getTestNetworkFromFile("/test-data/network.geojson");
+        hmmLineStringMapMatcher = hmmLineStringMapMatcherFactory.createMapMatcher(network, CAR);
+        viterbiLineStringMapMatcher = viterbiLinestringMapMatcherFactory.createMapMatcher(network, CAR);
+    }
+
+    @SneakyThrows
+    @Test
+    void match_ok_sameAsViterbi() {
+        LineStringLocation lineStringLocation = TestLineStringProvider.getLineStringLocation(
+                "/test-data/matched_linestring_location.geojson");
+
+        LineStringMatch lineStringMatch = hmmLineStringMapMatcher.match(lineStringLocation);
+
+        assertThat(lineStringMatch.getStatus()).isEqualTo(MatchStatus.MATCH);
+        assertThat(lineStringMatch).isEqualTo(viterbiLineStringMapMatcher.match(lineStringLocation));
+    }
+
+    @SneakyThrows
+    @Test
+    void match_ok_doubleEndSameAsViterbi() {
+        LineStringLocation lineStringLocation = TestLineStringProvider.getLineStringLocation(
+                "/test-data/matched_linestring_location_double_end.geojson");
+
+        LineStringMatch lineStringMatch = hmmLineStringMapMatcher.match(lineStringLocation);
+
+        assertThat(lineStringMatch.getStatus()).isEqualTo(MatchStatus.MATCH);
+        assertThat(lineStringMatch).isEqualTo(viterbiLineStringMapMatcher.match(lineStringLocation));
+    }
+
+    @Test
+    void match_ok_roundTripSameAsViterbi() {
+        // A circular route that traverses part of the road sections twice in the same direction
+        LineString lineString = geometryFactory.createLineString(
+                CoordinateHelper.getCoordinatesFromString(ROUND_TRIP_COORDINATES).toArray(new Coordinate[]{}));
+        LineStringLocation lineStringLocation = LineStringLocation.builder()
+                .id(1)
+                .locationIndex(1)
+                .reversed(false)
+                .geometry(lineString)
+                .build();
+
+        LineStringMatch lineStringMatch = hmmLineStringMapMatcher.match(lineStringLocation);
+
+        assertThat(lineStringMatch.getStatus()).isEqualTo(MatchStatus.MATCH);
+        assertThat(lineStringMatch).isEqualTo(viterbiLineStringMapMatcher.match(lineStringLocation));
+    }
+
+    @SneakyThrows
+    @Test
+    void match_ok_reusedForSubsequentMatches() {
+        LineStringLocation lineStringLocation = TestLineStringProvider.getLineStringLocation(
+                "/test-data/matched_linestring_location.geojson");
+        LineStringLocation doubleEndLineStringLocation = TestLineStringProvider.getLineStringLocation(
+                "/test-data/matched_linestring_location_double_end.geojson");
+
+        LineStringMatch lineStringMatch = hmmLineStringMapMatcher.match(lineStringLocation);
+        hmmLineStringMapMatcher.match(doubleEndLineStringLocation);
+
+        assertThat(hmmLineStringMapMatcher.match(lineStringLocation)).isEqualTo(lineStringMatch);
+    }
+
+    @SneakyThrows
+    @Test
+    void match_noMatch() {
+        LineStringLocation lineStringLocation = TestLineStringProvider.getLineStringLocation(
+                "/test-data/unmatched_linestring_location.geojson");
+
+        LineStringMatch lineStringMatch = hmmLineStringMapMatcher.match(lineStringLocation);
+
+        assertThat(lineStringMatch.getStatus()).isEqualTo(MatchStatus.NO_MATCH);
+        assertThat(lineStringMatch.getMatchedLinks()).isEmpty();
+    }
+}
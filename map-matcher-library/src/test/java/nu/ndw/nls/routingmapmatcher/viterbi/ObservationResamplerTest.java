@@ -0,0 +1,58 @@
+package nu.ndw.nls.routingmapmatcher.viterbi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.graphhopper.util.PointList;
+import org.junit.jupiter.api.Test;
+
+class ObservationResamplerTest {
+
+    private static final double SPACING = 20.0;
+    private static final double LATITUDE = 52.0;
+    private static final double LONGITUDE = 5.0;
+    // Roughly 0.68 meters at this latitude
+    private static final double LONGITUDE_STEP = 0.00001;
+    private static final double LATITUDE_STEP = 0.00001;
+
+    @Test
+    void resample_ok_straightLineKeepsSpacingAndEndpoints() {
+        PointList pointList = new PointList();
+        for (int index = 0; index <= 100; index++) {
+            pointList.add(LATITUDE, LONGITUDE + index * LONGITUDE_STEP);
+        }
+
+        PointList resampledPointList = ObservationResampler.resample(pointList, SPACING);
+
+        assertThat(resampledPointList.size()).isEqualTo(5);
+        assertThat(resampledPointList.getLon(0)).isEqualTo(pointList.getLon(0));
+        assertThat(resampledPointList.getLon(1)).isEqualTo(pointList.getLon(30));
+        assertThat(resampledPointList.getLon(2)).isEqualTo(pointList.getLon(60));
+        assertThat(resampledPointList.getLon(3)).isEqualTo(pointList.getLon(90));
+        assertThat(resampledPointList.getLon(4)).isEqualTo(pointList.getLon(100));
+    }
+
+    @Test
+    void resample_ok_keepsBearingChanges() {
+        PointList pointList = new PointList();
+        pointList.add(LATITUDE, LONGITUDE);
+        pointList.add(LATITUDE, LONGITUDE + LONGITUDE_STEP);
+        pointList.add(LATITUDE + LATITUDE_STEP, LONGITUDE + LONGITUDE_STEP);
+        pointList.add(LATITUDE + 2 * LATITUDE_STEP, LONGITUDE + LONGITUDE_STEP);
+
+        PointList resampledPointList = ObservationResampler.resample(pointList, SPACING);
+
+        assertThat(resampledPointList.size()).isEqualTo(3);
+        assertThat(resampledPointList.getLat(1)).isEqualTo(LATITUDE);
+        assertThat(resampledPointList.getLon(1)).isEqualTo(LONGITUDE + LONGITUDE_STEP);
+        assertThat(resampledPointList.getLat(2)).isEqualTo(LATITUDE + 2 * LATITUDE_STEP);
+    }
+
+    @Test
+    void resample_ok_startAndEndOnly() {
+        PointList pointList = new PointList();
+        pointList.add(LATITUDE, LONGITUDE);
+        pointList.add(LATITUDE, LONGITUDE + LONGITUDE_STEP);
+
+        assertThat(ObservationResampler.resample(pointList, SPACING)).isSameAs(pointList);
+    }
+}
@@ -0,0 +1,37 @@
+package nu.ndw.nls.routingmapmatcher.viterbi;
+
+import static nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider.CAR;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.Parameters;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.SneakyThrows;
+import nu.ndw.nls.routingmapmatcher.mappers.PMapMapper;
+import nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider;
+import nu.ndw.nls.routingmapmatcher.viterbi.ObservationCandidateFinder.CandidateObservation;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+
+class PrecomputedSnapsMapMatchingIT {
+
+    private static final Coordinate COORDINATE = new Coordinate(5.426229655945605, 52.180997682499225);
+
+    @SneakyThrows
+    @Test
+    void findCandidateSnaps_ok_precomputedCandidatesHandedOutOnce() {
+        List<Snap> candidates = new ArrayList<>();
+        PrecomputedSnapsMapMatching mapMatching = new PrecomputedSnapsMapMatching(
+                TestNetworkProvider.getTestNetworkFromFile("/test-data/network.geojson"),
+                new PMapMapper().mapCustomModelOrDefaultToShortestWeighting(null)
+                        .putObject("profile", CAR).putObject(Parameters.CH.DISABLE, true),
+                List.of(new CandidateObservation(COORDINATE, candidates)));
+
+        List<Snap> first = mapMatching.findCandidateSnaps(COORDINATE.getY(), COORDINATE.getX());
+        List<Snap> second = mapMatching.findCandidateSnaps(COORDINATE.getY(), COORDINATE.getX());
+
+        assertThat(first).isSameAs(candidates);
+        assertThat(second).isNotSameAs(candidates).isNotEmpty();
+    }
+}
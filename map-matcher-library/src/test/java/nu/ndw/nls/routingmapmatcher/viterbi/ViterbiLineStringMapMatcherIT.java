@@ -4,6 +4,7 @@ import static nu.ndw.nls.routingmapmatcher.testutil.TestNetworkProvider.CAR;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
+import java.util.stream.IntStream;
 import lombok.SneakyThrows;
 import nu.ndw.nls.geometry.factories.GeometryFactoryWgs84;
 import nu.ndw.nls.routingmapmatcher.TestConfig;
@@ -205,6 +206,40 @@ class ViterbiLineStringMapMatcherIT {
                 new Coordinate(5.425227, 52.178303), new Coordinate(5.424792, 52.178546)});
     }
 
+    /**
+     * Only every fourth coordinate of the location is kept, so successive observations are far more than the
+     * measurement error apart. Resampling the line restores the observations in between.
+     */
+    @SneakyThrows
+    @Test
+    void match_ok_resampleSparseObservations() {
+        LineStringLocation l = TestLineStringProvider.getLineStringLocation(
+                "/test-data/matched_linestring_location.geojson");
+        Coordinate[] coordinates = l.getGeometry().getCoordinates();
+        Coordinate[] sparseCoordinates = IntStream.iterate(0, index -> index < coordinates.length, index -> index + 4)
+                .mapToObj(index -> coordinates[index])
+                .toArray(Coordinate[]::new);
+        LineStringLocation lineStringLocation = LineStringLocation.builder()
+                .id(l.getId())
+                .locationIndex(l.getLocationIndex())
+                .reversed(l.isReversed())
+                .geometry(geometryFactory.createLineString(sparseCoordinates))
+                .reliabilityCalculationType(l.getReliabilityCalculationType())
+                .radius(l.getRadius())
+                .resampleObservations(true)
+                .build();
+
+        LineStringMatch lineStringMatch = viterbiLineStringMapMatcher.match(lineStringLocation);
+
+        verifySumDistanceOfIndividualRoadSections(lineStringMatch);
+        assertThat(sparseCoordinates).hasSize(5).endsWith(coordinates[coordinates.length - 1]);
+        assertThat(lineStringMatch.getStatus()).isEqualTo(MatchStatus.MATCH);
+        assertThat(lineStringMatch.getMatchedLinks()).extracting(MatchedLink::getLinkId)
+                .containsExactlyElementsOf(viterbiLineStringMapMatcher.match(l).getMatchedLinks().stream()
+                        .map(MatchedLink::getLinkId)
+                        .toList());
+    }
+
     private void assertSuccess(LineStringMatch lineStringMatch, Coordinate[] coordinates) {
         assertThat(lineStringMatch.getId()).isEqualTo(29);
         assertThat(lineStringMatch.getStatus()).isEqualTo(MatchStatus.MATCH);